@@ -59,8 +59,8 @@ public @interface DynamilizeClass {
   /**此类型动态化时所使用的静态java辅助器存储字段名称，在将类型声明转化为动态类的过程中，会在类的一级声明中搜索这个字段，
    * 并将INSTANCE字段添加在其后方以确保有效的调用此字段，默认为"$helper$"，您可以自行指定字段名称*/
   String helperField() default "$helper$";
-  /**是否对所有动态化的方法调用添加方法签名，关于方法签名的性能影响，可参阅{@link DataPool#select(String, FunctionType)}，若您将此设置为true，
-   * 那么所有从方法调用转换来的动态方法引用都会标记其调用的方法签名类型，并在调用时传入以提升性能
+  /**是否对所有动态化的方法调用添加方法签名，关于方法签名的性能影响，可参阅{@link DataPool#select(FunctionSymbol)}，若您将此设置为true，
+   * 那么所有从方法调用转换来的动态方法引用都会被记录为静态的{@link FunctionSymbol}常量，并在调用时以符号直接索引函数以提升性能
    * <p>您可以根据需要设置此选项，假如内存性能十分重要，则推荐设为false，否则通常来说设为true都能提升时间性能，尤其是在动态类型多次扩展嵌套的情况下*/
   boolean signatureMethods() default true;
 
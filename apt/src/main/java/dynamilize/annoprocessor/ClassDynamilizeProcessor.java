@@ -32,7 +32,7 @@ public class ClassDynamilizeProcessor extends BaseProcessor{
     Type SuperType = ((Type) elements.getTypeElement("dynamilize.runtimeannos.Super").asType());
     Type ExcludeType = ((Type) elements.getTypeElement("dynamilize.runtimeannos.Exclude").asType());
     Type ProducterType = ((Type) elements.getTypeElement("dynamilize.Initializer.Producer").asType());
-    Type functionType = (Type) elements.getTypeElement("dynamilize.FunctionType").asType();
+    Type functionSymbolType = (Type) elements.getTypeElement("dynamilize.FunctionSymbol").asType();
 
     for (TypeElement anno : set) {
       for (Element element : roundEnvironment.getElementsAnnotatedWith(anno)) {
@@ -285,12 +285,13 @@ public class ClassDynamilizeProcessor extends BaseProcessor{
                       Symbol.VarSymbol sym = new Symbol.VarSymbol(
                           Flags.PRIVATE | Flags.STATIC | Flags.FINAL,
                           names.fromString("signature#" + signatures.size()),
-                          functionType,
+                          functionSymbolType,
                           root.sym
                       );
                       sym.setDeclarationAttributes(List.of(new Attribute.Compound(ExcludeType, List.nil())));
 
                       ArrayList<JCTree.JCExpression> list = new ArrayList<>();
+                      list.add(maker.Literal(m.name.toString()));
                       for (Symbol.VarSymbol param : m.params) {
                         list.add(maker.ClassLiteral(new Type.ClassType(param.type, List.nil(), param.type.tsym)));
                       }
@@ -299,8 +300,8 @@ public class ClassDynamilizeProcessor extends BaseProcessor{
                           maker.Apply(
                               List.nil(),
                               maker.Select(
-                                  maker.Type(functionType),
-                                  names.fromString("inst")
+                                  maker.Type(functionSymbolType),
+                                  names.fromString("of")
                               ),
                               List.from(list)
                           )
@@ -309,10 +310,12 @@ public class ClassDynamilizeProcessor extends BaseProcessor{
                       return sym;
                     }): null;
 
-                    tree.args = tree.args.prepend(maker.Literal(ac.name.toString()));
                     tree.typeargs = List.of(maker.Type(m.getReturnType()));
+                    //实参不多于4个的符号调用使用固定参数数量的方法，避免构造实参数组
+                    String invoker = signature != null && tree.args.size() <= 4? "invokeFunc" + tree.args.size(): "invokeFunc";
                     if (signature != null) tree.args = tree.args.prepend(maker.Ident(signature));
-                    ac.name = names.fromString("invokeFunc");
+                    else tree.args = tree.args.prepend(maker.Literal(ac.name.toString()));
+                    ac.name = names.fromString(invoker);
                   }
 
                   super.visitApply(tree);
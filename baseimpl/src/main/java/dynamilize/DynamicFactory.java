@@ -5,11 +5,16 @@ import dynamilize.classmaker.AbstractClassGenerator;
 import dynamilize.classmaker.BaseClassLoader;
 import dynamilize.classmaker.ByteClassLoader;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**用于创建{@linkplain DynamicMaker 动态生成器}的工厂类，内部提供了默认生成器的声明
  *
@@ -54,12 +59,22 @@ public class DynamicFactory {
       protected <T> Class<? extends T> generateClass(Class<T> baseClass, Class<?>[] interfaces, Class<?>[] aspects) {
         return makeClassInfo(baseClass, interfaces, aspects).generate(generator);
       }
+
+      @Override
+      protected <T> Class<? extends T> generateFieldClass(Class<T> dynamicBase, FieldVariable[] variables) {
+        return makeFieldClassInfo(dynamicBase, variables).generate(generator);
+      }
     }: new DynamicMaker(helper) {
       @Override
       protected <T> Class<? extends T> generateClass(Class<T> baseClass, Class<?>[] interfaces, Class<?>[] aspects) {
         return makeClassInfo(baseClass, interfaces, aspects).generate(generator);
       }
 
+      @Override
+      protected <T> Class<? extends T> generateFieldClass(Class<T> dynamicBase, FieldVariable[] variables) {
+        return makeFieldClassInfo(dynamicBase, variables).generate(generator);
+      }
+
       @Override
       protected <T> Class<? extends T> handleBaseClass(Class<T> baseClass) {
         return handler.handle(baseClass);
@@ -114,12 +129,18 @@ public class DynamicFactory {
     return this;
   }
 
-  /**设置{@link JavaHandleHelper}的默认内部实现，该实现直接引用{@link JavaVariable}和{@link JavaMethodEntry}以及默认的反模块化访问
+  /**设置{@link JavaHandleHelper}的默认内部实现，该实现直接引用{@link JavaVariable}和{@link JavaMethodEntry}以及默认的反模块化访问。
+   * <p>行为样版的方法会以此工厂的{@linkplain DynamicFactory#setGenerator(AbstractClassGenerator) 类型生成器}生成{@link TemplateInvoker}调用器，
+   * 调用器类型被定义在样版类所在的包中，若生成器未设置或无法定义调用器类型，则退回到{@link JavaMethodEntry}
    *
    * @see JavaVariable
    * @see JavaMethodEntry*/
   public DynamicFactory setDefaultHelper(){
     helper = new JavaHandleHelper() {
+      //无法访问样版类而不能定义调用器的方法保存为空值，此后直接使用反射调用，不再重复生成
+      private final Map<Method, Optional<Constructor<? extends TemplateInvoker>>> invokers = new ConcurrentHashMap<>();
+      private final AtomicInteger invokerCounter = new AtomicInteger();
+
       @Override
       public void makeAccess(Object object) {
         if (object instanceof Executable ext){
@@ -154,6 +175,46 @@ public class DynamicFactory {
         makeAccess(method);
         return new JavaMethodEntry(method);
       }
+
+      @Override
+      public Function<?, ?> genTemplateInvoker(Method method, DataPool pool, FunctionSymbol symbol) {
+        AbstractClassGenerator gen = generator;
+        if (gen == null) return null;
+
+        Optional<Constructor<? extends TemplateInvoker>> cstr = invokers.computeIfAbsent(method, m -> defineInvoker(gen, m));
+        if (!cstr.isPresent()) return null;
+
+        try {
+          return cstr.get().newInstance(pool, symbol);
+        } catch (ReflectiveOperationException e) {
+          throw new IllegalHandleException(e);
+        }
+      }
+
+      /**生成并定义样版方法的调用器类型，无法取得样版类的私有访问权限时返回空值，由动态类回退到反射调用。
+       * 生成的类型无法定义或者不具有预期的构造器则说明生成器存在错误，此时抛出异常而不是静默的回退*/
+      @SuppressWarnings("unchecked")
+      private Optional<Constructor<? extends TemplateInvoker>> defineInvoker(AbstractClassGenerator gen, Method method) {
+        Class<?> template = method.getDeclaringClass();
+        makeAccess(template);
+
+        MethodHandles.Lookup lookup;
+        try {
+          lookup = MethodHandles.privateLookupIn(template, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+          return Optional.empty();
+        }
+
+        String name = template.getName() + "$invoker$" + method.getName() + "$" + invokerCounter.getAndIncrement();
+        try {
+          byte[] bytes = gen.genByteCode(TemplateInvoker.makeClassInfo(method, name));
+          Class<?> invoker = lookup.defineClass(bytes);
+
+          return Optional.of((Constructor<? extends TemplateInvoker>) invoker.getConstructor(DataPool.class, FunctionSymbol.class));
+        } catch (IllegalAccessException | NoSuchMethodException | LinkageError | IllegalHandleException e) {
+          throw new IllegalHandleException("failed to generate invoker for template method " + method, e);
+        }
+      }
     };
 
     return this;
@@ -1,14 +1,22 @@
 package dynamilize;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 
 /**对{@linkplain DynamicClass#visitClass(Class, JavaHandleHelper) 行为样版}中方法描述的入口，在动态类中描述子实例的某一函数行为。
  * <p>方法入口的运行实际上是对样版方法的引用，因此需要确保样版方法所在的类始终有效，方法入口会生成这个方法的入口函数提供给动态对象使用
+ * <p>入口函数优先通过方法的{@link MethodHandle}调用目标方法，参数不多于4个时以{@link Function#invoke0(DynamicObject, FunctionType)}等方法调用不会构造参数数组，
+ * 若无法获得方法句柄（例如方法不可访问），则退回到反射调用
  *
  * @author EBwilson */
 @SuppressWarnings("unchecked")
 public class JavaMethodEntry implements IFunctionEntry{
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
   private final String name;
   private final FunctionType type;
   private final Function<?, ?> defFunc;
@@ -18,15 +26,21 @@ public class JavaMethodEntry implements IFunctionEntry{
    * @param invokeMethod 样版方法*/
   public JavaMethodEntry(Method invokeMethod){
     this.name = invokeMethod.getName();
-    this.type = FunctionType.inst(invokeMethod);
+    this.type = FunctionType.from(invokeMethod);
 
-    defFunc = (self, args) -> {
-      try {
-        return invokeMethod.invoke(self.objSelf(), args.args());
-      } catch (InvocationTargetException|IllegalAccessException e) {
-        throw new RuntimeException(e);
-      }
-    };
+    Function<?, ?> func;
+    try{
+      func = new HandleFunction(LOOKUP.unreflect(invokeMethod), Modifier.isStatic(invokeMethod.getModifiers()));
+    }catch(IllegalAccessException e){
+      func = (self, args) -> {
+        try {
+          return invokeMethod.invoke(self.objSelf(), args.args());
+        } catch (InvocationTargetException|IllegalAccessException ex) {
+          throw new RuntimeException(ex);
+        }
+      };
+    }
+    defFunc = func;
   }
 
   @Override
@@ -43,4 +57,89 @@ public class JavaMethodEntry implements IFunctionEntry{
   public FunctionType getType(){
     return type;
   }
+
+  /**以方法句柄调用目标方法的函数，句柄统一适配为{@code (Object self, Object... args)Object}的形式，静态方法会忽略self参数*/
+  private static class HandleFunction implements Function<Object, Object>{
+    private final MethodHandle spreader;
+    private final MethodHandle[] fixed;
+
+    HandleFunction(MethodHandle handle, boolean isStatic){
+      handle = handle.asFixedArity();
+      int paramCount = handle.type().parameterCount() - (isStatic? 0: 1);
+
+      MethodHandle generic = handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
+      if(isStatic) generic = MethodHandles.dropArguments(generic, 0, Object.class);
+
+      spreader = generic.asSpreader(Object[].class, paramCount);
+      fixed = new MethodHandle[5];
+      if(paramCount < fixed.length) fixed[paramCount] = generic;
+    }
+
+    private static RuntimeException rethrow(Throwable e){
+      if(e instanceof RuntimeException r) return r;
+      if(e instanceof Error err) throw err;
+      return new RuntimeException(e);
+    }
+
+    private MethodHandle fixed(int count){
+      MethodHandle res = fixed[count];
+      if(res == null)
+        throw new IllegalHandleException("argument count " + count + " does not match the method");
+      return res;
+    }
+
+    @Override
+    public Object invoke(DynamicObject<Object> self, ArgumentList args){
+      try{
+        return spreader.invokeExact(self.objSelf(), args.args());
+      }catch(Throwable e){
+        throw rethrow(e);
+      }
+    }
+
+    @Override
+    public Object invoke0(DynamicObject<Object> self, FunctionType type){
+      try{
+        return fixed(0).invokeExact(self.objSelf());
+      }catch(Throwable e){
+        throw rethrow(e);
+      }
+    }
+
+    @Override
+    public Object invoke1(DynamicObject<Object> self, FunctionType type, Object a0){
+      try{
+        return fixed(1).invokeExact(self.objSelf(), a0);
+      }catch(Throwable e){
+        throw rethrow(e);
+      }
+    }
+
+    @Override
+    public Object invoke2(DynamicObject<Object> self, FunctionType type, Object a0, Object a1){
+      try{
+        return fixed(2).invokeExact(self.objSelf(), a0, a1);
+      }catch(Throwable e){
+        throw rethrow(e);
+      }
+    }
+
+    @Override
+    public Object invoke3(DynamicObject<Object> self, FunctionType type, Object a0, Object a1, Object a2){
+      try{
+        return fixed(3).invokeExact(self.objSelf(), a0, a1, a2);
+      }catch(Throwable e){
+        throw rethrow(e);
+      }
+    }
+
+    @Override
+    public Object invoke4(DynamicObject<Object> self, FunctionType type, Object a0, Object a1, Object a2, Object a3){
+      try{
+        return fixed(4).invokeExact(self.objSelf(), a0, a1, a2, a3);
+      }catch(Throwable e){
+        throw rethrow(e);
+      }
+    }
+  }
 }
@@ -2,28 +2,56 @@ package dynamilize;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Field;
 
-/**对java字段的引用对象，基于{@linkplain MethodHandle 方法句柄}的默认内部实现
+/**对java字段的引用对象，基于{@linkplain MethodHandle 方法句柄}与{@linkplain VarHandle 变量句柄}的默认内部实现
+ * <p>对每一种访问类型（{@code boolean}，{@code byte}，{@code short}，{@code int}，{@code long}，{@code float}，{@code double}与{@link Object}）
+ * 和{@linkplain Order 访问顺序}，变量在首次访问时生成一个类型确切的方法句柄并缓存，之后的访问均以{@link MethodHandle#invokeExact(Object...)}调用，
+ * 访问类型与字段类型不同时按{@link MethodHandle#asType(MethodType)}的规则转换，无法转换时抛出异常。普通读写使用字段的读写句柄，其他访问顺序使用字段的变量句柄。
+ * <p>比较并设置与加法等原子操作以字段的变量句柄进行，不加锁
+ * <p>以字段自身的类型普通地读写字段是最常见的情况，这类访问的读句柄在构造变量时即创建，读写句柄均保留字段的volatile语义
  *
  * @author EBwilson */
 public class JavaVariable implements IVariable{
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final Class<?>[] KINDS = {
+      boolean.class, byte.class, short.class, int.class, long.class, float.class, double.class, Object.class
+  };
+  private static final int BOOLEAN = 0, BYTE = 1, SHORT = 2, INT = 3, LONG = 4, FLOAT = 5, DOUBLE = 6, OBJECT = 7;
+
   private final Field field;
+  private final Class<?> owner;
+  private final Class<?> type;
 
-  private final MethodHandle getter;
-  private final MethodHandle setter;
+  /**字段自身的访问类型，{@code char}类型的字段为-1*/
+  private final int kind;
 
-  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private VarHandle handle;
+
+  /**以{@code 访问顺序 * 8 + 访问类型}为索引缓存的读写句柄*/
+  private final MethodHandle[] getters = new MethodHandle[KINDS.length*3];
+  private final MethodHandle[] setters = new MethodHandle[KINDS.length*3];
+  /**以访问类型为索引缓存的比较并设置句柄，其后两位为{@code int}与{@code long}的加法句柄*/
+  private final MethodHandle[] atomics = new MethodHandle[KINDS.length + 2];
 
   public JavaVariable(Field field){
     this.field = field;
+    this.owner = field.getDeclaringClass();
+    this.type = field.getType();
 
-    try {
-      getter = LOOKUP.unreflectGetter(field);
-      setter = LOOKUP.unreflectSetter(field);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+    int k = type.isPrimitive()? -1: OBJECT;
+    for (int i = 0; i < OBJECT; i++) {
+      if (KINDS[i] == type) k = i;
     }
+    this.kind = k;
+
+    //字段的读句柄在此创建，以在首次访问前完成访问检查
+    MethodHandle getter = unreflect(false);
+    if (k >= 0) getters[k] = adapt(getter, MethodType.methodType(KINDS[k], Object.class));
   }
 
   @Override
@@ -31,153 +59,416 @@ public class JavaVariable implements IVariable{
     return field.getName();
   }
 
+  /**获取此变量引用的字段*/
+  public Field field(){
+    return field;
+  }
+
   @Override
   public void init(DynamicObject<?> object) { /*no action*/ }
 
-  @SuppressWarnings("unchecked")
-  @Override
-  public <T> T get(DynamicObject<?> obj){
-    try{
-      return (T) getter.invoke(obj);
-    }catch(ClassCastException e){
-      throw e;
-    }catch(Throwable e){
-      throw new IllegalHandleException(e);
+  private VarHandle varHandle(Object access){
+    if (handle == null){
+      try {
+        handle = MethodHandles.privateLookupIn(owner, LOOKUP).unreflectVarHandle(field);
+      } catch (IllegalAccessException|SecurityException e) {
+        try {
+          handle = LOOKUP.unreflectVarHandle(field);
+        } catch (IllegalAccessException ex) {
+          throw new IllegalHandleException("field " + field + " cannot be accessed with " + access, ex);
+        }
+      }
     }
+    return handle;
   }
 
-  @Override
-  public void set(DynamicObject<?> obj, Object value){
-    try{
-      setter.invoke(obj, value);
-    }catch(Throwable e){
-      throw new IllegalHandleException(e);
+  private MethodHandle getter(int kind, Order order){
+    int index = order.ordinal()*KINDS.length + kind;
+    MethodHandle res = getters[index];
+    if (res == null){
+      MethodHandle base = order == Order.PLAIN? unreflect(false): varHandle(order).toMethodHandle(order.getMode);
+
+      getters[index] = res = adapt(base, MethodType.methodType(KINDS[kind], Object.class));
     }
+    return res;
   }
 
-  @Override
-  public boolean get(DynamicObject<?> obj, boolean def) {
+  private MethodHandle setter(int kind, Order order){
+    int index = order.ordinal()*KINDS.length + kind;
+    MethodHandle res = setters[index];
+    if (res == null){
+      MethodHandle base = order == Order.PLAIN? unreflect(true): varHandle(order).toMethodHandle(order.setMode);
+
+      setters[index] = res = adapt(base, MethodType.methodType(void.class, Object.class, KINDS[kind]));
+    }
+    return res;
+  }
+
+  private MethodHandle atomic(int index, VarHandle.AccessMode mode, MethodType type){
+    MethodHandle res = atomics[index];
+    if (res == null){
+      atomics[index] = res = adapt(varHandle(mode).toMethodHandle(mode), type);
+    }
+    return res;
+  }
+
+  private MethodHandle compareAndSet(int kind){
+    return atomic(kind, VarHandle.AccessMode.COMPARE_AND_SET, MethodType.methodType(boolean.class, Object.class, KINDS[kind], KINDS[kind]));
+  }
+
+  private MethodHandle unreflect(boolean setter){
     try {
-      return field.getBoolean(obj);
+      return setter? LOOKUP.unreflectSetter(field): LOOKUP.unreflectGetter(field);
     } catch (IllegalAccessException e) {
       throw new IllegalHandleException(e);
     }
   }
 
-  @Override
-  public byte get(DynamicObject<?> obj, byte def) {
+  private MethodHandle adapt(MethodHandle base, MethodType type){
     try {
-      return field.getByte(obj);
-    } catch (IllegalAccessException e) {
-      throw new IllegalHandleException(e);
+      return base.asType(type);
+    } catch (WrongMethodTypeException e) {
+      throw new IllegalHandleException("field " + field + " cannot be accessed as " + type, e);
     }
   }
 
+  private Object self(DynamicObject<?> obj){
+    Object self = obj.objSelf();
+    if (!owner.isInstance(self))
+      throw new ClassCastException("object " + obj + " does not have the field " + field);
+    return self;
+  }
+
+  private static RuntimeException rethrow(Throwable e){
+    if (e instanceof RuntimeException r) return r;
+    if (e instanceof Error err) throw err;
+    return new IllegalHandleException(e);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(DynamicObject<?> obj){
+    return get(obj, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, Object value){
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public boolean get(DynamicObject<?> obj, boolean def) {
+    return get(obj, def, Order.PLAIN);
+  }
+
+  @Override
+  public byte get(DynamicObject<?> obj, byte def) {
+    return get(obj, def, Order.PLAIN);
+  }
+
   @Override
   public short get(DynamicObject<?> obj, short def) {
-    try {
-      return field.getShort(obj);
-    } catch (IllegalAccessException e) {
-      throw new IllegalHandleException(e);
-    }
+    return get(obj, def, Order.PLAIN);
   }
 
   @Override
   public int get(DynamicObject<?> obj, int def) {
+    return get(obj, def, Order.PLAIN);
+  }
+
+  @Override
+  public long get(DynamicObject<?> obj, long def) {
+    return get(obj, def, Order.PLAIN);
+  }
+
+  @Override
+  public float get(DynamicObject<?> obj, float def) {
+    return get(obj, def, Order.PLAIN);
+  }
+
+  @Override
+  public double get(DynamicObject<?> obj, double def) {
+    return get(obj, def, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, boolean value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, byte value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, short value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, int value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, long value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, float value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, double value) {
+    set(obj, value, Order.PLAIN);
+  }
+
+  //ordered accessors
+
+  @SuppressWarnings("unchecked")
+  public <T> T get(DynamicObject<?> obj, Order order){
     try {
-      return field.getInt(obj);
-    } catch (IllegalAccessException e) {
-      throw new IllegalHandleException(e);
+      return (T) getter(OBJECT, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
+  public void set(DynamicObject<?> obj, Object value, Order order){
+    try {
+      setter(OBJECT, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public boolean get(DynamicObject<?> obj, boolean def, Order order) {
+    try {
+      return (boolean) getter(BOOLEAN, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public byte get(DynamicObject<?> obj, byte def, Order order) {
+    try {
+      return (byte) getter(BYTE, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public short get(DynamicObject<?> obj, short def, Order order) {
+    try {
+      return (short) getter(SHORT, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public int get(DynamicObject<?> obj, int def, Order order) {
+    try {
+      return (int) getter(INT, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public long get(DynamicObject<?> obj, long def, Order order) {
+    try {
+      return (long) getter(LONG, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public float get(DynamicObject<?> obj, float def, Order order) {
+    try {
+      return (float) getter(FLOAT, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public double get(DynamicObject<?> obj, double def, Order order) {
+    try {
+      return (double) getter(DOUBLE, order).invokeExact(self(obj));
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, boolean value, Order order) {
+    try {
+      setter(BOOLEAN, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, byte value, Order order) {
+    try {
+      setter(BYTE, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, short value, Order order) {
+    try {
+      setter(SHORT, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, int value, Order order) {
+    try {
+      setter(INT, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, long value, Order order) {
+    try {
+      setter(LONG, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, float value, Order order) {
+    try {
+      setter(FLOAT, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public void set(DynamicObject<?> obj, double value, Order order) {
+    try {
+      setter(DOUBLE, order).invokeExact(self(obj), value);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  //atomic operations
+
   @Override
-  public long get(DynamicObject<?> obj, long def) {
+  public boolean compareAndSet(DynamicObject<?> obj, Object expect, Object update) {
     try {
-      return field.getLong(obj);
-    } catch (IllegalAccessException e) {
-      throw new IllegalHandleException(e);
+      return (boolean) compareAndSet(OBJECT).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public float get(DynamicObject<?> obj, float def) {
+  public boolean compareAndSet(DynamicObject<?> obj, boolean expect, boolean update) {
     try {
-      return field.getFloat(obj);
-    } catch (IllegalAccessException e) {
-      throw new IllegalHandleException(e);
+      return (boolean) compareAndSet(BOOLEAN).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public double get(DynamicObject<?> obj, double def) {
+  public boolean compareAndSet(DynamicObject<?> obj, byte expect, byte update) {
     try {
-      return field.getDouble(obj);
-    } catch (IllegalAccessException e) {
-      throw new IllegalHandleException(e);
+      return (boolean) compareAndSet(BYTE).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, boolean value) {
+  public boolean compareAndSet(DynamicObject<?> obj, short expect, short update) {
     try {
-      field.setBoolean(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (boolean) compareAndSet(SHORT).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, byte value) {
+  public boolean compareAndSet(DynamicObject<?> obj, int expect, int update) {
     try {
-      field.setByte(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (boolean) compareAndSet(INT).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, short value) {
+  public boolean compareAndSet(DynamicObject<?> obj, long expect, long update) {
     try {
-      field.setShort(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (boolean) compareAndSet(LONG).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, int value) {
+  public boolean compareAndSet(DynamicObject<?> obj, float expect, float update) {
     try {
-      field.setInt(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (boolean) compareAndSet(FLOAT).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, long value) {
+  public boolean compareAndSet(DynamicObject<?> obj, double expect, double update) {
     try {
-      field.setLong(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (boolean) compareAndSet(DOUBLE).invokeExact(self(obj), expect, update);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, float value) {
+  public int getAndAdd(DynamicObject<?> obj, int delta) {
+    if (kind != INT) return IVariable.super.getAndAdd(obj, delta);
+
     try {
-      field.setFloat(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (int) atomic(KINDS.length, VarHandle.AccessMode.GET_AND_ADD, MethodType.methodType(int.class, Object.class, int.class))
+          .invokeExact(self(obj), delta);
+    } catch (Throwable e) {
+      throw rethrow(e);
     }
   }
 
   @Override
-  public void set(DynamicObject<?> obj, double value) {
+  public long getAndAdd(DynamicObject<?> obj, long delta) {
+    if (kind != LONG) return IVariable.super.getAndAdd(obj, delta);
+
     try {
-      field.setDouble(obj, value);
-    } catch (IllegalAccessException e) {
-      throw new RuntimeException(e);
+      return (long) atomic(KINDS.length + 1, VarHandle.AccessMode.GET_AND_ADD, MethodType.methodType(long.class, Object.class, long.class))
+          .invokeExact(self(obj), delta);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  /**字段的访问顺序，对应{@link VarHandle}的访问模式*/
+  public enum Order{
+    /**普通读写，即{@link VarHandle#get(Object...)}与{@link VarHandle#set(Object...)}*/
+    PLAIN(VarHandle.AccessMode.GET, VarHandle.AccessMode.SET),
+    /**volatile读写，即{@link VarHandle#getVolatile(Object...)}与{@link VarHandle#setVolatile(Object...)}*/
+    VOLATILE(VarHandle.AccessMode.GET_VOLATILE, VarHandle.AccessMode.SET_VOLATILE),
+    /**获取-释放语义的读写，即{@link VarHandle#getAcquire(Object...)}与{@link VarHandle#setRelease(Object...)}*/
+    ACQUIRE_RELEASE(VarHandle.AccessMode.GET_ACQUIRE, VarHandle.AccessMode.SET_RELEASE);
+
+    final VarHandle.AccessMode getMode, setMode;
+
+    Order(VarHandle.AccessMode getMode, VarHandle.AccessMode setMode){
+      this.getMode = getMode;
+      this.setMode = setMode;
     }
   }
 }
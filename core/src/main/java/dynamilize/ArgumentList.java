@@ -1,45 +1,59 @@
 package dynamilize;
 
 import java.util.Arrays;
-import java.util.Stack;
 
 /**实参列表的封装对象，记录了一份实际参数列表，提供了一个泛型获取参数的方法，用于减少函数引用时所需的冗余类型转换。
  * <p>参数表对象为可复用对象，引用完毕后请使用{@link ArgumentList#recycle()}回收对象以减少堆内存更新频率
+ * <p>通过{@link ArgumentList#prepare(FunctionType)}获取的参数表可以使用{@link ArgumentList#setInt(int, int)}等方法在基本类型槽位中保存参数，
+ * 以{@link ArgumentList#getInt(int)}等方法读取这些参数不会产生装箱，仅在以{@link ArgumentList#get(int)}或{@link ArgumentList#args()}访问时才会装箱
+ * <p>基本类型槽位以一个long的位掩码记录，只有前{@value ArgumentList#MAX_PRIMITIVE_SLOTS}个参数可以保存在基本类型槽位中，之后的基本类型参数在设置时即被装箱
+ * <p>参数表实例与参数数组保存在线程独立的{@linkplain RecyclePool 回收池}中，获取与回收都不需要同步
  *
  * @author EBwilson */
 public class ArgumentList{
+  /**每个线程保存的参数表实例与每种长度的参数数组的数量上限*/
   public static int MAX_INSTANCE_STACK = 2048;
 
-  public static final Stack<Object[]>[] ARG_LEN_MAP = new Stack[64];
   public static final Object[] EMP_ARG = new Object[0];
 
+  /**可以保存在基本类型槽位中的参数数量，即基本类型槽位掩码的位数*/
+  public static final int MAX_PRIMITIVE_SLOTS = Long.SIZE;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static final RecyclePool<Object[]>[] ARG_LEN_MAP = new RecyclePool[64];
+
   static {
     for(int i = 1; i < ARG_LEN_MAP.length; i++){
-      ARG_LEN_MAP[i] = new Stack<>();
+      int len = i;
+      ARG_LEN_MAP[i] = new RecyclePool<>(() -> new Object[len], () -> MAX_INSTANCE_STACK);
     }
   }
 
-  private static final Stack<ArgumentList> INSTANCES = new Stack<>();
+  private static final RecyclePool<ArgumentList> INSTANCES = new RecyclePool<>(ArgumentList::new, () -> MAX_INSTANCE_STACK);
+
+  private static final long[] EMP_PRIMITIVES = new long[0];
 
   private Object[] args;
   private FunctionType type;
 
+  private long[] primitives = EMP_PRIMITIVES;
+  private long primitiveMask;
+  private boolean ownArgs;
+
   /**私有构造器，不允许外部直接使用*/
   private ArgumentList(){}
 
-  public static synchronized Object[] getList(int len){
+  public static Object[] getList(int len){
     if(len == 0) return EMP_ARG;
+    if(len >= ARG_LEN_MAP.length) return new Object[len];
 
-    Stack<Object[]> stack = ARG_LEN_MAP[len];
-    return stack.isEmpty()? new Object[len]: stack.pop();
+    return ARG_LEN_MAP[len].obtain();
   }
 
   public static void recycleList(Object[] list){
-    if(list.length == 0) return;
+    if(list.length == 0 || list.length >= ARG_LEN_MAP.length) return;
 
-    Stack<Object[]> stack = ARG_LEN_MAP[list.length];
-    if(stack.size() > MAX_INSTANCE_STACK) return;
-    stack.push(list);
+    ARG_LEN_MAP[list.length].free(list);
   }
 
   /**使用一组实参列表获取一个封装参数列表，优先从实例堆栈中弹出，若堆栈中没有实例才会构造一个新的
@@ -47,29 +61,46 @@ public class ArgumentList{
    *
    * @param args 实参列表
    * @return 封装参数对象*/
-  public static synchronized ArgumentList as(Object... args){
-    ArgumentList res = INSTANCES.isEmpty()? new ArgumentList(): INSTANCES.pop();
+  public static ArgumentList as(Object... args){
+    ArgumentList res = INSTANCES.obtain();
     res.args = args;
     res.type = FunctionType.inst(args);
 
     return res;
   }
 
-  public static synchronized ArgumentList asWithType(FunctionType type, Object... args){
-    ArgumentList res = INSTANCES.isEmpty()? new ArgumentList(): INSTANCES.pop();
+  public static ArgumentList asWithType(FunctionType type, Object... args){
+    ArgumentList res = INSTANCES.obtain();
     res.args = args;
     res.type = type;
 
     return res;
   }
 
+  /**获取一个以给定的形式参数类型分配了参数槽位的参数列表，参数通过{@link ArgumentList#set(int, Object)}或者{@link ArgumentList#setInt(int, int)}等方法设置，
+   * 基本类型的参数保存在基本类型槽位中，不会被装箱。参数数组由参数列表持有，在回收参数列表时一并回收
+   *
+   * @param type 形式参数类型，基本类型参数的装箱以此类型为准
+   * @return 封装参数对象*/
+  public static ArgumentList prepare(FunctionType type){
+    ArgumentList res = INSTANCES.obtain();
+    res.args = getList(type.getTypes().length);
+    res.type = type;
+    res.ownArgs = true;
+
+    return res;
+  }
+
   /**回收实例，使实例重新入栈，若堆栈已到达最大容量，则不会继续插入实例堆栈中*/
   public void recycle(){
+    if(ownArgs) recycleList(args);
+
     args = null;
     type = null;
-    if(INSTANCES.size() >= MAX_INSTANCE_STACK) return;
+    primitiveMask = 0;
+    ownArgs = false;
 
-    INSTANCES.add(this);
+    INSTANCES.free(this);
   }
 
   /**获取给定索引处的实参值，类型根据引用推断，若类型不可用会抛出类型转换异常
@@ -80,16 +111,144 @@ public class ArgumentList{
    * @throws ClassCastException 若接受者所需的类型与参数类型不可分配*/
   @SuppressWarnings("unchecked")
   public <T> T get(int index){
+    if(isPrimitive(index)) boxSlot(index);
     return (T) args[index];
   }
 
-  /**获取实参列表的数组
+  /**获取给定索引处的int参数，若参数保存在基本类型槽位中则不会发生拆箱
+   *
+   * @param index 参数在列表中的索引位置
+   * @return 实参的值*/
+  public int getInt(int index){
+    if(isPrimitive(index)) return (int) primitiveAsLong(index);
+    Object o = args[index];
+    return o instanceof Character c? c: ((Number) o).intValue();
+  }
+
+  /**@see ArgumentList#getInt(int)*/
+  public long getLong(int index){
+    if(isPrimitive(index)) return primitiveAsLong(index);
+    Object o = args[index];
+    return o instanceof Character c? c: ((Number) o).longValue();
+  }
+
+  /**@see ArgumentList#getInt(int)*/
+  public float getFloat(int index){
+    if(isPrimitive(index)) return (float) primitiveAsDouble(index);
+    return ((Number) args[index]).floatValue();
+  }
+
+  /**@see ArgumentList#getInt(int)*/
+  public double getDouble(int index){
+    if(isPrimitive(index)) return primitiveAsDouble(index);
+    return ((Number) args[index]).doubleValue();
+  }
+
+  /**@see ArgumentList#getInt(int)*/
+  public boolean getBoolean(int index){
+    if(isPrimitive(index)) return primitives[index] != 0;
+    return (Boolean) args[index];
+  }
+
+  /**设置给定索引处的参数，仅对{@link ArgumentList#prepare(FunctionType)}获取的参数列表有效*/
+  public void set(int index, Object value){
+    if(index < MAX_PRIMITIVE_SLOTS) primitiveMask &= ~(1L << index);
+    args[index] = value;
+  }
+
+  /**在基本类型槽位中设置给定索引处的int参数，同样用于byte，short和char类型的参数，仅对{@link ArgumentList#prepare(FunctionType)}获取的参数列表有效*/
+  public void setInt(int index, int value){
+    setPrimitive(index, value);
+  }
+
+  /**@see ArgumentList#setInt(int, int)*/
+  public void setLong(int index, long value){
+    setPrimitive(index, value);
+  }
+
+  /**@see ArgumentList#setInt(int, int)*/
+  public void setFloat(int index, float value){
+    setPrimitive(index, Float.floatToRawIntBits(value));
+  }
+
+  /**@see ArgumentList#setInt(int, int)*/
+  public void setDouble(int index, double value){
+    setPrimitive(index, Double.doubleToRawLongBits(value));
+  }
+
+  /**@see ArgumentList#setInt(int, int)*/
+  public void setBoolean(int index, boolean value){
+    setPrimitive(index, value? 1: 0);
+  }
+
+  /**获取实参列表的数组，保存在基本类型槽位中的参数会在此时被装箱
    *
    * @return 实参构成的数组*/
   public Object[] args(){
+    if(primitiveMask != 0){
+      for(int i = 0, n = Math.min(args.length, MAX_PRIMITIVE_SLOTS); i < n; i++){
+        if(isPrimitive(i)) boxSlot(i);
+      }
+    }
     return args;
   }
 
+  /**位移的距离只取低6位，超出掩码位数的索引必须排除，否则会与前面的参数混淆*/
+  private boolean isPrimitive(int index){
+    return index < MAX_PRIMITIVE_SLOTS && (primitiveMask & (1L << index)) != 0;
+  }
+
+  private void setPrimitive(int index, long bits){
+    if(index >= MAX_PRIMITIVE_SLOTS){
+      args[index] = box(index, bits);
+      return;
+    }
+
+    primitiveSlots()[index] = bits;
+    primitiveMask |= 1L << index;
+  }
+
+  private long[] primitiveSlots(){
+    if(primitives.length < args.length) primitives = new long[Math.max(args.length, 4)];
+    return primitives;
+  }
+
+  private long primitiveAsLong(int index){
+    Class<?> t = type.getTypes()[index];
+    if(t == float.class) return (long) Float.intBitsToFloat((int) primitives[index]);
+    if(t == double.class) return (long) Double.longBitsToDouble(primitives[index]);
+    return primitives[index];
+  }
+
+  private double primitiveAsDouble(int index){
+    Class<?> t = type.getTypes()[index];
+    if(t == float.class) return Float.intBitsToFloat((int) primitives[index]);
+    if(t == double.class) return Double.longBitsToDouble(primitives[index]);
+    return primitives[index];
+  }
+
+  private void boxSlot(int index){
+    args[index] = box(index, primitives[index]);
+    primitiveMask &= ~(1L << index);
+  }
+
+  private Object box(int index, long v){
+    Class<?> t = type.getTypes()[index];
+
+    Object res;
+    if(t == int.class) res = (int) v;
+    else if(t == long.class) res = v;
+    else if(t == float.class) res = Float.intBitsToFloat((int) v);
+    else if(t == double.class) res = Double.longBitsToDouble(v);
+    else if(t == boolean.class) res = v != 0;
+    else if(t == byte.class) res = (byte) v;
+    else if(t == short.class) res = (short) v;
+    else if(t == char.class) res = (char) v;
+    else throw new IllegalHandleException("parameter " + index + " with type " + t + " cannot hold a primitive value");
+
+    return res;
+  }
+
   /**获取形式参数类型封装对象
    *
    * @return 该实参列表的形式参数类型*/
@@ -99,7 +258,7 @@ public class ArgumentList{
 
   @Override
   public String toString(){
-    String arg = Arrays.toString(args);
+    String arg = Arrays.toString(args());
     return "(" + arg.substring(1, arg.length() - 1) + ")";
   }
 }
@@ -0,0 +1,120 @@
+package dynamilize;
+
+/**绑定到某一动态对象的函数句柄，由{@link DynamicObject#bind(FunctionSymbol)}获取。
+ * <p>句柄缓存了已选择的函数，每次调用前只比较对象当前持有的{@linkplain DynamicObject#dataPool() 数据池}与其{@linkplain DataPool#functionStamp() 函数版本戳}，
+ * 二者均未改变时直接调用缓存的函数，对象或其动态类型的函数发生变更后句柄会在下一次调用时重新选择函数，因此句柄可以被长期持有并反复调用，且总是能看到函数的热替换。
+ * <p>绑定不会使对象取得独占的池，对象此后首次设置自身的函数时会更换持有的池，句柄据此发现变更
+ * <p>句柄可以在多个线程间共享，缓存的函数与版本戳总是被一同发布
+ *
+ * @author EBwilson */
+@SuppressWarnings("unchecked")
+public final class BoundFunction<S, R>{
+  private final DynamicObject<S> self;
+  private final DataPool pool;
+  private final FunctionSymbol symbol;
+
+  private Link link;
+
+  /**创建函数句柄，数据池为null时句柄无法检查版本，每次调用都会重新选择函数
+   *
+   * @param self 函数绑定的对象
+   * @param pool 对象绑定时的数据池，对象未给出{@linkplain DynamicObject#dataPool() 当前的池}时以此池检查版本
+   * @param symbol 绑定的函数符号*/
+  BoundFunction(DynamicObject<S> self, DataPool pool, FunctionSymbol symbol){
+    this.self = self;
+    this.pool = pool;
+    this.symbol = symbol;
+  }
+
+  /**获取此句柄绑定的对象*/
+  public DynamicObject<S> self(){
+    return self;
+  }
+
+  /**获取此句柄绑定的函数符号*/
+  public FunctionSymbol symbol(){
+    return symbol;
+  }
+
+  /**获取当前有效的函数，若函数自上次选择后发生了变更则重新选择
+   *
+   * @return 当前有效的函数
+   * @throws IllegalHandleException 若对象不具有此函数*/
+  public Function<S, R> function(){
+    if(pool == null) return select();
+
+    DataPool curr = self.dataPool();
+    if(curr == null) curr = pool;
+
+    int stamp = curr.functionStamp();
+    Link l = link;
+    if(l == null || l.pool != curr || l.stamp != stamp){
+      //先读取版本戳再选择函数，选择期间发生的变更会在下一次调用时被发现
+      l = link = new Link(curr, stamp, select());
+    }
+
+    return (Function<S, R>) l.function;
+  }
+
+  private Function<S, R> select(){
+    IFunctionEntry entry = self.getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.getFunction();
+  }
+
+  public R invoke(ArgumentList args){
+    return function().invoke(self, args);
+  }
+
+  public R invoke(Object... args){
+    ArgumentList lis = ArgumentList.asWithType(symbol.type(), args);
+    R r = function().invoke(self, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**以固定数量的实参调用函数，不会构造实参数组
+   * @see DynamicObject#invokeFunc0(FunctionSymbol)*/
+  public R invoke0(){
+    return function().invoke0(self, symbol.type());
+  }
+
+  /**@see BoundFunction#invoke0()*/
+  public R invoke1(Object a0){
+    return function().invoke1(self, symbol.type(), a0);
+  }
+
+  /**@see BoundFunction#invoke0()*/
+  public R invoke2(Object a0, Object a1){
+    return function().invoke2(self, symbol.type(), a0, a1);
+  }
+
+  /**@see BoundFunction#invoke0()*/
+  public R invoke3(Object a0, Object a1, Object a2){
+    return function().invoke3(self, symbol.type(), a0, a1, a2);
+  }
+
+  /**@see BoundFunction#invoke0()*/
+  public R invoke4(Object a0, Object a1, Object a2, Object a3){
+    return function().invoke4(self, symbol.type(), a0, a1, a2, a3);
+  }
+
+  @Override
+  public String toString(){
+    return "bound " + symbol + " of " + self;
+  }
+
+  private static class Link{
+    final DataPool pool;
+    final int stamp;
+    final Function<?, ?> function;
+
+    Link(DataPool pool, int stamp, Function<?, ?> function){
+      this.pool = pool;
+      this.stamp = stamp;
+      this.function = function;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package dynamilize;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**{@linkplain DynamicClass 动态类型}的编辑器，由{@link DynamicClass#update(java.util.function.Consumer)}提供，暂存对类型函数与变量的变更。
+ * <p>编辑器中设置的函数与变量在编辑结束前对类型没有任何影响，编辑结束后所有变更在同一次写入中发布，编辑器随即失效，不可在编辑之外保存并使用编辑器。
+ * <p>编辑器不是线程安全的，应只在编辑函数所在的线程中使用
+ *
+ * @author EBwilson */
+public class ClassEditor{
+  private final DataPool pool;
+
+  private final Map<String, Map<FunctionType, IFunctionEntry>> functions = new LinkedHashMap<>();
+  private final ArrayList<IVariable> variables = new ArrayList<>();
+
+  private boolean published;
+
+  ClassEditor(DataPool pool){
+    this.pool = pool;
+  }
+
+  /**暂存一个函数，语义同{@link DynamicClass#setFunction(String, Function, Class[])}，同一编辑中对相同名称与类型的函数的多次设置以最后一次为准*/
+  public <S, R> ClassEditor setFunction(String name, Function<S, R> func, Class<?>... argTypes){
+    FunctionType type = FunctionType.intern(argTypes);
+    return put(name, type, new FunctionEntry<>(name, func, type));
+  }
+
+  /**暂存一个函数，语义同{@link DynamicClass#setFunction(String, Function.SuperGetFunction, Class[])}*/
+  public <S, R> ClassEditor setFunction(String name, Function.SuperGetFunction<S, R> func, Class<?>... argTypes){
+    FunctionType type = FunctionType.intern(argTypes);
+    return put(name, type, new FunctionEntry<>(name, func, type, pool));
+  }
+
+  /**同{@link ClassEditor#setFunction(String, Function, Class[])}，只是匿名函数无返回值*/
+  public <S> ClassEditor setFunction(String name, Function.NonRetFunction<S> func, Class<?>... argTypes){
+    return this.<S, Object>setFunction(name, (s, a) -> {
+      func.invoke(s, a);
+      return null;
+    }, argTypes);
+  }
+
+  /**同{@link ClassEditor#setFunction(String, Function.SuperGetFunction, Class[])}，只是匿名函数无返回值*/
+  public <S> ClassEditor setFunction(String name, Function.NonRetSuperGetFunc<S> func, Class<?>... argTypes){
+    return this.<S, Object>setFunction(name, (s, sup, a) -> {
+      func.invoke(s, sup, a);
+      return null;
+    }, argTypes);
+  }
+
+  /**暂存一个常量模式的变量，语义同{@link DynamicClass#setVariable(String, Object)}，类型中已存在的同名变量保持不变*/
+  public ClassEditor setVariable(String name, Object value){
+    return put(new FieldVariable(name, Object.class, Initializer.constant(value)));
+  }
+
+  /**暂存一个函数模式的变量，语义同{@link DynamicClass#setVariable(String, Initializer.Producer)}，类型中已存在的同名变量保持不变*/
+  public ClassEditor setVariable(String name, Initializer.Producer<?> prov){
+    return put(new FieldVariable(name, Object.class, new Initializer<>(prov)));
+  }
+
+  private ClassEditor put(String name, FunctionType type, IFunctionEntry entry){
+    checkPublished();
+    functions.computeIfAbsent(name, n -> new HashMap<>()).put(type, entry);
+    return this;
+  }
+
+  private ClassEditor put(IVariable var){
+    checkPublished();
+    variables.add(var);
+    return this;
+  }
+
+  /**将暂存的变更发布到类型的池中，由{@link DynamicClass#update(java.util.function.Consumer)}在编辑结束后调用*/
+  void publish(){
+    checkPublished();
+    published = true;
+
+    pool.publish(functions, variables);
+  }
+
+  private void checkPublished(){
+    if(published)
+      throw new IllegalHandleException("class editor can only be used during the update");
+  }
+}
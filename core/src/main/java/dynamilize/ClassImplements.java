@@ -29,7 +29,7 @@ class ClassImplements<T>{
   public boolean equals(Object o){
     if(this == o) return true;
     if(!(o instanceof ClassImplements<?> that)) return false;
-    return base.equals(that.base) && interfaces.length == that.interfaces.length && (aspects != null && that.aspects != null && aspects.length == that.aspects.length) && hash == that.hash;
+    return hash == that.hash && base.equals(that.base) && Arrays.equals(interfaces, that.interfaces) && Arrays.equals(aspects, that.aspects);
   }
 
   @Override
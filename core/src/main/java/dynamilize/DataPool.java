@@ -1,26 +1,63 @@
 package dynamilize;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**用于存储和处置动态对象数据的信息容器，不应从外部访问，每一个动态对象都会绑定一个数据池存放对象的变量/函数等信息。
  * <p>对于一个{@linkplain DynamicClass 动态类}的实例，实例的数据池一定会有一个父池，这个池以动态类的直接超类描述的信息进行初始化。
  * <p>访问池信息无论如何都是以最近原则，即若本池内没有找到数据，则以距离实例的池最近的具有此变量/函数的父池的数据为准
+ * <p>池是线程安全的：池中的函数与变量表为不可变的快照，写入时在池的锁内复制变更后的快照并通过volatile引用发布，
+ * 因此读取不需要任何锁也不会分配对象，同一个池的写入互相串行，运行中对类型进行热修补不会阻塞正在调用函数的线程
  *
  * @author EBwilson*/
 @SuppressWarnings({"unchecked"})
 public class DataPool{
   private static final String init = "<init>";
 
-  private static final List<IFunctionEntry> TMP_LIS = new ArrayList<>();
   public static final IFunctionEntry[] EMP_METS = new IFunctionEntry[0];
-
-  private static final List<IVariable> TMP_VAR = new ArrayList<>();
   public static final IVariable[] EMP_VARS = new IVariable[0];
 
+  private static final IFunctionEntry ABSENT = new IFunctionEntry(){
+    @Override
+    public String getName(){
+      return null;
+    }
+
+    @Override
+    public <S, R> Function<S, R> getFunction(){
+      return null;
+    }
+
+    @Override
+    public FunctionType getType(){
+      return null;
+    }
+  };
+
   private final DataPool superPool;
 
-  private final Map<String, Map<FunctionType, IFunctionEntry>> funcPool = new HashMap<>();
-  private final Map<String, IVariable> varPool = new HashMap<>();
+  //池中没有函数/变量时不分配映射表，大部分池（例如未设置自身函数的对象的池）始终为空。
+  //映射表发布后不再被修改，写入总是以复制的新表替换引用
+  private volatile Map<String, Map<FunctionType, IFunctionEntry>> funcPool = Collections.emptyMap();
+  private volatile Map<String, IVariable> varPool = Collections.emptyMap();
+
+  /**类层次结构共享的版本戳，层次中任何一个被其他池继承的池发生函数变更都会使其递增*/
+  private final Version version;
+  /**此池是否作为其他池的父池，仅有被继承的池的函数变更需要使整个层次结构的缓存过期*/
+  private volatile boolean inherited;
+  /**此池自身的函数变更计数*/
+  private volatile int modCount;
+
+  //缓存均与创建时的版本戳一同发布，版本戳变化后由读取的线程替换，并发填充缓存的竞争只会导致重复的查找
+  private volatile ResolveCache resolveCache;
+  private volatile SymbolCache<IFunctionEntry> symbolFunctions;
+  private volatile SymbolCache<IVariable> symbolVariables;
+
+  /**此池自身的变量变更计数*/
+  private volatile int varModCount;
+  private volatile InitVariables initVariables;
 
   /**创建一个池对象并绑定到父池，父池可为null，这种情况下此池应当为被委托类型的方法/字段引用。
    * <p><strong>通常来说你不应该在{@link DynamicMaker}之外的任何地方实例化此类型</strong>
@@ -28,20 +65,17 @@ public class DataPool{
    * @param superPool 此池的父池*/
   public DataPool(DataPool superPool){
     this.superPool = superPool;
+
+    if(superPool != null){
+      if(!superPool.inherited) superPool.inherited = true;
+      version = superPool.version;
+    }
+    else version = new Version();
   }
 
   public void init(DynamicObject<?> self, Object... args){
-    DynamicClass curr = self.getDyClass();
-    HashSet<String> varSetted = new HashSet<>();
-
-    while(curr != null){
-      for (IVariable var : curr.getVariables()) {
-        if (varSetted.add(var.name())){
-          var.init(self);
-        }
-      }
-
-      curr = curr.superDyClass();
+    for (IVariable var : self.getDyClass().initVariables(self instanceof FieldVariable.Holder)) {
+      var.init(self);
     }
 
     ArgumentList lis = ArgumentList.as(args);
@@ -79,19 +113,135 @@ public class DataPool{
    * @param argsType 函数的参数类型列表
    * @param function 描述此函数行为的匿名函数*/
   public void setFunction(String name, Function<?, ?> function, Class<?>... argsType){
-    FunctionType type = FunctionType.inst(argsType);
-    funcPool.computeIfAbsent(name, n -> new HashMap<>())
-        .put(type, new FunctionEntry<>(name, function, type));
+    FunctionType type = FunctionType.intern(argsType);
+    putFunction(name, type, new FunctionEntry<>(name, function, type));
   }
 
   public <R, S> void setFunction(String name, Function.SuperGetFunction<S,R> func, Class<?>[] argTypes){
-    FunctionType type = FunctionType.inst(argTypes);
-    funcPool.computeIfAbsent(name, n -> new HashMap<>())
-        .put(type, new FunctionEntry<>(name, func, type, this));
+    FunctionType type = FunctionType.intern(argTypes);
+    putFunction(name, type, new FunctionEntry<>(name, func, type, this));
   }
 
   public void setFunction(IFunctionEntry functionEntry){
-    funcPool.computeIfAbsent(functionEntry.getName(), e -> new HashMap<>()).put(functionEntry.getType(), functionEntry);
+    putFunction(functionEntry.getName(), FunctionType.intern(functionEntry.getType()), functionEntry);
+  }
+
+  /**以复制的新函数表替换此池的函数表，只有变更的函数名对应的重载表会被复制，新表在版本戳递增之前发布，
+   * 因此读取到新版本戳的线程一定能看到新的函数*/
+  private void putFunction(String name, FunctionType type, IFunctionEntry entry){
+    synchronized(this){
+      Map<String, Map<FunctionType, IFunctionEntry>> pool = new HashMap<>(funcPool);
+      Map<FunctionType, IFunctionEntry> overloads = pool.get(name);
+      overloads = overloads == null? new HashMap<>(): new HashMap<>(overloads);
+      overloads.put(type, entry);
+      pool.put(name, overloads);
+
+      replaceFunctions(pool);
+    }
+    functionChanged(name);
+  }
+
+  /**发布新的函数表并使缓存过期，发布期间层次结构中的查找不使用缓存，
+   * 否则在新表发布之后，版本戳递增之前，读取的线程可能在未命中时取得新的函数，而在命中时仍然取得旧表中的函数*/
+  private void replaceFunctions(Map<String, Map<FunctionType, IFunctionEntry>> pool){
+    Version.WRITERS.incrementAndGet(version);
+    try{
+      funcPool = pool;
+      expireCache();
+    }finally{
+      Version.WRITERS.decrementAndGet(version);
+    }
+  }
+
+  /**将一组函数与变量在同一次写入中发布到此池，读取的线程只会看到全部变更之前或者全部变更之后的池，不会看到部分变更的函数表。
+   * <p>变量表先于函数表发布，新的函数总能读取到同批发布的变量，已存在的同名变量与{@link DataPool#setVariable(IVariable)}一样保持不变。
+   * 整批变更只使版本戳递增一次，调用点缓存也只失效一次
+   *
+   * @param functions 函数名称到重载表的映射
+   * @param variables 新增的变量*/
+  void publish(Map<String, Map<FunctionType, IFunctionEntry>> functions, Collection<IVariable> variables){
+    synchronized(this){
+      boolean varChanged = false;
+      if(!variables.isEmpty()){
+        Map<String, IVariable> vars = new HashMap<>(varPool);
+        for(IVariable var: variables){
+          if(vars.putIfAbsent(var.name(), var) == null) varChanged = true;
+        }
+
+        if(varChanged){
+          varPool = vars;
+
+          varModCount++;
+          if(inherited) Version.VAR_STAMP.incrementAndGet(version);
+        }
+      }
+
+      if(!functions.isEmpty()){
+        Map<String, Map<FunctionType, IFunctionEntry>> pool = new HashMap<>(funcPool);
+        for(Map.Entry<String, Map<FunctionType, IFunctionEntry>> entry: functions.entrySet()){
+          Map<FunctionType, IFunctionEntry> overloads = pool.get(entry.getKey());
+          overloads = overloads == null? new HashMap<>(): new HashMap<>(overloads);
+          overloads.putAll(entry.getValue());
+          pool.put(entry.getKey(), overloads);
+        }
+
+        replaceFunctions(pool);
+      }
+    }
+
+    if(!functions.isEmpty()) functionsChanged(functions.keySet());
+  }
+
+  /**获取对象用于设置自身函数与变量的池，对象首次设置自身的函数或变量时由生成的类型调用，并以返回的池替换对象持有的池。
+   * <p>若此池由多个对象共享，则应当返回一个以此池为父池的新池，使对象的变更不影响其他对象，默认实现返回此池本身
+   *
+   * @return 对象独占的池*/
+  public DataPool promote(){
+    return this;
+  }
+
+  /**获取对象调用委托基类中原有方法所使用的只读池，即对象的{@link DynamicObject#baseSuperPointer()}，在其首次被使用时由生成的类型调用
+   *
+   * @param owner 只读池的所有者
+   * @return 基类池的只读对象，若层次结构中没有基类池则为null*/
+  public <S> ReadOnlyPool getBaseReader(DynamicObject<S> owner){
+    return superPool == null? null: superPool.getBaseReader(owner);
+  }
+
+  /**池中的函数发生变更时调用，使{@link FunctionLinker}中此名称函数的调用点缓存失效*/
+  protected void functionChanged(String name){
+    FunctionLinker.invalidate(name);
+  }
+
+  /**池中的一组函数在一次批量变更中发生变更时调用，使{@link FunctionLinker}中这些名称函数的调用点缓存一同失效*/
+  protected void functionsChanged(Collection<String> names){
+    FunctionLinker.invalidate(names);
+  }
+
+  private void expireCache(){
+    modCount++;
+    if(inherited) Version.STAMP.incrementAndGet(version);
+  }
+
+  /**获取此池的函数版本戳，此池或其父池层次中的任何函数发生变更后版本戳都会改变，用于{@link BoundFunction}检查缓存的函数是否仍然有效
+   *
+   * @return 函数版本戳*/
+  public int functionStamp(){
+    return version.stamp + modCount;
+  }
+
+  /**将此池中的函数绑定到给出的对象上，返回的句柄在对象持有的池或池的函数发生变更时会自动重新选择函数，绑定不会提升此池
+   *
+   * @param self 函数绑定的对象，此池应当为该对象当前的数据池
+   * @param symbol 函数符号
+   * @return 函数句柄*/
+  public <S, R> BoundFunction<S, R> bind(DynamicObject<S> self, FunctionSymbol symbol){
+    return new BoundFunction<>(self, this, symbol);
+  }
+
+  /**此池自身是否设置了任何函数，不包括父池*/
+  boolean hasOwnFunction(){
+    return !funcPool.isEmpty();
   }
 
   /**从类层次结构中获取变量的对象
@@ -113,17 +263,109 @@ public class DataPool{
    *
    * @param var 加入池的变量*/
   public void setVariable(IVariable var){
-    varPool.putIfAbsent(var.name(), var);
+    synchronized(this){
+      if(varPool.containsKey(var.name())) return;
+
+      Map<String, IVariable> pool = new HashMap<>(varPool);
+      pool.put(var.name(), var);
+      varPool = pool;
+
+      varModCount++;
+      if(inherited) Version.VAR_STAMP.incrementAndGet(version);
+    }
+  }
+
+  /**此池及父池层次中的变量版本戳，任何变量变更后都会改变*/
+  private int variableStamp(){
+    return version.varStamp + varModCount;
+  }
+
+  /**以变量符号从类层次结构中获取变量对象，与{@link DataPool#getVariable(String)}行为一致，但通过符号的id直接索引变量
+   *
+   * @param symbol 变量符号
+   * @return 变量对象*/
+  public IVariable getVariable(VarSymbol symbol){
+    if(varPool.isEmpty()) return superPool == null? null: superPool.getVariable(symbol);
+
+    int id = symbol.id();
+    int stamp = variableStamp();
+    SymbolCache<IVariable> cache = symbolVariables;
+    if(cache == null || cache.version != stamp || id >= cache.entries.length()){
+      symbolVariables = cache = new SymbolCache<>(stamp, Math.max(id + 1, VarSymbol.count()));
+    }
+
+    IVariable res = cache.entries.get(id);
+    if(res == null){
+      res = varPool.get(symbol.name());
+      if(res == null && superPool != null) res = superPool.getVariable(symbol);
+
+      cache.entries.lazySet(id, res);
+    }
+
+    return res;
   }
 
-  /**将类层次结构中定义的函数输出为函数入口，会优先查找类型签名相同的函数，若未查找到相同的才会转入类型签名匹配的函数，
+  /**将类层次结构中定义的函数输出为函数入口，会优先查找类型签名相同的函数，若未查找到相同的才会在类型签名匹配的函数中选择参数类型最具体的一个，
    * 因此调用函数在性能需求较高的情况下，建议对实参列表明确声明类型的签名，这可以有效提高重载决策的速度
    * <p>如果函数没有被定义则返回空
+   * <p>选择的结果（包括未找到函数的结果）会被缓存，此池或其父池中的函数发生变更后缓存过期，因此查找开销与类层次的深度无关
    *
    * @param name 函数的名称
    * @param type 函数的参数类型
    * @return 选中函数的函数入口*/
   public IFunctionEntry select(String name, FunctionType type){
+    //本池没有函数时选择结果与父池完全一致，直接使用父池的缓存
+    if(funcPool.isEmpty()) return superPool == null? null: superPool.select(name, type);
+    if(version.writers != 0) return resolve(name, type);
+
+    int stamp = functionStamp();
+    ResolveCache resolved = resolveCache;
+    if(resolved == null || resolved.version != stamp){
+      resolveCache = resolved = new ResolveCache(stamp);
+    }
+
+    ConcurrentHashMap<FunctionType, IFunctionEntry> cache = resolved.entries.get(name);
+    if(cache == null){
+      ConcurrentHashMap<FunctionType, IFunctionEntry> c = new ConcurrentHashMap<>();
+      cache = resolved.entries.putIfAbsent(name, c);
+      if(cache == null) cache = c;
+    }
+
+    IFunctionEntry res = cache.get(type);
+    if(res == null){
+      res = resolve(name, type);
+      //传入的类型对象可能会被回收复用，缓存键使用驻留的类型对象
+      cache.put(FunctionType.intern(type), res == null? ABSENT: res);
+    }
+
+    return res == ABSENT? null: res;
+  }
+
+  /**以函数符号从类层次结构中选择函数，与{@link DataPool#select(String, FunctionType)}行为一致，但通过符号的id直接索引函数入口
+   *
+   * @param symbol 函数符号
+   * @return 选中函数的函数入口*/
+  public IFunctionEntry select(FunctionSymbol symbol){
+    if(funcPool.isEmpty()) return superPool == null? null: superPool.select(symbol);
+    if(version.writers != 0) return resolve(symbol.name(), symbol.type());
+
+    int id = symbol.id();
+    int stamp = functionStamp();
+    SymbolCache<IFunctionEntry> cache = symbolFunctions;
+    if(cache == null || cache.version != stamp || id >= cache.entries.length()){
+      symbolFunctions = cache = new SymbolCache<>(stamp, Math.max(id + 1, FunctionSymbol.count()));
+    }
+
+    IFunctionEntry res = cache.entries.get(id);
+    if(res == null){
+      res = resolve(symbol.name(), symbol.type());
+      cache.entries.lazySet(id, res == null? ABSENT: res);
+    }
+
+    return res == ABSENT? null: res;
+  }
+
+  private IFunctionEntry resolve(String name, FunctionType type){
     Map<FunctionType, IFunctionEntry> map;
     IFunctionEntry res;
 
@@ -138,13 +380,20 @@ public class DataPool{
       curr = curr.superPool;
     }
 
+    //没有完全匹配的函数时，在层次结构中所有可匹配的重载里选择参数类型最具体的一个，具体程度相同时以层次结构中较近的函数为准
+    FunctionType best = null;
+    res = null;
     curr = this;
     while(curr != null){
       map = curr.funcPool.get(name);
       if(map != null){
         for(Map.Entry<FunctionType, IFunctionEntry> entry: map.entrySet()){
-          if(entry.getKey().match(type.getTypes())){
-            return entry.getValue();
+          FunctionType candidate = entry.getKey();
+          if(!candidate.match(type.getTypes())) continue;
+
+          if(best == null || moreSpecific(candidate.getTypes(), best.getTypes())){
+            best = candidate;
+            res = entry.getValue();
           }
         }
       }
@@ -152,22 +401,58 @@ public class DataPool{
       curr = curr.superPool;
     }
 
-    return null;
+    return res;
+  }
+
+  /**判断参数类型a是否严格比参数类型b更具体，即b的每一个参数类型都可以从a的相应参数类型分配，且两者不完全相同*/
+  private static boolean moreSpecific(Class<?>[] a, Class<?>[] b){
+    boolean differ = false;
+    for(int i = 0; i < a.length; i++){
+      if(a[i] == b[i]) continue;
+      if(!b[i].isAssignableFrom(a[i])) return false;
+      differ = true;
+    }
+
+    return differ;
+  }
+
+  /**获取实例化时需要逐个初始化的变量，即此池与父池中的变量除去被子池中同名变量遮蔽的部分。
+   * 具有{@linkplain Initializer#constant(Object) 常量默认值}的变量不复制到实例中，只有实例具有变量字段时才需要初始化。
+   * <p>结果会被缓存，此池或父池中的变量变更后重新收集，因此实例化的开销与类型声明的常量默认值数量无关
+   *
+   * @param fields 实例是否具有变量字段*/
+  IVariable[] initVariables(boolean fields){
+    int stamp = variableStamp();
+    InitVariables res = initVariables;
+    if(res == null || res.version != stamp){
+      ArrayList<IVariable> all = new ArrayList<>(), nonConstant = new ArrayList<>();
+      HashSet<String> names = new HashSet<>();
+      for(DataPool curr = this; curr != null; curr = curr.superPool){
+        for(IVariable var: curr.varPool.values()){
+          if(!names.add(var.name())) continue;
+
+          all.add(var);
+          if(!(var instanceof Variable v) || v.constant() == null) nonConstant.add(var);
+        }
+      }
+
+      initVariables = res = new InitVariables(stamp, all.toArray(EMP_VARS), nonConstant.toArray(EMP_VARS));
+    }
+
+    return fields? res.fields: res.variables;
   }
 
   public IVariable[] getVariables(){
-    TMP_VAR.clear();
-    TMP_VAR.addAll(varPool.values());
-    return TMP_VAR.toArray(EMP_VARS);
+    return varPool.values().toArray(EMP_VARS);
   }
 
   public IFunctionEntry[] getFunctions(){
-    TMP_LIS.clear();
+    ArrayList<IFunctionEntry> res = new ArrayList<>();
     for(Map<FunctionType, IFunctionEntry> entry: funcPool.values()){
-      TMP_LIS.addAll(entry.values());
+      res.addAll(entry.values());
     }
 
-    return TMP_LIS.toArray(EMP_METS);
+    return res.toArray(EMP_METS);
   }
 
   /**获得池的只读对象*/
@@ -179,14 +464,74 @@ public class DataPool{
     return superPool == null? alternative: ReadOnlyPool.get(superPool, owner, alternative);
   }
 
+  /**获取用于调用此池中给定函数的超函数的父池只读对象，父池中与符号签名相同的函数（即调用链上的下一个函数）被预先链接到只读对象上，
+   * 以相同的名称与类型通过只读对象获取或调用函数时不会再进行查找。链接的函数通过符号的id从父池中获取，类层次结构变更后会重新选择
+   * <p>此池没有父池时调用链上的下一个函数来自后备只读对象（通常为委托基类的方法），此时返回一个以后备对象的池为源并预先链接了其中函数的只读对象
+   *
+   * @param owner 只读对象的所有者
+   * @param alternative 父池中不存在函数时的后备只读对象
+   * @param symbol 调用超函数的函数的符号*/
+  public <T> ReadOnlyPool getSuper(DynamicObject<T> owner, ReadOnlyPool alternative, FunctionSymbol symbol){
+    if(superPool == null){
+      if(alternative == null) return null;
+      return ReadOnlyPool.linked(alternative.pool, owner, alternative.alternative, symbol);
+    }
+
+    return ReadOnlyPool.linked(superPool, owner, alternative, symbol);
+  }
+
+  private static class Version{
+    private static final AtomicIntegerFieldUpdater<Version> STAMP = AtomicIntegerFieldUpdater.newUpdater(Version.class, "stamp");
+    private static final AtomicIntegerFieldUpdater<Version> VAR_STAMP = AtomicIntegerFieldUpdater.newUpdater(Version.class, "varStamp");
+    private static final AtomicIntegerFieldUpdater<Version> WRITERS = AtomicIntegerFieldUpdater.newUpdater(Version.class, "writers");
+
+    volatile int stamp;
+    volatile int varStamp;
+    /**层次结构中正在替换函数表的写入数，不为0时函数表与版本戳可能尚未一致*/
+    volatile int writers;
+  }
+
+  private static class ResolveCache{
+    final int version;
+    final ConcurrentHashMap<String, ConcurrentHashMap<FunctionType, IFunctionEntry>> entries = new ConcurrentHashMap<>();
+
+    ResolveCache(int version){
+      this.version = version;
+    }
+  }
+
+  private static class SymbolCache<T>{
+    final int version;
+    final AtomicReferenceArray<T> entries;
+
+    SymbolCache(int version, int size){
+      this.version = version;
+      this.entries = new AtomicReferenceArray<>(size);
+    }
+  }
+
+  private static class InitVariables{
+    final int version;
+    final IVariable[] fields, variables;
+
+    InitVariables(int version, IVariable[] fields, IVariable[] variables){
+      this.version = version;
+      this.fields = fields;
+      this.variables = variables;
+    }
+  }
+
   public static class ReadOnlyPool{
     public static int MAX_CHANCES = 2048;
-    private static final Stack<ReadOnlyPool> POOLS = new Stack<>();
+    private static final RecyclePool<ReadOnlyPool> POOLS = new RecyclePool<>(ReadOnlyPool::new, () -> MAX_CHANCES);
 
     private DataPool pool;
     private DynamicObject<?> owner;
     private ReadOnlyPool alternative;
 
+    private FunctionSymbol linked;
+    private IFunctionEntry linkedEntry;
+
     private final boolean hold;
 
     private ReadOnlyPool(){
@@ -202,10 +547,20 @@ public class DataPool{
     }
 
     private static ReadOnlyPool get(DataPool source, DynamicObject<?> owner, ReadOnlyPool alternative){
-      ReadOnlyPool res = POOLS.isEmpty()? new ReadOnlyPool(): POOLS.pop();
+      ReadOnlyPool res = POOLS.obtain();
       res.pool = source;
       res.owner = owner;
       res.alternative = alternative;
+      res.linked = null;
+      res.linkedEntry = null;
+
+      return res;
+    }
+
+    private static ReadOnlyPool linked(DataPool source, DynamicObject<?> owner, ReadOnlyPool alternative, FunctionSymbol symbol){
+      ReadOnlyPool res = get(source, owner, alternative);
+      res.linked = symbol;
+      res.linkedEntry = source.select(symbol);
 
       return res;
     }
@@ -216,8 +571,10 @@ public class DataPool{
       pool = null;
       owner = null;
       alternative = null;
+      linked = null;
+      linkedEntry = null;
 
-      if(POOLS.size() < MAX_CHANCES) POOLS.push(this);
+      POOLS.free(this);
     }
 
     /**@see DynamicObject#getVar(String)*/
@@ -234,6 +591,8 @@ public class DataPool{
 
     /**@see DynamicObject#getFunc(String, FunctionType)*/
     public IFunctionEntry getFunc(String name, FunctionType type){
+      if(linkedEntry != null && linked.name().equals(name) && linked.type().equals(type)) return linkedEntry;
+
       IFunctionEntry func = pool.select(name, type);
       if(func == null){
         if(alternative == null)
@@ -245,6 +604,21 @@ public class DataPool{
       return func;
     }
 
+    /**@see DynamicObject#getFunc(FunctionSymbol)*/
+    public IFunctionEntry getFunc(FunctionSymbol symbol){
+      if(linkedEntry != null && linked == symbol) return linkedEntry;
+
+      IFunctionEntry func = pool.select(symbol);
+      if(func == null){
+        if(alternative == null)
+          throw new IllegalHandleException("no such function: " + symbol);
+
+        return alternative.getFunc(symbol);
+      }
+
+      return func;
+    }
+
     /**@see DynamicObject#invokeFunc(String, Object...)*/
     public <R> R invokeFunc(String name, Object... args){
       ArgumentList lis = ArgumentList.as(args);
@@ -261,6 +635,31 @@ public class DataPool{
       return r;
     }
 
+    /**@see DynamicObject#invokeFunc0(FunctionSymbol)*/
+    public <R> R invokeFunc0(FunctionSymbol symbol){
+      return getFunc(symbol).<Object, R>getFunction().invoke0((DynamicObject<Object>) owner, symbol.type());
+    }
+
+    /**@see DynamicObject#invokeFunc1(FunctionSymbol, Object)*/
+    public <R> R invokeFunc1(FunctionSymbol symbol, Object a0){
+      return getFunc(symbol).<Object, R>getFunction().invoke1((DynamicObject<Object>) owner, symbol.type(), a0);
+    }
+
+    /**@see DynamicObject#invokeFunc2(FunctionSymbol, Object, Object)*/
+    public <R> R invokeFunc2(FunctionSymbol symbol, Object a0, Object a1){
+      return getFunc(symbol).<Object, R>getFunction().invoke2((DynamicObject<Object>) owner, symbol.type(), a0, a1);
+    }
+
+    /**@see DynamicObject#invokeFunc3(FunctionSymbol, Object, Object, Object)*/
+    public <R> R invokeFunc3(FunctionSymbol symbol, Object a0, Object a1, Object a2){
+      return getFunc(symbol).<Object, R>getFunction().invoke3((DynamicObject<Object>) owner, symbol.type(), a0, a1, a2);
+    }
+
+    /**@see DynamicObject#invokeFunc4(FunctionSymbol, Object, Object, Object, Object)*/
+    public <R> R invokeFunc4(FunctionSymbol symbol, Object a0, Object a1, Object a2, Object a3){
+      return getFunc(symbol).<Object, R>getFunction().invoke4((DynamicObject<Object>) owner, symbol.type(), a0, a1, a2, a3);
+    }
+
     /**@see DynamicObject#invokeFunc(String, ArgumentList)*/
     public <R> R invokeFunc(String name, ArgumentList args){
       FunctionType type = args.type();
@@ -9,7 +9,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 /**保存动态对象行为信息的动态类型，描述了对象的共有行为和变量信息。
  * <p>在{@link DynamicMaker}的构造实例方法里使用动态类型构造动态对象，动态对象会具有其类型描述的行为，对于基类与动态类中描述的同一方法会正常的处理覆盖关系。
@@ -49,43 +50,43 @@ import java.util.HashMap;
  *
  * @author EBwilson */
 public class DynamicClass{
-  /**保存了所有动态类的实例，通常情况下动态类型只有在主动删除时才会退出池，对于废弃的类，请切记使用{@link DynamicClass#delete()}删除，否则会造成内存泄漏*/
-  private static final HashMap<String, DynamicClass> classPool = new HashMap<>();
-
   /**类型的唯一限定名称*/
   private final String name;
 
   /**此动态类的直接超类*/
   private final DynamicClass superDyClass;
 
+  /**保存此类型的注册表，通常情况下动态类型只有在主动删除或注册表关闭时才会退出注册表，对于废弃的类，请切记使用{@link DynamicClass#delete()}删除，否则会造成内存泄漏*/
+  private final DynamicClassRegistry registry;
+
   private final DataPool data;
 
   /**废弃标记，在类型已废弃后，不可再实例化此类型*/
-  private boolean isObsoleted;
+  private volatile boolean isObsoleted;
+  /**类型被删除时执行的释放操作，由缓存了此类型相关数据的生成器添加*/
+  private ArrayList<Runnable> releaseHooks;
 
-  /**声明一个动态类型，如果此名称指明的类型不存在则使用给出的名称创建一个新的动态类
+  /**在{@linkplain DynamicClassRegistry#global() 全局注册表}中声明一个动态类型
    *
    * @param name 类型的唯一限定名称
    * @param superDyClass 此动态类型的直接超类
    * @return 一个具有指定名称的动态类实例
    *
-   * @throws IllegalHandleException 如果具有 该名称的类型已经存在*/
+   * @throws IllegalHandleException 如果具有 该名称的类型已经存在
+   * @see DynamicClassRegistry#declare(String, DynamicClass)*/
   public static DynamicClass declare(String name, DynamicClass superDyClass){
-    if(classPool.containsKey(name))
-      throw new IllegalHandleException("cannot declare two dynamic class with same name");
-
-    DynamicClass dyc = new DynamicClass(name, superDyClass);
-    classPool.put(name, dyc);
-    return dyc;
+    return DynamicClassRegistry.global().declare(name, superDyClass);
   }
 
-  /**获取动态类实例，如果此名称指明的类型不存在则使用给出的名称创建一个新的动态类
+  /**从{@linkplain DynamicClassRegistry#global() 全局注册表}获取动态类实例，如果此名称指明的类型不存在则使用给出的名称创建一个新的动态类
    * <p>从此方法创建的新类没有明确的直接超类，实例将以委托的基类作为直接超类，若需要具有明确的直接超类的类型，请使用{@link DynamicClass#declare(String, DynamicClass)}声明
+   * <p>类型已存在时此方法不需要任何锁
    *
    * @param name 类型的唯一限定名称
-   * @return 一个具有指定名称的动态类实例*/
+   * @return 一个具有指定名称的动态类实例
+   * @see DynamicClassRegistry#get(String)*/
   public static DynamicClass get(String name){
-    return classPool.computeIfAbsent(name, n -> new DynamicClass(n, null));
+    return DynamicClassRegistry.global().get(name);
   }
 
   public static DynamicClass visit(String name, Class<?> clazz, DynamicClass superDyClass, JavaHandleHelper helper){
@@ -95,19 +96,61 @@ public class DynamicClass{
   }
 
   /**创建类型实例，不应从外部调用此方法构造实例*/
-  DynamicClass(String name, DynamicClass superDyClass){
+  DynamicClass(String name, DynamicClass superDyClass, DynamicClassRegistry registry){
     this.name = name;
     this.superDyClass = superDyClass;
+    this.registry = registry;
     this.data = new DataPool(superDyClass == null? null: superDyClass.data);
   }
 
-  /**将此类型对象从池中移除并废弃，任何一个动态类不再被使用后，都应当正确的删除。
+  /**将此类型对象从注册表中移除并废弃，任何一个动态类不再被使用后，都应当正确的删除。生成器中为此类型缓存的数据池与代理类型会一同释放。
    * <p>在你调用此方法之前，<strong>请确保已经没有任何对此类型的引用</strong>*/
   public void delete(){
     checkFinalized();
 
-    classPool.remove(name);
-    isObsoleted = true;
+    release();
+  }
+
+  /**废弃此类型并执行释放操作，类型已被废弃时不做任何事*/
+  void release(){
+    ArrayList<Runnable> hooks;
+    synchronized(this){
+      if(isObsoleted) return;
+
+      registry.remove(name, this);
+      isObsoleted = true;
+
+      hooks = releaseHooks;
+      releaseHooks = null;
+    }
+
+    if(hooks != null) hooks.forEach(Runnable::run);
+    FunctionLinker.release(this);
+  }
+
+  /**添加一个在此类型被删除时执行的释放操作，用于清除生成器中与此类型关联的缓存，若类型已被删除则立即执行
+   *
+   * @param hook 释放操作*/
+  void onRelease(Runnable hook){
+    synchronized(this){
+      if(!isObsoleted){
+        if(releaseHooks == null) releaseHooks = new ArrayList<>();
+        releaseHooks.add(hook);
+        return;
+      }
+    }
+
+    hook.run();
+  }
+
+  /**获取保存此类型的注册表*/
+  DynamicClassRegistry registry(){
+    return registry;
+  }
+
+  /**此类型是否已被删除*/
+  public boolean isObsoleted(){
+    return isObsoleted;
   }
 
   /**获取此动态类型的名称
@@ -128,24 +171,14 @@ public class DynamicClass{
     return superDyClass;
   }
 
+  /**生成此类型的实例使用的数据池，池以此类型的池为父池，并在类层次结构中不存在函数/变量时从委托基类的池中查找。
+   * <p>生成的池由使用同一委托基类的所有实例共享，实例首次设置自身的函数或变量时才会通过{@link DataPool#promote()}得到独占的池，
+   * 因此不设置自身函数与变量的实例不具有任何额外的池对象
+   *
+   * @param basePool 委托基类的池
+   * @return 实例共享的数据池*/
   public DataPool genPool(DataPool basePool){
-    return new DataPool(data){
-      @Override
-      public IFunctionEntry select(String name1, FunctionType type){
-        IFunctionEntry res1 = super.select(name1, type);
-        if(res1 != null) return res1;
-
-        return basePool.select(name1, type);
-      }
-
-      @Override
-      public IVariable getVariable(String name1){
-        IVariable var = super.getVariable(name1);
-        if(var != null) return var;
-
-        return basePool.getVariable(name1);
-      }
-    };
+    return new InstancePool(data, basePool, true);
   }
 
   public IFunctionEntry[] getFunctions(){
@@ -156,6 +189,11 @@ public class DynamicClass{
     return data.getVariables();
   }
 
+  /**获取实例化此类型的对象时需要逐个初始化的变量，参见{@link DataPool#initVariables(boolean)}*/
+  IVariable[] initVariables(boolean fields){
+    return data.initVariables(fields);
+  }
+
   /**访问一个类作为行为样版，将类中声明的字段/方法用作描述动态类行为，类中声明的<strong>静态成员</strong>将产生如下效果:
    * <ul>
    * <li><strong>方法</strong>：为动态类型描述实例共有方法，对于同名同参数的方法若重复传入，则旧的方法会被新的覆盖。
@@ -167,6 +205,7 @@ public class DynamicClass{
    *
    * <li><strong>字段</strong>：为动态类型描述默认变量表，并以字段在动态对象实例化时存储的值作为该变量的初始数据。
    * <p>若字段的类型为{@link dynamilize.Initializer.Producer}，则会将此函数作为值的工厂，初始化动态实例时以函数生产的数据作为变量默认值。
+   * <p>以volatile修饰的字段描述的变量在{@linkplain DynamicMaker#enableVariableFields(DynamicClass) 变量字段}中同样为volatile，需要被并发更新的变量应当如此声明。
    * <p><strong>除作为行为样版被访问之外，其他任何时机变量的值变化都不会对类型的行为产生直接影响</strong>
    * </ul>
    * 如果模板里存在不希望被作为样版的字段或者方法，你可以使用{@link Exclude}注解标记此目标以排除。
@@ -242,12 +281,13 @@ public class DynamicClass{
     }, argTypes);
   }
 
-  /**常量模式设置变量初始值，行为与{@link DynamicClass#visitClass(Class,JavaHandleHelper)}字段部分相同
+  /**常量模式设置变量初始值，行为与{@link DynamicClass#visitClass(Class,JavaHandleHelper)}字段部分相同。
+   * <p>常量只保存在动态类型中，不会复制到实例里，实例在写入自身的值之前读取此变量得到的都是这个常量
    *
    * @param name 变量名称
    * @param value 常量值*/
   public void setVariable(String name, Object value){
-    setVariable(name, () -> value);
+    data.setVariable(new FieldVariable(name, Object.class, Initializer.constant(value)));
   }
 
   /**函数模式设置变量初始化工厂，行为与{@link DynamicClass#visitClass(Class,JavaHandleHelper)}字段部分相同
@@ -255,7 +295,28 @@ public class DynamicClass{
    * @param name 变量名称
    * @param prov 生产变量初始值的工厂函数*/
   public void setVariable(String name, Initializer.Producer<?> prov){
-    data.setVariable(new Variable(name, new Initializer<>(prov)));
+    data.setVariable(new FieldVariable(name, Object.class, new Initializer<>(prov)));
+  }
+
+  /**以事务的方式编辑此类型，在给出的编辑器中设置的函数与变量不会立即生效，而是在编辑结束后作为一个整体一次性发布。
+   * <p>并发调用此类型函数的线程只会看到编辑前或者编辑后的类型，不会看到部分替换的函数，读取函数的线程也不会被阻塞，
+   * 整批变更只使类型的函数缓存与调用点缓存失效一次。若编辑过程中抛出异常，则不会发布任何变更
+   * <pre>{@code
+   * dyClass.update(editor -> {
+   *   editor.setVariable("limit", 16);
+   *   editor.setFunction("accept", (self, args) -> ...);
+   *   editor.setFunction("reject", (self, args) -> ...);
+   * });
+   * }</pre>
+   *
+   * @param editor 编辑类型的函数，其参数为暂存变更的编辑器
+   * @throws IllegalHandleException 如果此类型已被删除*/
+  public void update(Consumer<ClassEditor> editor){
+    checkFinalized();
+
+    ClassEditor edit = new ClassEditor(data);
+    editor.accept(edit);
+    edit.publish();
   }
 
   private void setFunctionWithMethod(JavaHandleHelper helper, Method method) {
@@ -290,20 +351,29 @@ public class DynamicClass{
     boolean thisP = thisPointer;
     boolean superP = superPointer;
 
+    String funcName = method.getName();
+    Class<?>[] argTypes = arg.toArray(new Class[0]);
+    FunctionSymbol symbol = FunctionSymbol.of(funcName, argTypes);
+
+    Function<?, ?> invoker = helper.genTemplateInvoker(method, data, symbol);
+    if(invoker != null){
+      data.setFunction(funcName, invoker, argTypes);
+      return;
+    }
+
     Function<Object, Object> v = helper.genJavaMethodRef(method).getFunction();
 
     int offset = thisP? superP? 2: 1: 0;
-    FunctionType type = FunctionType.inst(method);
+    FunctionType type = FunctionType.from(method);
 
-    data.setFunction(name, (self, args) -> {
+    data.setFunction(funcName, (self, args) -> {
       Object[] argsArray = args.args();
       Object[] realArgArr = ArgumentList.getList(argsArray.length + offset);
 
       if(thisP) realArgArr[0] = self;
 
       DataPool.ReadOnlyPool superPool = null;
-      if(thisP && superP) realArgArr[1] = data.getSuper(self, superPool = self.baseSuperPointer());
-      else if(!thisP && superP) realArgArr[0] = data.getSuper(self, superPool = self.baseSuperPointer());
+      if(superP) realArgArr[thisP? 1: 0] = superPool = data.getSuper(self, self.baseSuperPointer(), symbol);
 
       if(argsArray.length != 0) System.arraycopy(argsArray, 0, realArgArr, offset, argsArray.length);
 
@@ -315,7 +385,7 @@ public class DynamicClass{
       }catch(Throwable e){
         throw new RuntimeException(e);
       }
-    }, arg.toArray(new Class[0]));
+    }, argTypes);
   }
 
   @SuppressWarnings({"unchecked"})
@@ -327,13 +397,20 @@ public class DynamicClass{
       throw new RuntimeException(e);
     }
 
-    data.setVariable(new Variable(field.getName(), new Initializer<>(value instanceof Initializer.Producer? (Initializer.Producer<? super Object>) value: () -> {
+    boolean producer = value instanceof Initializer.Producer;
+    if(!producer && Modifier.isFinal(field.getModifiers())){
+      //final字段的值不会再变化，作为常量默认值保存在类型中
+      data.setVariable(new FieldVariable(field.getName(), field.getType(), Initializer.constant(value)));
+      return;
+    }
+
+    data.setVariable(new FieldVariable(field.getName(), producer? Object.class: field.getType(), new Initializer<>(producer? (Initializer.Producer<? super Object>) value: () -> {
       try {
         return field.get(null);
       } catch (IllegalAccessException e) {
         throw new RuntimeException(e);
       }
-    })));
+    }), Modifier.isVolatile(field.getModifiers())));
   }
 
   private void checkFinalized(){
@@ -345,4 +422,68 @@ public class DynamicClass{
   public String toString(){
     return "dynamic class:" + name;
   }
+
+  /**实例的数据池，类层次结构中不存在的函数与变量从委托基类的池中查找*/
+  private static class InstancePool extends DataPool{
+    private final DataPool basePool;
+    private final boolean shared;
+
+    InstancePool(DataPool superPool, DataPool basePool, boolean shared){
+      super(superPool);
+      this.basePool = basePool;
+      this.shared = shared;
+    }
+
+    @Override
+    public DataPool promote(){
+      return shared? new InstancePool(this, basePool, false): this;
+    }
+
+    @Override
+    public <S> ReadOnlyPool getBaseReader(DynamicObject<S> owner){
+      return basePool.getReader(owner);
+    }
+
+    @Override
+    public IFunctionEntry select(String name, FunctionType type){
+      IFunctionEntry res = super.select(name, type);
+      if(res != null) return res;
+
+      return basePool.select(name, type);
+    }
+
+    @Override
+    public IVariable getVariable(String name){
+      IVariable var = super.getVariable(name);
+      if(var != null) return var;
+
+      return basePool.getVariable(name);
+    }
+
+    @Override
+    public IFunctionEntry select(FunctionSymbol symbol){
+      IFunctionEntry res = super.select(symbol);
+      if(res != null) return res;
+
+      return basePool.select(symbol);
+    }
+
+    @Override
+    public IVariable getVariable(VarSymbol symbol){
+      IVariable var = super.getVariable(symbol);
+      if(var != null) return var;
+
+      return basePool.getVariable(symbol);
+    }
+
+    @Override
+    protected void functionChanged(String name){
+      //实例池中的函数不会进入调用点缓存，无需使调用点失效
+    }
+
+    @Override
+    protected void functionsChanged(Collection<String> names){
+      //同上
+    }
+  }
 }
@@ -0,0 +1,160 @@
+package dynamilize;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**动态类型的注册表，以名称保存{@linkplain DynamicClass 动态类型}，同一个注册表中的类型名称是唯一的。
+ * <p>{@link DynamicClass#get(String)}与{@link DynamicClass#declare(String, DynamicClass)}使用{@linkplain DynamicClassRegistry#global() 全局注册表}，
+ * 此外可以通过{@link DynamicClassRegistry#newScope()}创建作用域注册表，例如为每一个插件或者租户创建一个作用域，作用域中声明的类型与其他注册表中的同名类型互不干扰。
+ * <p>{@linkplain DynamicClassRegistry#close() 关闭}作用域时，作用域（及其子作用域）中的所有类型都会被{@linkplain DynamicClass#delete() 删除}，
+ * 生成器中为这些类型缓存的数据池与代理类型会随之释放，因此重复加载插件时内存占用不会持续增长。
+ * <p>注册表是线程安全的，获取已存在的类型不需要任何锁
+ * <pre>{@code
+ * DynamicClassRegistry scope = DynamicClassRegistry.global().newScope();
+ * DynamicClass dyClass = scope.get("Sample");
+ * ...
+ * scope.close();
+ * }</pre>
+ *
+ * @author EBwilson */
+public class DynamicClassRegistry implements AutoCloseable{
+  private static final DynamicClassRegistry GLOBAL = new DynamicClassRegistry(null);
+
+  private final DynamicClassRegistry parent;
+  private final ConcurrentHashMap<String, DynamicClass> classes = new ConcurrentHashMap<>();
+  private final Set<DynamicClassRegistry> scopes = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean closed;
+
+  private DynamicClassRegistry(DynamicClassRegistry parent){
+    this.parent = parent;
+  }
+
+  /**获取全局注册表，全局注册表不可被关闭*/
+  public static DynamicClassRegistry global(){
+    return GLOBAL;
+  }
+
+  /**创建一个以此注册表为父注册表的作用域，父注册表关闭时作用域也会一同关闭
+   *
+   * @return 新的作用域注册表*/
+  public DynamicClassRegistry newScope(){
+    checkClosed();
+
+    DynamicClassRegistry res = new DynamicClassRegistry(this);
+    scopes.add(res);
+
+    if(closed){
+      res.close();
+      checkClosed();
+    }
+
+    return res;
+  }
+
+  /**获取此注册表的父注册表，全局注册表的父注册表为null*/
+  public DynamicClassRegistry parent(){
+    return parent;
+  }
+
+  /**此注册表是否已经关闭*/
+  public boolean isClosed(){
+    return closed;
+  }
+
+  /**获取此注册表中的动态类，如果此名称指明的类型不存在则使用给出的名称创建一个新的动态类，参见{@link DynamicClass#get(String)}
+   *
+   * @param name 类型的名称
+   * @return 一个具有指定名称的动态类实例
+   *
+   * @throws IllegalHandleException 如果此注册表已经关闭*/
+  public DynamicClass get(String name){
+    DynamicClass res = classes.get(name);
+    if(res != null) return res;
+
+    checkClosed();
+    DynamicClass dyc = new DynamicClass(name, null, this);
+    res = classes.putIfAbsent(name, dyc);
+    if(res != null) return res;
+
+    checkPublished(dyc);
+    return dyc;
+  }
+
+  /**在此注册表中声明一个动态类型，参见{@link DynamicClass#declare(String, DynamicClass)}
+   *
+   * @param name 类型的名称
+   * @param superDyClass 此动态类型的直接超类
+   * @return 一个具有指定名称的动态类实例
+   *
+   * @throws IllegalHandleException 如果具有该名称的类型已经存在，或者此注册表已经关闭*/
+  public DynamicClass declare(String name, DynamicClass superDyClass){
+    checkClosed();
+    DynamicClass dyc = new DynamicClass(name, superDyClass, this);
+    if(classes.putIfAbsent(name, dyc) != null)
+      throw new IllegalHandleException("cannot declare two dynamic class with same name");
+
+    checkPublished(dyc);
+    return dyc;
+  }
+
+  /**查找具有给出名称的动态类型，此注册表中不存在时依次在父注册表中查找，不会创建新的类型
+   *
+   * @param name 类型的名称
+   * @return 找到的动态类型，若不存在则为null*/
+  public DynamicClass find(String name){
+    for(DynamicClassRegistry curr = this; curr != null; curr = curr.parent){
+      DynamicClass res = curr.classes.get(name);
+      if(res != null) return res;
+    }
+
+    return null;
+  }
+
+  /**获取此注册表中当前保存的所有动态类型*/
+  public DynamicClass[] getClasses(){
+    return classes.values().toArray(new DynamicClass[0]);
+  }
+
+  /**关闭此注册表，删除此注册表与其所有子作用域中的动态类型，关闭后不能再通过此注册表获取或声明类型。
+   * <p>在你调用此方法之前，<strong>请确保已经没有任何对这些类型的引用</strong>，参见{@link DynamicClass#delete()}
+   *
+   * @throws IllegalHandleException 若关闭的是全局注册表*/
+  @Override
+  public void close(){
+    if(this == GLOBAL)
+      throw new IllegalHandleException("cannot close the global registry");
+
+    if(closed) return;
+    closed = true;
+
+    for(DynamicClassRegistry scope: new ArrayList<>(scopes)){
+      scope.close();
+    }
+
+    for(DynamicClass dyc: classes.values()){
+      dyc.release();
+    }
+
+    if(parent != null) parent.scopes.remove(this);
+  }
+
+  /**将类型从此注册表中移除，由{@link DynamicClass#delete()}调用*/
+  void remove(String name, DynamicClass dyClass){
+    classes.remove(name, dyClass);
+  }
+
+  /**类型放入注册表时注册表可能恰好被关闭，此时关闭过程未必能看到这个类型，因此由放入类型的线程将其删除*/
+  private void checkPublished(DynamicClass dyc){
+    if(closed){
+      dyc.release();
+      checkClosed();
+    }
+  }
+
+  private void checkClosed(){
+    if(closed)
+      throw new IllegalHandleException("dynamic class registry was closed");
+  }
+}
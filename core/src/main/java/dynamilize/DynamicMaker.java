@@ -7,12 +7,25 @@ import dynamilize.runtimeannos.AspectInterface;
 import dynamilize.runtimeannos.FuzzyMatch;
 
 import java.lang.annotation.*;
+import java.lang.invoke.CallSite;
+import java.lang.ref.WeakReference;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import static dynamilize.classmaker.ClassInfo.*;
@@ -51,7 +64,9 @@ public abstract class DynamicMaker {
   private static final HashSet<String> INTERNAL_FIELD = new HashSet<>(Arrays.asList(
       "$dynamic_type$",
       "$datapool$",
-      "$varValuePool$",
+      "$datapool$updater$",
+      "$varShape$",
+      "$varSlots$",
       "$superbasepointer$"
   ));
 
@@ -59,9 +74,9 @@ public abstract class DynamicMaker {
   public static final ClassInfo<DynamicObject> DYNAMIC_OBJECT_TYPE = asType(DynamicObject.class);
   public static final ClassInfo<DataPool> DATA_POOL_TYPE = asType(DataPool.class);
   public static final ClassInfo<FunctionType> FUNCTION_TYPE_TYPE = asType(FunctionType.class);
-  public static final MethodInfo<FunctionType, FunctionType> TYPE_INST = FUNCTION_TYPE_TYPE.getMethod(
+  public static final MethodInfo<FunctionType, FunctionType> TYPE_INTERN = FUNCTION_TYPE_TYPE.getMethod(
       FUNCTION_TYPE_TYPE,
-      "inst",
+      "intern",
       CLASS_TYPE.asArray());
   public static final ClassInfo<Function> FUNCTION_TYPE = asType(Function.class);
   public static final ClassInfo<DataPool.ReadOnlyPool> READONLY_POOL_TYPE = asType(DataPool.ReadOnlyPool.class);
@@ -72,39 +87,71 @@ public abstract class DynamicMaker {
   public static final ClassInfo<ArgumentList> ARG_LIST_TYPE = asType(ArgumentList.class);
   public static final ClassInfo<Function.SuperGetFunction> SUPER_GET_FUNC_TYPE = ClassInfo.asType(Function.SuperGetFunction.class);
   public static final ClassInfo<IFunctionEntry> FUNC_ENTRY_TYPE = ClassInfo.asType(IFunctionEntry.class);
+  public static final ClassInfo<FunctionLinker> FUNCTION_LINKER_TYPE = ClassInfo.asType(FunctionLinker.class);
+  public static final ClassInfo<FunctionSymbol> FUNCTION_SYMBOL_TYPE = ClassInfo.asType(FunctionSymbol.class);
+  public static final ClassInfo<BoundFunction> BOUND_FUNCTION_TYPE = ClassInfo.asType(BoundFunction.class);
+  public static final ClassInfo<VarShape> VAR_SHAPE_TYPE = ClassInfo.asType(VarShape.class);
+  public static final ClassInfo<VarSymbol> VAR_SYMBOL_TYPE = ClassInfo.asType(VarSymbol.class);
+  public static final ClassInfo<FieldVariable> FIELD_VARIABLE_TYPE = ClassInfo.asType(FieldVariable.class);
+  public static final ClassInfo<FieldVariable.Holder> FIELD_HOLDER_TYPE = ClassInfo.asType(FieldVariable.Holder.class);
+  public static final ClassInfo<IllegalHandleException> ILLEGAL_HANDLE_TYPE = ClassInfo.asType(IllegalHandleException.class);
+  public static final String FIELD_VARIABLES = "$fieldVariables$";
+  public static final String VARIABLE_FIELD = "$var$";
 
   public static final IMethod<DataPool, DataPool.ReadOnlyPool> GET_READER = DATA_POOL_TYPE.getMethod(READONLY_POOL_TYPE, "getReader", DYNAMIC_OBJECT_TYPE);
   public static final IMethod<HashMap, Object> MAP_GET = HASH_MAP_TYPE.getMethod(OBJECT_TYPE, "get", OBJECT_TYPE);
   public static final IMethod<HashMap, Object> MAP_GET_DEF = HASH_MAP_TYPE.getMethod(OBJECT_TYPE, "getOrDefault", OBJECT_TYPE, OBJECT_TYPE);
   public static final IMethod<Integer, Integer> VALUE_OF = INTEGER_CLASS_TYPE.getMethod(INTEGER_CLASS_TYPE, "valueOf", INT_TYPE);
+  public static final IMethod<String, String> STRING_VALUE_OF = STRING_TYPE.getMethod(STRING_TYPE, "valueOf", INT_TYPE);
   public static final IMethod<HashMap, Object> MAP_PUT = HASH_MAP_TYPE.getMethod(OBJECT_TYPE, "put", OBJECT_TYPE, OBJECT_TYPE);
   public static final IMethod<DataPool, IVariable> GET_VAR = DATA_POOL_TYPE.getMethod(VAR_TYPE, "getVariable", STRING_TYPE);
   public static final IMethod<DataPool, Void> SET_VAR = DATA_POOL_TYPE.getMethod(ClassInfo.VOID_TYPE, "setVariable", VAR_TYPE);
   public static final IMethod<DataPool, Void> SETFUNC = DATA_POOL_TYPE.getMethod(ClassInfo.VOID_TYPE, "setFunction", STRING_TYPE, FUNCTION_TYPE, ClassInfo.CLASS_TYPE.asArray());
   public static final IMethod<DataPool, Void> SETFUNC2 = DATA_POOL_TYPE.getMethod(ClassInfo.VOID_TYPE, "setFunction", STRING_TYPE, SUPER_GET_FUNC_TYPE, ClassInfo.CLASS_TYPE.asArray());
   public static final IMethod<DataPool, IFunctionEntry> SELECT = DATA_POOL_TYPE.getMethod(FUNC_ENTRY_TYPE, "select", STRING_TYPE, FUNCTION_TYPE_TYPE);
+  public static final IMethod<DataPool, IVariable> GET_VAR_SYMBOL = DATA_POOL_TYPE.getMethod(VAR_TYPE, "getVariable", VAR_SYMBOL_TYPE);
+  public static final IMethod<DataPool, IFunctionEntry> SELECT_SYMBOL = DATA_POOL_TYPE.getMethod(FUNC_ENTRY_TYPE, "select", FUNCTION_SYMBOL_TYPE);
+  public static final IMethod<DataPool, BoundFunction> BIND = DATA_POOL_TYPE.getMethod(BOUND_FUNCTION_TYPE, "bind", DYNAMIC_OBJECT_TYPE, FUNCTION_SYMBOL_TYPE);
+  public static final IMethod<DataPool, DataPool> PROMOTE = DATA_POOL_TYPE.getMethod(DATA_POOL_TYPE, "promote");
+  public static final ClassInfo<AtomicReferenceFieldUpdater> POOL_UPDATER_TYPE = asType(AtomicReferenceFieldUpdater.class);
+  public static final IMethod<AtomicReferenceFieldUpdater, AtomicReferenceFieldUpdater> NEW_POOL_UPDATER = POOL_UPDATER_TYPE.getMethod(POOL_UPDATER_TYPE, "newUpdater", CLASS_TYPE, CLASS_TYPE, STRING_TYPE);
+  public static final IMethod<AtomicReferenceFieldUpdater, Boolean> POOL_CAS = POOL_UPDATER_TYPE.getMethod(BOOLEAN_TYPE, "compareAndSet", OBJECT_TYPE, OBJECT_TYPE, OBJECT_TYPE);
+  public static final IMethod<DataPool, DataPool.ReadOnlyPool> GET_BASE_READER = DATA_POOL_TYPE.getMethod(READONLY_POOL_TYPE, "getBaseReader", DYNAMIC_OBJECT_TYPE);
   public static final IMethod<DataPool, Void> INIT = DATA_POOL_TYPE.getMethod(VOID_TYPE, "init", DYNAMIC_OBJECT_TYPE, OBJECT_TYPE.asArray());
   public static final IMethod<DynamicObject, Object> INVOKE = DYNAMIC_OBJECT_TYPE.getMethod(OBJECT_TYPE, "invokeFunc", FUNCTION_TYPE_TYPE, STRING_TYPE, OBJECT_TYPE.asArray());
   public static final IMethod<ArgumentList, Object[]> GET_LIST = ARG_LIST_TYPE.getMethod(OBJECT_TYPE.asArray(), "getList", INT_TYPE);
   public static final IMethod<ArgumentList, Void> RECYCLE_LIST = ARG_LIST_TYPE.getMethod(VOID_TYPE, "recycleList", OBJECT_TYPE.asArray());
+  public static final IMethod<ArgumentList, ArgumentList> PREPARE_ARGS = ARG_LIST_TYPE.getMethod(ARG_LIST_TYPE, "prepare", FUNCTION_TYPE_TYPE);
+  public static final IMethod<ArgumentList, Void> RECYCLE_ARGS = ARG_LIST_TYPE.getMethod(VOID_TYPE, "recycle");
+  public static final IMethod<ArgumentList, Void> SET_ARG = ARG_LIST_TYPE.getMethod(VOID_TYPE, "set", INT_TYPE, OBJECT_TYPE);
+  public static final IMethod<ArgumentList, Void> SET_ARG_INT = ARG_LIST_TYPE.getMethod(VOID_TYPE, "setInt", INT_TYPE, INT_TYPE);
+  public static final IMethod<ArgumentList, Void> SET_ARG_LONG = ARG_LIST_TYPE.getMethod(VOID_TYPE, "setLong", INT_TYPE, LONG_TYPE);
+  public static final IMethod<ArgumentList, Void> SET_ARG_FLOAT = ARG_LIST_TYPE.getMethod(VOID_TYPE, "setFloat", INT_TYPE, FLOAT_TYPE);
+  public static final IMethod<ArgumentList, Void> SET_ARG_DOUBLE = ARG_LIST_TYPE.getMethod(VOID_TYPE, "setDouble", INT_TYPE, DOUBLE_TYPE);
+  public static final IMethod<ArgumentList, Void> SET_ARG_BOOLEAN = ARG_LIST_TYPE.getMethod(VOID_TYPE, "setBoolean", INT_TYPE, BOOLEAN_TYPE);
+  public static final IMethod<FunctionLinker, CallSite> LINK_FUNCTION = FUNCTION_LINKER_TYPE.getMethod(asType(CallSite.class), "bootstrap",
+      asType(MethodHandles.Lookup.class), STRING_TYPE, asType(MethodType.class), STRING_TYPE);
 
-  private static final Map<String, Set<FunctionType>> OVERRIDES = new HashMap<>();
-  private static final Map<String, Set<FunctionType>> FINALS = new HashMap<>();
-  private static final Map<String, Set<FunctionType>> ABSTRACTS = new HashMap<>();
-  private static final Set<Class<?>> INTERFACE_TEMP = new HashSet<>();
-  private static final Stack<Class<?>> INTERFACE_STACK = new Stack<>();
   private static final Class[] EMPTY_CLASSES = new Class[0];
+  private static final AtomicInteger FIELD_CLASS_COUNTER = new AtomicInteger();
   public static final ILocal[] LOCALS_EMP = new ILocal[0];
   public static final HashSet EMP_SET = new HashSet<>();
   public static final HashMap EMP_MAP = new HashMap<>();
   public static final String ANY = "ANY";
   private final JavaHandleHelper helper;
 
-  private final HashMap<ClassImplements<?>, Class<?>> classPool = new HashMap<>();
-  private final HashMap<Class<?>, DataPool> classPoolsMap = new HashMap<>();
-  private final HashMap<Class<?>, HashMap<FunctionType, Constructor<?>>> constructors = new HashMap<>();
+  //生成的类型与数据池以生成任务的形式缓存，同一个键只会生成一次，等待中的线程获取先到达的线程的生成结果，不同的键可以在不同的线程上同时生成
+  private final ConcurrentHashMap<ClassImplements<?>, Generation<Class<?>>> classPool = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Class<?>, Generation<DataPool>> classPoolsMap = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<FunctionType, Constructor<?>>> constructors = new ConcurrentHashMap<>();
 
-  private final HashMap<Class<?>, DataPool> wrapClassPoolMap = new HashMap<>();
+  private final ConcurrentHashMap<Class<?>, Generation<DataPool>> wrapClassPoolMap = new ConcurrentHashMap<>();
+
+  /**动态类型在各个委托类型上的实例共享的数据池*/
+  private final Map<DynamicClass, ConcurrentHashMap<Class<?>, DataPool>> instancePools = Collections.synchronizedMap(new WeakHashMap<>());
+
+  /**启用了变量字段的动态类型，及其在各个委托类型上生成的具有变量字段的类型*/
+  private final Map<DynamicClass, ConcurrentHashMap<Class<?>, Generation<Class<?>>>> fieldClassPool = Collections.synchronizedMap(new WeakHashMap<>());
 
   /**
    * 创建一个实例，并传入其要使用的{@linkplain JavaHandleHelper java行为支持器}，子类引用此构造器可能直接设置默认的行为支持器而无需外部传入
@@ -118,6 +165,89 @@ public abstract class DynamicMaker {
     classPoolsMap.clear();
     constructors.clear();
     wrapClassPoolMap.clear();
+    instancePools.clear();
+    synchronized (fieldClassPool) {
+      fieldClassPool.values().forEach(Map::clear);
+    }
+  }
+
+  /**
+   * 从生成任务缓存中获取键对应的生成结果，若键尚未生成则在当前线程上执行生成，其他线程获取同一个键时等待此次生成完成，而不会重复生成。
+   * <p>生成在缓存的锁之外执行，因此生成过程中可以递归地获取其他键，生成失败时任务会从缓存中移除，此后获取此键会重新尝试生成
+   *
+   * @param cache     生成任务缓存
+   * @param key       生成的键
+   * @param generator 生成结果的函数
+   * @return 键对应的生成结果
+   * @throws IllegalHandleException 若生成过程中在同一个线程上递归地获取了同一个键
+   */
+  private static <K, V> V generate(ConcurrentHashMap<K, Generation<V>> cache, K key, Supplier<V> generator) {
+    Generation<V> task = cache.get(key);
+    if (task == null) {
+      Generation<V> created = new Generation<>();
+      task = cache.putIfAbsent(key, created);
+
+      if (task == null) {
+        try {
+          V res = generator.get();
+          created.complete(res);
+          return res;
+        } catch (RuntimeException | Error e) {
+          cache.remove(key, created);
+          created.completeExceptionally(e);
+          throw e;
+        }
+      }
+    }
+
+    if (!task.isDone() && task.owner == Thread.currentThread())
+      throw new IllegalHandleException("recursive generation of " + key);
+
+    try {
+      return task.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IllegalHandleException h) throw h;
+      throw new IllegalHandleException(e.getCause());
+    }
+  }
+
+  /**
+   * 为动态类型启用变量字段，此后以该动态类型构造的实例，其类型会为动态类型（包括其超类）中声明的每一个{@linkplain FieldVariable 变量}生成一个java字段，
+   * 变量的读写直接访问字段，基本类型的变量以相应的基本类型字段保存，不需要包装对象。
+   * <p>具有变量字段的类型在第一次以此动态类型构造实例时生成，此后向动态类型中新增的变量，以及对象自行定义的变量，仍然保存在对象的{@linkplain VarShape 变量布局}中。
+   * <p>每一个启用了变量字段的动态类型都会在其使用的每一个委托类型上各生成一个类型，因此仅应当对实例数量较多、变量访问频繁的动态类型启用
+   *
+   * @param dynamicClass 启用变量字段的动态类型
+   */
+  public void enableVariableFields(DynamicClass dynamicClass) {
+    if (fieldClassPool.putIfAbsent(dynamicClass, new ConcurrentHashMap<>()) == null) releaseOnDelete(dynamicClass);
+  }
+
+  /**
+   * 在动态类型被{@linkplain DynamicClass#delete() 删除}时释放此生成器为其缓存的数据池与变量字段类型，释放操作只弱引用此生成器
+   */
+  private void releaseOnDelete(DynamicClass dynamicClass) {
+    WeakReference<DynamicMaker> ref = new WeakReference<>(this);
+    dynamicClass.onRelease(() -> {
+      DynamicMaker maker = ref.get();
+      if (maker != null) maker.release(dynamicClass);
+    });
+  }
+
+  private void release(DynamicClass dynamicClass) {
+    instancePools.remove(dynamicClass);
+
+    ConcurrentHashMap<Class<?>, Generation<Class<?>>> fieldClasses = fieldClassPool.remove(dynamicClass);
+    if (fieldClasses == null) return;
+
+    for (Map.Entry<Class<?>, Generation<Class<?>>> entry : fieldClasses.entrySet()) {
+      Class<?> fieldClass = entry.getValue().getNow(null);
+      //没有变量字段时使用的是共享的动态委托类型本身，不能释放
+      if (fieldClass == null || fieldClass == entry.getKey()) continue;
+
+      classPoolsMap.remove(fieldClass);
+      constructors.remove(fieldClass);
+    }
   }
 
   /**将传入的对象包装为一个{@link WrappedObject}*/
@@ -136,7 +266,7 @@ public abstract class DynamicMaker {
     DataPool res = null;
     for (Class<?> clazz : l){
       DataPool fr = res;
-      res = wrapClassPoolMap.computeIfAbsent(clazz, c -> {
+      res = generate(wrapClassPoolMap, clazz, () -> {
         DataPool r = new DataPool(fr);
 
         for (Method method : clazz.getDeclaredMethods()) {
@@ -218,19 +348,22 @@ public abstract class DynamicMaker {
    * @param dynamicClass 用于实例化的动态类型
    * @param args         构造函数实参
    * @return 构造出的动态实例
-   * @throws IllegalHandleException 若构造函数实参无法匹配到相应的构造器，或者有抽象方法未被处理
+   * @throws IllegalHandleException 若构造函数实参无法匹配到相应的构造器，或者有抽象方法未被处理，或者动态类型已被删除
    * @see AspectInterface
    */
   @SuppressWarnings("unchecked")
   public <T> DynamicObject<T> newInstance(Class<T> base, Class<?>[] interfaces, Class<?>[] aspects, DynamicClass dynamicClass, Object... args) {
     checkBase(base);
+    if (dynamicClass.isObsoleted())
+      throw new IllegalHandleException("cannot instantiate a deleted dynamic class " + dynamicClass);
 
     Class<? extends T> clazz = getDynamicBase(base, interfaces, aspects);
+    if (fieldClassPool.containsKey(dynamicClass)) clazz = getFieldBase(clazz, dynamicClass);
     try {
       List<Object> argsLis = new ArrayList<>(Arrays.asList(
           dynamicClass,
           genPool(clazz, dynamicClass),
-          classPoolsMap.get(clazz)
+          classPoolsMap.get(clazz).join()
       ));
       argsLis.addAll(Arrays.asList(args));
 
@@ -246,22 +379,187 @@ public abstract class DynamicMaker {
       if (cstr == null)
         throw new NoSuchMethodError("no matched constructor found with parameter " + Arrays.toString(args));
 
-      FunctionType type = FunctionType.inst(cstr.getParameterTypes());
       Constructor c = cstr;
-      DynamicObject<T> inst = (DynamicObject<T>) constructors.computeIfAbsent(clazz, e -> new HashMap<>())
-          .computeIfAbsent(type, t -> {
+      return (DynamicObject<T>) constructors.computeIfAbsent(clazz, e -> new ConcurrentHashMap<>())
+          .computeIfAbsent(FunctionType.intern(cstr.getParameterTypes()), t -> {
             helper.makeAccess(c);
             return c;
           }).newInstance(argsLis.toArray());
-
-      type.recycle();
-
-      return inst;
     } catch (Throwable e) {
       throw new IllegalHandleException(e);
     }
   }
 
+  /**
+   * 对一组动态对象批量执行同一函数，函数的符号、形参类型与实参列表在整个批次中只构造一次，而不是每个对象各自构造一次。
+   * <p>每个对象的函数入口经由符号的缓存选择，迭代顺序上连续的、解析到同一函数入口的对象共用已解析的函数，
+   * 因此批量调用时同一类型的对象应当尽量相邻。实参不多于4个时以{@link Function#invoke0(DynamicObject, FunctionType)}等方法调用，不会构造实参列表。
+   * <p>执行结果按集合的迭代顺序写入给出的数组
+   *
+   * @param objects 执行函数的动态对象集合
+   * @param symbol  函数符号，实参数量必须与符号的形参数量一致
+   * @param results 接收返回值的数组，长度不得小于对象的数量，为null时丢弃返回值
+   * @param args    传递给函数的实参，由批次中的所有调用共享
+   * @return 传入的结果数组
+   * @throws IllegalHandleException 若有对象不具有此函数
+   */
+  public static <R> R[] invokeAll(Collection<? extends DynamicObject<?>> objects, FunctionSymbol symbol, R[] results, Object... args) {
+    DynamicObject<?>[] objs = objects.toArray(new DynamicObject<?>[0]);
+    checkBatch(objs, symbol, results, args);
+
+    invokeRange(objs, resolveAll(objs, symbol, 0, objs.length), 0, objs.length, symbol, results, args);
+    return results;
+  }
+
+  /**
+   * 以函数名称与形参类型批量执行函数，函数符号在批次开始时获取一次
+   *
+   * @see DynamicMaker#invokeAll(Collection, FunctionSymbol, Object[], Object...)
+   */
+  public static <R> R[] invokeAll(Collection<? extends DynamicObject<?>> objects, String name, FunctionType type, R[] results, Object... args) {
+    return invokeAll(objects, FunctionSymbol.of(name, type), results, args);
+  }
+
+  /**
+   * 批量执行函数并将调用分派到给出的{@link ForkJoinPool}中并行执行。所有对象的函数入口在调用线程上预先选择完成，
+   * 工作线程只执行函数本身，每个工作分段各自构造一次实参列表。
+   * <p>函数会在多个线程上同时执行，函数的行为必须是线程安全的
+   *
+   * @param executor 执行调用的线程池
+   * @see DynamicMaker#invokeAll(Collection, FunctionSymbol, Object[], Object...)
+   */
+  public static <R> R[] invokeAll(ForkJoinPool executor, Collection<? extends DynamicObject<?>> objects, FunctionSymbol symbol, R[] results, Object... args) {
+    DynamicObject<?>[] objs = objects.toArray(new DynamicObject<?>[0]);
+    checkBatch(objs, symbol, results, args);
+
+    Function<?, ?>[] funcs = resolveAll(objs, symbol, 0, objs.length);
+    executor.invoke(new BatchTask(objs, funcs, 0, objs.length, symbol, results, args));
+    return results;
+  }
+
+  private static void checkBatch(DynamicObject<?>[] objs, FunctionSymbol symbol, Object[] results, Object[] args) {
+    if (symbol.type().getTypes().length != args.length)
+      throw new IllegalHandleException("argument count " + args.length + " does not match the function " + symbol);
+    if (results != null && results.length < objs.length)
+      throw new IllegalHandleException("result array is too short, require " + objs.length + " but " + results.length);
+  }
+
+  /**
+   * 为批次中的对象选择函数，对象的函数只取决于其数据池，因此以数据池与池的函数版本戳为键，每个键只选择一次函数。
+   * 未共享数据池的对象（例如设置了自身函数的对象）与无法提供数据池的对象仍然各自选择函数
+   */
+  private static Function<?, ?>[] resolveAll(DynamicObject<?>[] objs, FunctionSymbol symbol, int from, int to) {
+    Function<?, ?>[] res = new Function<?, ?>[to - from];
+    IdentityHashMap<DataPool, Resolved> resolved = new IdentityHashMap<>();
+    Resolved last = null;
+    for (int i = from; i < to; i++) {
+      DynamicObject<?> obj = objs[i];
+      DataPool pool = obj.dataPool();
+      if (pool == null) {
+        res[i - from] = resolve(obj, symbol);
+        continue;
+      }
+
+      //先读取版本戳再选择函数，与BoundFunction一致
+      int stamp = pool.functionStamp();
+      Resolved r = last != null && last.pool == pool? last: resolved.get(pool);
+      if (r == null || r.stamp != stamp) {
+        r = new Resolved(pool, stamp, resolve(obj, symbol));
+        resolved.put(pool, r);
+      }
+
+      last = r;
+      res[i - from] = r.function;
+    }
+
+    return res;
+  }
+
+  private static Function<?, ?> resolve(DynamicObject<?> obj, FunctionSymbol symbol) {
+    IFunctionEntry entry = obj.getFunc(symbol);
+    if (entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.getFunction();
+  }
+
+  private static class Resolved {
+    final DataPool pool;
+    final int stamp;
+    final Function<?, ?> function;
+
+    Resolved(DataPool pool, int stamp, Function<?, ?> function) {
+      this.pool = pool;
+      this.stamp = stamp;
+      this.function = function;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void invokeRange(DynamicObject<?>[] objs, Function<?, ?>[] funcs, int from, int to, FunctionSymbol symbol, Object[] results, Object[] args) {
+    FunctionType type = symbol.type();
+    ArgumentList lis = args.length > 4? ArgumentList.asWithType(type, args): null;
+
+    try {
+      for (int i = from; i < to; i++) {
+        DynamicObject<Object> self = (DynamicObject<Object>) objs[i];
+        Function<Object, Object> func = (Function<Object, Object>) funcs[i];
+
+        Object res = switch (args.length) {
+          case 0 -> func.invoke0(self, type);
+          case 1 -> func.invoke1(self, type, args[0]);
+          case 2 -> func.invoke2(self, type, args[0], args[1]);
+          case 3 -> func.invoke3(self, type, args[0], args[1], args[2]);
+          case 4 -> func.invoke4(self, type, args[0], args[1], args[2], args[3]);
+          default -> func.invoke(self, lis);
+        };
+
+        if (results != null) results[i] = res;
+      }
+    } finally {
+      if (lis != null) lis.recycle();
+    }
+  }
+
+  /**
+   * 并行批量调用的工作分段，分段长度不大于{@link BatchTask#THRESHOLD}时在当前线程上直接执行
+   */
+  @SuppressWarnings("serial")
+  private static class BatchTask extends RecursiveAction {
+    private static final int THRESHOLD = 1024;
+
+    private final DynamicObject<?>[] objs;
+    private final Function<?, ?>[] funcs;
+    private final int from, to;
+    private final FunctionSymbol symbol;
+    private final Object[] results;
+    private final Object[] args;
+
+    BatchTask(DynamicObject<?>[] objs, Function<?, ?>[] funcs, int from, int to, FunctionSymbol symbol, Object[] results, Object[] args) {
+      this.objs = objs;
+      this.funcs = funcs;
+      this.from = from;
+      this.to = to;
+      this.symbol = symbol;
+      this.results = results;
+      this.args = args;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= THRESHOLD) {
+        invokeRange(objs, funcs, from, to, symbol, results, args);
+        return;
+      }
+
+      int mid = (from + to) >>> 1;
+      invokeAll(
+          new BatchTask(objs, funcs, from, mid, symbol, results, args),
+          new BatchTask(objs, funcs, mid, to, symbol, results, args)
+      );
+    }
+  }
+
   /**
    * 获取此maker的{@linkplain JavaHandleHelper java行为支持器}
    */
@@ -281,14 +579,16 @@ public abstract class DynamicMaker {
   }
 
   /**
-   * 生成动态类型相应的数据池，数据池完成动态类型向上对超类的迭代逐级分配数据池信息，同时对委托产生的动态类型生成所有方法和字段的函数/变量入口并放入数据池
+   * 生成动态类型相应的数据池，数据池完成动态类型向上对超类的迭代逐级分配数据池信息，同时对委托产生的动态类型生成所有方法和字段的函数/变量入口并放入数据池。
+   * <p>数据池由以同一动态类型和委托类型构造的实例共享，实例设置自身的函数或变量时才会{@linkplain DataPool#promote() 取得独占的池}
    *
    * @param base         动态委托类
    * @param dynamicClass 描述行为的动态类型
    * @return 生成的动态类型数据池
    */
   protected <T> DataPool genPool(Class<? extends T> base, DynamicClass dynamicClass) {
-    DataPool basePool = classPoolsMap.computeIfAbsent(base, clazz -> {
+    DataPool basePool = generate(classPoolsMap, base, () -> {
+      Class<?> clazz = base;
       AtomicBoolean immutable = new AtomicBoolean();
       DataPool res = new DataPool(null) {
         @Override
@@ -314,12 +614,16 @@ public abstract class DynamicMaker {
           for (Method method : curr.getDeclaredMethods()) {
             DynamicMethod callSuper = method.getAnnotation(DynamicMethod.class);
             if (callSuper != null) {
-              String signature = FunctionType.signature(method.getName(), method.getParameterTypes());
-              res.setFunction(
-                  method.getName(),
-                  (self, args) -> ((SuperInvoker) self).invokeSuper(signature, args.args()),
-                  method.getParameterTypes()
-              );
+              int superId = callSuper.superId();
+              Function<?, ?> superFunc;
+              if (superId >= 0) {
+                superFunc = (self, args) -> ((SuperInvoker) self).invokeSuper(superId, args.args());
+              } else {
+                String signature = FunctionType.signature(method.getName(), method.getParameterTypes());
+                superFunc = (self, args) -> ((SuperInvoker) self).invokeSuper(signature, args.args());
+              }
+
+              res.setFunction(method.getName(), superFunc, method.getParameterTypes());
             }
           }
           curr = curr.getSuperclass();
@@ -339,7 +643,17 @@ public abstract class DynamicMaker {
       return res;
     });
 
-    return dynamicClass.genPool(basePool);
+    ConcurrentHashMap<Class<?>, DataPool> pools = instancePools.get(dynamicClass);
+    if (pools == null) {
+      ConcurrentHashMap<Class<?>, DataPool> created = new ConcurrentHashMap<>();
+      pools = instancePools.putIfAbsent(dynamicClass, created);
+      if (pools == null) {
+        pools = created;
+        releaseOnDelete(dynamicClass);
+      }
+    }
+
+    return pools.computeIfAbsent(base, e -> dynamicClass.genPool(basePool));
   }
 
   private static boolean isInternalField(String name) {
@@ -354,7 +668,7 @@ public abstract class DynamicMaker {
    */
   @SuppressWarnings("unchecked")
   protected <T> Class<? extends T> getDynamicBase(Class<T> base, Class<?>[] interfaces, Class<?>[] aspects) {
-    return (Class<? extends T>) classPool.computeIfAbsent(new ClassImplements<>(base, interfaces, aspects), e -> {
+    return (Class<? extends T>) generate(classPool, new ClassImplements<>(base, interfaces, aspects), () -> {
       Class<?> c = base;
 
       while (c != null) {
@@ -366,6 +680,46 @@ public abstract class DynamicMaker {
     });
   }
 
+  /**
+   * 获取在动态委托类型上为动态类型声明的变量生成了变量字段的类型，类型会生成并放入池，下一次获取会直接从池中取出该类型
+   *
+   * @param dynamicBase  动态委托类型
+   * @param dynamicClass 启用了变量字段的动态类型
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> Class<? extends T> getFieldBase(Class<? extends T> dynamicBase, DynamicClass dynamicClass) {
+    return (Class<? extends T>) generate(fieldClassPool.get(dynamicClass), dynamicBase, () -> {
+      Class<? extends T> b = dynamicBase;
+      FieldVariable[] variables = fieldVariables(dynamicClass);
+      if (variables.length == 0) return b;
+
+      Class<?> res = generateFieldClass(b, variables);
+      try {
+        res.getField(FIELD_VARIABLES).set(null, variables);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalHandleException(e);
+      }
+
+      return res;
+    });
+  }
+
+  /**
+   * 收集动态类型层次结构中声明的变量，同名变量以距离动态类型最近的声明为准
+   */
+  private static FieldVariable[] fieldVariables(DynamicClass dynamicClass) {
+    HashSet<String> names = new HashSet<>();
+    ArrayList<FieldVariable> res = new ArrayList<>();
+
+    for (DynamicClass curr = dynamicClass; curr != null; curr = curr.superDyClass()) {
+      for (IVariable variable : curr.getVariables()) {
+        if (names.add(variable.name()) && variable instanceof FieldVariable f) res.add(f);
+      }
+    }
+
+    return res.toArray(new FieldVariable[0]);
+  }
+
   /**
    * 由基类与接口列表建立动态类的打包名称，打包名称具有唯一性（或者足够高的离散性，不应出现频繁的碰撞）和不变性
    *
@@ -398,23 +752,23 @@ public abstract class DynamicMaker {
       inter.add(asType(i));
     }
 
-    INTERFACE_STACK.clear();
-    INTERFACE_TEMP.clear();
+    ArrayDeque<Class<?>> interfaceStack = new ArrayDeque<>();
+    HashSet<Class<?>> interfaceTemp = new HashSet<>();
     HashMap<String, HashMap<FunctionType, FuzzyMatcher>> aspectPoints = new HashMap<>();
     if (aspects != null) {
       for (Class<?> i : aspects) {
         inter.add(asType(i));
-        INTERFACE_STACK.push(i);
+        interfaceStack.push(i);
       }
 
-      while (!INTERFACE_STACK.isEmpty()) {
-        Class<?> i = INTERFACE_STACK.pop();
+      while (!interfaceStack.isEmpty()) {
+        Class<?> i = interfaceStack.pop();
         if (i.getAnnotation(AspectInterface.class) == null)
           throw new IllegalHandleException("aspect interfaces must has AspectInterface annotated, but " + i + " doesn't");
 
-        if (INTERFACE_TEMP.add(i)) {
+        if (interfaceTemp.add(i)) {
           for (Class<?> ai : i.getInterfaces()) {
-            INTERFACE_STACK.push(ai);
+            interfaceStack.push(ai);
           }
 
           for (Method method : i.getMethods()) {
@@ -457,6 +811,7 @@ public abstract class DynamicMaker {
         asType(baseClass),
         inter.toArray(new ClassInfo[0])
     );
+    IField<DataPool> dataPool = dataPoolField(baseClass);
     FieldInfo<HashMap> methodIndex = classInfo.declareField(
         Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL,
         "$methodIndex$",
@@ -473,6 +828,8 @@ public abstract class DynamicMaker {
     clinit.assign(null, caseIndex, methodIndex);
 
     HashMap<IMethod<?, ?>, Integer> callSuperCaseMap = new HashMap<>();
+    //超方法编号接续在动态超类的编号之后，未被此类处理的编号会传递给超类的invokeSuper
+    int superIdBase = superIdBase(baseClass);
 
     // public <init>(*parameters*){
     //   super(*parameters*);
@@ -492,20 +849,19 @@ public abstract class DynamicMaker {
       code.invokeSuper(code.getThis(), constructor, null, code.getParamList().toArray(new ILocal<?>[0]));
     }
 
-    OVERRIDES.clear();
-    FINALS.clear();
+    MethodFilter filter = new MethodFilter();
 
     //排除已被标识为final的方法，由于继续委托的类型不向上迭代，提前将final方法排除
     Class<?> curr = baseClass;
     while (curr != null) {
       for (Method method : curr.getDeclaredMethods()) {
-        filterMethod(method);
+        filter.filterMethod(method);
       }
 
       curr = curr.getSuperclass();
     }
 
-    OVERRIDES.clear();
+    filter.overrides.clear();
 
     //仅处理新实现的接口以及切面接口
     ArrayList<Class<?>> lis = new ArrayList<>(Arrays.asList(interfaces));
@@ -514,7 +870,7 @@ public abstract class DynamicMaker {
     for (Class<?> interf : lis) {
       ClassInfo<?> typeClass = asType(interf);
       for (Method method : interf.getDeclaredMethods()) {
-        if (!filterMethod(method)) continue;
+        if (!filter.filterMethod(method)) continue;
 
         String methodName = method.getName();
         ClassInfo<?> returnType = asType(method.getReturnType());
@@ -527,7 +883,7 @@ public abstract class DynamicMaker {
 
         if (!aspectPoints.containsKey(ANY) && !aspectPoints.getOrDefault(method.getName(), EMP_MAP).containsKey(FunctionType.from(method))
             && aspectPoints.getOrDefault(method.getName(), ((HashMap<FunctionType, FuzzyMatcher>) EMP_MAP)).values().stream().noneMatch(e -> e.match(method,
-            INTERFACE_TEMP.contains(interf),
+            interfaceTemp.contains(interf),
             superMethod == null))
         ){
           if (superMethod == null)
@@ -536,7 +892,7 @@ public abstract class DynamicMaker {
           continue;
         }
 
-        if (superMethod != null) callSuperCaseMap.put(superMethod, callSuperCaseMap.size());
+        if (superMethod != null) callSuperCaseMap.put(superMethod, superIdBase + callSuperCaseMap.size());
 
         String typeF = methodName + "$" + FunctionType.typeNameHash(method.getParameterTypes());
         FieldInfo<FunctionType> funType = classInfo.declareField(
@@ -558,9 +914,13 @@ public abstract class DynamicMaker {
 
         // @DynamicMethod
         // public *returnType* *name*(*parameters*){
-        //   *[return]* this.invokeFunc(FUNCTION_TYPE$*signature* ,"*name*", parameters);
+        //   ArgumentList args = ArgumentList.prepare(FUNCTION_TYPE$*signature*);
+        //   args.set*Type*(*index*, *parameter*);
+        //   ...
+        //   *[return]* invokedynamic *name*(this, this.$datapool$, args) [FunctionLinker.bootstrap, "FUNCTION_TYPE$*signature*"];
+        //   args.recycle();
         // }
-        invokeProxy(classInfo, method, methodName, returnType, funType);
+        invokeProxy(classInfo, method, methodName, returnType, funType, dataPool, index == null? -1: index);
       }
     }
 
@@ -623,6 +983,16 @@ public abstract class DynamicMaker {
       code.returnValue(stack(OBJECT_TYPE));
     }
 
+    // public Object invokeSuper(int methodId, Object... args){
+    //   switch(methodId){
+    //     ...
+    //     case *id*: return super.*method*(args[0], args[1],...);
+    //     ...
+    //   }
+    //   return super.invokeSuper(methodId, args);
+    // }
+    genCallSuperById(classInfo, callSuperCaseMap, true);
+
     return classInfo;
   }
 
@@ -649,26 +1019,26 @@ public abstract class DynamicMaker {
       inter.add(asType(i));
     }
 
-    INTERFACE_STACK.clear();
-    INTERFACE_TEMP.clear();
+    ArrayDeque<Class<?>> interfaceStack = new ArrayDeque<>();
+    HashSet<Class<?>> interfaceTemp = new HashSet<>();
     HashMap<String, HashMap<FunctionType, FuzzyMatcher>> aspectPoints = new HashMap<>();
     if (aspects != null) {
       for (Class<?> i : aspects) {
         inter.add(asType(i));
-        INTERFACE_STACK.push(i);
+        interfaceStack.push(i);
       }
 
-      while (!INTERFACE_STACK.isEmpty()) {
-        Class<?> i = INTERFACE_STACK.pop();
+      while (!interfaceStack.isEmpty()) {
+        Class<?> i = interfaceStack.pop();
         if (!i.isInterface())
           throw new IllegalHandleException("aspects must be interface, but find class: " + i);
 
         if (i.getAnnotation(AspectInterface.class) == null)
           throw new IllegalHandleException("aspect interfaces must has AspectInterface annotated, but " + i + " doesn't");
 
-        if (INTERFACE_TEMP.add(i)) {
+        if (interfaceTemp.add(i)) {
           for (Class<?> ai : i.getInterfaces()) {
-            INTERFACE_STACK.push(ai);
+            interfaceStack.push(ai);
           }
 
           for (Method method : i.getMethods()) {
@@ -719,19 +1089,31 @@ public abstract class DynamicMaker {
         null
     );
     FieldInfo<DataPool> dataPool = classInfo.declareField(
-        Modifier.PRIVATE | Modifier.FINAL,
+        Modifier.PROTECTED | Modifier.VOLATILE,
         "$datapool$",
         DATA_POOL_TYPE,
         null
     );
-    FieldInfo<HashMap<String, Object>> varPool = (FieldInfo) classInfo.declareField(
-        Modifier.PRIVATE | Modifier.FINAL,
-        "$varValuePool$",
-        HASH_MAP_TYPE,
+    FieldInfo<AtomicReferenceFieldUpdater> poolUpdater = classInfo.declareField(
+        Modifier.PRIVATE | Modifier.STATIC | Modifier.FINAL,
+        "$datapool$updater$",
+        POOL_UPDATER_TYPE,
+        null
+    );
+    FieldInfo<VarShape> varShape = classInfo.declareField(
+        Modifier.PRIVATE,
+        "$varShape$",
+        VAR_SHAPE_TYPE,
+        null
+    );
+    FieldInfo<Object[]> varSlots = classInfo.declareField(
+        Modifier.PRIVATE,
+        "$varSlots$",
+        OBJECT_TYPE.asArray(),
         null
     );
     FieldInfo<DataPool.ReadOnlyPool> basePoolPointer = classInfo.declareField(
-        Modifier.PRIVATE | Modifier.FINAL,
+        Modifier.PRIVATE,
         "$superbasepointer$",
         READONLY_POOL_TYPE,
         null
@@ -751,14 +1133,19 @@ public abstract class DynamicMaker {
     );
     clinit.assign(null, caseIndex, methodIndex);
 
+    // $datapool$updater$ = AtomicReferenceFieldUpdater.newUpdater(*this class*.class, DataPool.class, "$datapool$");
+    clinit.loadConstant((ILocal) stack(CLASS_TYPE), classInfo);
+    clinit.loadConstant(stack(CLASS_TYPE), DataPool.class);
+    clinit.loadConstant(stack(STRING_TYPE), "$datapool$");
+    clinit.invokeStatic(NEW_POOL_UPDATER, stack(POOL_UPDATER_TYPE), stack(CLASS_TYPE), stack(CLASS_TYPE), stack(STRING_TYPE));
+    clinit.assign(null, stack(POOL_UPDATER_TYPE), poolUpdater);
+
     HashMap<IMethod<?, ?>, Integer> callSuperCaseMap = new HashMap<>();
 
     // public <init>(DynamicClass $dyC$, DataPool $datP$, DataPool.ReadOnlyPool $basePool$, *parameters*){
     //   this.$dynamic_type$ = $dyC$;
     //   this.$datapool$ = $datP$;
-    //   this.$varValuePool$ = new HashMap<>();
     //   super(*parameters*);
-    //   this.$superbasepointer$ = $datapool$.getReader(this);
     //
     //   this.$datapool$.init(this, *parameters*);
     // }
@@ -785,15 +1172,8 @@ public abstract class DynamicMaker {
       code.assign(self, dyC, dyType);
       code.assign(self, datP, dataPool);
 
-      code.assign(self, stack(classInfo));
-      code.newInstance(HASH_MAP_TYPE.getConstructor(), stack(HASH_MAP_TYPE));
-      code.assign(stack(classInfo), stack(HASH_MAP_TYPE), varPool);
-
       code.invokeSuper(self, constructor, null, l.subList(3, l.size()).toArray(LOCALS_EMP));
-
-      code.assign(self, stack(classInfo));
-      code.invoke(code.getParam(3), GET_READER, stack(READONLY_POOL_TYPE), self);
-      code.assign(stack(classInfo), stack(READONLY_POOL_TYPE), basePoolPointer);
+      //基类池的只读指针在首次使用时才由数据池创建，$basePool$参数仅为保持构造器的签名而保留
 
       ILocal<Object[]> argList = code.local(OBJECT_TYPE.asArray());
       code.loadConstant(stack(INT_TYPE), cstr.getParameterCount());
@@ -810,29 +1190,27 @@ public abstract class DynamicMaker {
       code.invoke(null, RECYCLE_LIST, null, argList);
     }
 
-    OVERRIDES.clear();
-    FINALS.clear();
-    INTERFACE_TEMP.clear();
+    MethodFilter filter = new MethodFilter();
 
     ArrayList<Class<?>> lis = new ArrayList<>(Arrays.asList(interfaces));
     if (aspects != null) lis.addAll(Arrays.asList(aspects));
 
     for (Class<?> ic : lis) {
-      INTERFACE_STACK.push(ic);
-      INTERFACE_TEMP.add(ic);
+      interfaceStack.push(ic);
+      interfaceTemp.add(ic);
     }
 
     Class<?> curr = baseClass;
-    while (curr != null || !INTERFACE_STACK.empty()) {
+    while (curr != null || !interfaceStack.isEmpty()) {
       if (curr != null) {
         for (Class<?> i : curr.getInterfaces()) {
-          if (INTERFACE_TEMP.add(i)) INTERFACE_STACK.push(i);
+          if (interfaceTemp.add(i)) interfaceStack.push(i);
         }
-      } else curr = INTERFACE_STACK.pop();
+      } else curr = interfaceStack.pop();
 
       ClassInfo<?> typeClass = asType(curr);
       for (Method method : curr.getDeclaredMethods()) {
-        if (!filterMethod(method)) continue;
+        if (!filter.filterMethod(method)) continue;
 
         String methodName = method.getName();
         ClassInfo<?> returnType = asType(method.getReturnType());
@@ -846,7 +1224,7 @@ public abstract class DynamicMaker {
         Class<?> finalCurr = curr;
         if (!aspectPoints.containsKey(ANY) && !aspectPoints.getOrDefault(method.getName(), EMP_MAP).containsKey(FunctionType.from(method))
             && aspectPoints.getOrDefault(method.getName(), ((HashMap<FunctionType, FuzzyMatcher>) EMP_MAP)).values().stream().noneMatch(e -> e.match(method,
-              finalCurr == baseClass || INTERFACE_TEMP.contains(finalCurr),
+              finalCurr == baseClass || interfaceTemp.contains(finalCurr),
               superMethod == null
             ))
         ) {
@@ -878,9 +1256,13 @@ public abstract class DynamicMaker {
 
         // @DynamicMethod
         // public *returnType* *name*(*parameters*){
-        //   *[return]* this.invokeFunc(FUNCTION_TYPE$*signature* ,"*name*", parameters);
+        //   ArgumentList args = ArgumentList.prepare(FUNCTION_TYPE$*signature*);
+        //   args.set*Type*(*index*, *parameter*);
+        //   ...
+        //   *[return]* invokedynamic *name*(this, this.$datapool$, args) [FunctionLinker.bootstrap, "FUNCTION_TYPE$*signature*"];
+        //   args.recycle();
         // }
-        invokeProxy(classInfo, method, methodName, returnType, funType);
+        invokeProxy(classInfo, method, methodName, returnType, funType, dataPool, index == null? -1: index);
       }
 
       if (!curr.isInterface()) {
@@ -897,8 +1279,20 @@ public abstract class DynamicMaker {
     // }
     genCallSuper(classInfo, methodIndex, callSuperCaseMap);
 
+    // public Object invokeSuper(int methodId, Object... args){
+    //   switch(methodId){
+    //     ...
+    //     case *id*: return super.*method*(args[0], args[1],...);
+    //     ...
+    //   }
+    //   throw new NoSuchMethodException("no such method in baseclass with id " + methodId);
+    // }
+    genCallSuperById(classInfo, callSuperCaseMap, false);
+
     // public DataPool.ReadOnlyPool baseSuperPool(){
-    //   return this.$superbasepointer$;
+    //   DataPool.ReadOnlyPool res = this.$superbasepointer$;
+    //   if(res != null) return res;
+    //   return this.$superbasepointer$ = this.$datapool$.getBaseReader(this);
     // }
     {
       CodeBlock<DataPool.ReadOnlyPool> code = classInfo.declareMethod(
@@ -906,8 +1300,20 @@ public abstract class DynamicMaker {
           "baseSuperPointer",
           READONLY_POOL_TYPE
       );
-      code.assign(code.getThis(), basePoolPointer, stack(READONLY_POOL_TYPE));
-      code.returnValue(stack(READONLY_POOL_TYPE));
+      ILocal<DataPool.ReadOnlyPool> res = code.local(READONLY_POOL_TYPE);
+      ILocal<DataPool.ReadOnlyPool> nul = code.local(READONLY_POOL_TYPE);
+      Label init = code.label();
+
+      code.assign(code.getThis(), basePoolPointer, res);
+      code.loadConstant(nul, null);
+      code.compare(res, ICompare.Comparison.EQUAL, nul, init);
+      code.returnValue(res);
+
+      code.markLabel(init);
+      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
+      code.invoke(stack(DATA_POOL_TYPE), GET_BASE_READER, res, code.getThis());
+      code.assign(code.getThis(), res, basePoolPointer);
+      code.returnValue(res);
     }
 
     // public DynamicClass<Self> getDyClass(){
@@ -923,36 +1329,61 @@ public abstract class DynamicMaker {
       code.returnValue(stack(DYNAMIC_CLASS_TYPE));
     }
 
-    // public <T> T varValueGet(String name){
-    //   return this.$varValuePool$.get(name);
+    // public DataPool dataPool(){
+    //   return this.$datapool$;
     // }
     {
-      CodeBlock<Object> code = classInfo.declareMethod(
+      CodeBlock<DataPool> code = classInfo.declareMethod(
           Modifier.PUBLIC,
-          "varValueGet",
-          OBJECT_TYPE,
-          Parameter.trans(STRING_TYPE)
+          "dataPool",
+          DATA_POOL_TYPE
       );
-      code.assign(code.getThis(), varPool, stack(HASH_MAP_TYPE));
-      code.invoke(stack(HASH_MAP_TYPE), MAP_GET, stack(OBJECT_TYPE), code.getRealParam(0));
-      code.returnValue(stack(OBJECT_TYPE));
+      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
+      code.returnValue(stack(DATA_POOL_TYPE));
     }
 
-    // public <T> varValueSet(String name, Object value){
-    //   return this.$varValuePool$.put(name, value);
+    // public VarShape varShape(){
+    //   return this.$varShape$;
+    // }
+    {
+      CodeBlock<VarShape> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "varShape",
+          VAR_SHAPE_TYPE
+      );
+      code.assign(code.getThis(), varShape, stack(VAR_SHAPE_TYPE));
+      code.returnValue(stack(VAR_SHAPE_TYPE));
+    }
+
+    // public Object[] varSlots(){
+    //   return this.$varSlots$;
+    // }
+    {
+      CodeBlock<Object[]> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "varSlots",
+          OBJECT_TYPE.asArray()
+      );
+      code.assign(code.getThis(), varSlots, stack(OBJECT_TYPE.asArray()));
+      code.returnValue(stack(OBJECT_TYPE.asArray()));
+    }
+
+    // public void setVarLayout(VarShape shape, Object[] slots){
+    //   this.$varShape$ = shape;
+    //   this.$varSlots$ = slots;
     // }
     {
       CodeBlock<Void> code = classInfo.declareMethod(
           Modifier.PUBLIC,
-          "varValueSet",
+          "setVarLayout",
           VOID_TYPE,
-          Parameter.trans(
-              STRING_TYPE,
-              OBJECT_TYPE
+          Parameter.as(
+              0, VAR_SHAPE_TYPE, "shape",
+              0, OBJECT_TYPE.asArray(), "slots"
           )
       );
-      code.assign(code.getThis(), varPool, stack(HASH_MAP_TYPE));
-      code.invoke(stack(HASH_MAP_TYPE), MAP_PUT, null, code.getRealParam(0), code.getRealParam(1));
+      code.assign(code.getThis(), code.getParam(1), varShape);
+      code.assign(code.getThis(), code.getParam(2), varSlots);
     }
 
     // public IVariable getVariable(String name){
@@ -970,8 +1401,23 @@ public abstract class DynamicMaker {
       code.returnValue(stack(VAR_TYPE));
     }
 
+    // public IVariable getVariable(VarSymbol symbol){
+    //   return this.$datapool$.getVariable(symbol);
+    // }
+    {
+      CodeBlock<IVariable> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "getVariable",
+          VAR_TYPE,
+          Parameter.as(0, VAR_SYMBOL_TYPE, "symbol")
+      );
+      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
+      code.invoke(stack(DATA_POOL_TYPE), GET_VAR_SYMBOL, stack(VAR_TYPE), code.getParam(1));
+      code.returnValue(stack(VAR_TYPE));
+    }
+
     // public <T> void setVariable(IVariable var){
-    //   this.$datapool$.setVariable(var);
+    //   (this.$datapool$ = this.$datapool$.promote()).setVariable(var);
     // }
     {
       CodeBlock<Void> code = classInfo.declareMethod(
@@ -980,8 +1426,8 @@ public abstract class DynamicMaker {
           VOID_TYPE,
           Parameter.as(0, VAR_TYPE, "var")
       );
-      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
-      code.invoke(stack(DATA_POOL_TYPE), SET_VAR, null, code.getParam(1));
+      ILocal<DataPool> pool = promotePool(code, dataPool, poolUpdater);
+      code.invoke(pool, SET_VAR, null, code.getParam(1));
       code.returnVoid();
     }
 
@@ -1004,8 +1450,39 @@ public abstract class DynamicMaker {
       code.returnValue(stack(FUNC_ENTRY_TYPE));
     }
 
+    // public IFunctionEntry getFunc(FunctionSymbol symbol){
+    //   return this.$datapool$.select(symbol);
+    // }
+    {
+      CodeBlock<IFunctionEntry> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "getFunc",
+          FUNC_ENTRY_TYPE,
+          Parameter.as(0, FUNCTION_SYMBOL_TYPE, "symbol")
+      );
+      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
+      code.invoke(stack(DATA_POOL_TYPE), SELECT_SYMBOL, stack(FUNC_ENTRY_TYPE), code.getParam(1));
+      code.returnValue(stack(FUNC_ENTRY_TYPE));
+    }
+
+    // public <R> BoundFunction<Self, R> bind(FunctionSymbol symbol){
+    //   return this.$datapool$.bind(this, symbol);
+    // }
+    //句柄会检查对象当前持有的池，绑定时无需取得独占的池
+    {
+      CodeBlock<BoundFunction> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "bind",
+          BOUND_FUNCTION_TYPE,
+          Parameter.as(0, FUNCTION_SYMBOL_TYPE, "symbol")
+      );
+      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
+      code.invoke(stack(DATA_POOL_TYPE), BIND, stack(BOUND_FUNCTION_TYPE), code.getThis(), code.getParam(1));
+      code.returnValue(stack(BOUND_FUNCTION_TYPE));
+    }
+
     // public <R> void setFunc(String name, Function<Self, R> func, Class<?>... argTypes){
-    //   this.$datapool$.set(name, func, argTypes);
+    //   (this.$datapool$ = this.$datapool$.promote()).set(name, func, argTypes);
     // }
     {
       CodeBlock<Void> code = classInfo.declareMethod(
@@ -1019,12 +1496,12 @@ public abstract class DynamicMaker {
           )
       );
 
-      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
-      code.invoke(stack(DATA_POOL_TYPE), SETFUNC, null, code.getParam(1), code.getParam(2), code.getParam(3));
+      ILocal<DataPool> pool = promotePool(code, dataPool, poolUpdater);
+      code.invoke(pool, SETFUNC, null, code.getParam(1), code.getParam(2), code.getParam(3));
     }
 
     // public <R> void setFunc(String name, Function<Self, R> func, Class<?>... argTypes){
-    //   this.$datapool$.set(name, func, argTypes);
+    //   (this.$datapool$ = this.$datapool$.promote()).set(name, func, argTypes);
     // }
     {
       CodeBlock<Void> code = classInfo.declareMethod(
@@ -1038,9 +1515,7 @@ public abstract class DynamicMaker {
           )
       );
 
-      ILocal<DataPool> pool = code.local(DATA_POOL_TYPE);
-      code.assign(code.getThis(), dataPool, pool);
-
+      ILocal<DataPool> pool = promotePool(code, dataPool, poolUpdater);
       code.invoke(pool, SETFUNC2, null, code.getParam(1), code.getParam(2), code.getParam(3));
     }
 
@@ -1103,6 +1578,67 @@ public abstract class DynamicMaker {
     code.thr(stack(NOSUCH_METHOD));
   }
 
+  @SuppressWarnings("unchecked")
+  private <T> void genCallSuperById(ClassInfo<? extends T> classInfo, HashMap<IMethod<?, ?>, Integer> callSuperCaseMap, boolean onDynamic) {
+    CodeBlock<Object> code = classInfo.declareMethod(
+        Modifier.PUBLIC,
+        "invokeSuper",
+        OBJECT_TYPE,
+        new ClassInfo[]{
+            ClassInfo.asType(NoSuchMethodException.class)
+        },
+        Parameter.trans(
+            INT_TYPE,
+            OBJECT_TYPE.asArray()
+        )
+    );
+
+    Label end = code.label();
+    code.assign(code.getRealParam(0), stack(INT_TYPE));
+    ISwitch<Integer> iSwitch = code.switchDef(stack(INT_TYPE), end);
+
+    ILocal<Object[]> args = code.getRealParam(1);
+    makeSwitch(classInfo, callSuperCaseMap, code, iSwitch, args);
+
+    code.markLabel(end);
+
+    if (onDynamic) {
+      IMethod<T, Object> superCaller = (IMethod<T, Object>) classInfo.superClass().getMethod(OBJECT_TYPE, "invokeSuper", INT_TYPE, OBJECT_TYPE.asArray());
+
+      code.assign(code.getThis(), stack(classInfo));
+      code.invokeSuper(stack(classInfo), superCaller, stack(OBJECT_TYPE), code.getParamList().toArray(new ILocal[0]));
+      code.returnValue(stack(OBJECT_TYPE));
+      return;
+    }
+
+    ILocal<String> msg = code.local(STRING_TYPE);
+    code.invokeStatic(STRING_VALUE_OF, msg, code.getRealParam(0));
+    code.loadConstant(stack(STRING_TYPE), "no such method in baseclass with id ");
+    code.operate(stack(STRING_TYPE), IOperate.OPCode.ADD, msg, msg);
+    code.newInstance(
+        NOSUCH_METHOD.getConstructor(STRING_TYPE),
+        stack(NOSUCH_METHOD),
+        msg
+    );
+    code.thr(stack(NOSUCH_METHOD));
+  }
+
+  /**
+   * 获取在给定的动态类型上继续委托时超方法编号的起始值，即其所有超类中{@link DynamicMethod#superId()}的最大值加一
+   */
+  private static int superIdBase(Class<?> dynamicBase) {
+    int res = 0;
+    Class<?> curr = dynamicBase;
+    while (curr != null) {
+      for (Method method : curr.getDeclaredMethods()) {
+        DynamicMethod dm = method.getAnnotation(DynamicMethod.class);
+        if (dm != null) res = Math.max(res, dm.superId() + 1);
+      }
+      curr = curr.getSuperclass();
+    }
+    return res;
+  }
+
   private static void genCinit(Method method, CodeBlock<Void> clinit, FieldInfo<FunctionType> funType, FieldInfo<HashMap> methodIndex, int callSuperIndex) {
     String signature = FunctionType.signature(method);
     clinit.loadConstant(stack(INT_TYPE), method.getParameterCount());
@@ -1123,7 +1659,7 @@ public abstract class DynamicMaker {
 
     clinit.invoke(
         null,
-        TYPE_INST,
+        TYPE_INTERN,
         stack(FUNCTION_TYPE_TYPE),
         stack(CLASS_TYPE.asArray())
     );
@@ -1152,7 +1688,7 @@ public abstract class DynamicMaker {
   }
 
   @SuppressWarnings("unchecked")
-  private static <T> void invokeProxy(ClassInfo<? extends T> classInfo, Method method, String methodName, ClassInfo<?> returnType, FieldInfo<FunctionType> funType) {
+  private static <T> void invokeProxy(ClassInfo<? extends T> classInfo, Method method, String methodName, ClassInfo<?> returnType, FieldInfo<FunctionType> funType, IField<DataPool> dataPool, int superId) {
     CodeBlock<?> code = classInfo.declareMethod(
         Modifier.PUBLIC,
         methodName,
@@ -1162,58 +1698,172 @@ public abstract class DynamicMaker {
     AnnotationDef<DynamicMethod> anno = new AnnotationDef<>(
         ClassInfo.asType(DynamicMethod.class).asAnnotation(EMP_MAP),
         code.owner(),
-        EMP_MAP
+        superId == -1? EMP_MAP: Collections.singletonMap("superId", superId)
     );
     code.owner().addAnnotation(anno);
 
-    code.loadConstant(stack(INT_TYPE), method.getParameterCount());
-    code.invoke(null, GET_LIST, stack(OBJECT_TYPE.asArray()), stack(INT_TYPE));
+    ClassInfo<?> siteReturn = returnType == INT_TYPE || returnType == LONG_TYPE || returnType == FLOAT_TYPE
+        || returnType == DOUBLE_TYPE || returnType == BOOLEAN_TYPE? returnType: OBJECT_TYPE;
 
-    if (method.getParameterCount() > 0) {
+    //参数不多于4个且均为引用类型时，参数直接传递到调用点，由函数的固定参数数量方法接收
+    if (siteReturn == OBJECT_TYPE && isDirectArgs(method)) {
+      IClass<?>[] argTypes = new IClass<?>[code.getParamList().size() + 2];
+      argTypes[0] = DYNAMIC_OBJECT_TYPE;
+      argTypes[1] = DATA_POOL_TYPE;
+
+      code.assign(code.getThis(), stack(classInfo));
+      code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
       for (int i = 0; i < code.getParamList().size(); i++) {
-        code.assign(stack(OBJECT_TYPE), stack(OBJECT_TYPE.asArray()));
-        code.loadConstant(stack(INT_TYPE), i);
-        code.arrayPut(stack(OBJECT_TYPE.asArray()), stack(INT_TYPE), code.getRealParam(i));
+        ILocal<?> param = code.getRealParam(i);
+        argTypes[i + 2] = OBJECT_TYPE;
+        code.assign((ILocal) param, stack(param.type()));
+      }
+
+      code.invokeDynamic(
+          LINK_FUNCTION,
+          new Object[]{funType.name()},
+          method.getName(),
+          OBJECT_TYPE,
+          argTypes,
+          returnType != VOID_TYPE? stack(OBJECT_TYPE): null,
+          stack(OBJECT_TYPE)
+      );
+
+      if (returnType != VOID_TYPE) {
+        if (returnType != OBJECT_TYPE) code.cast(stack(OBJECT_TYPE), stack(returnType));
+        code.returnValue(stack((IClass) returnType));
       }
+      return;
     }
 
-    ILocal<Object[]> argList = code.local(OBJECT_TYPE.asArray());
-    code.assign(stack(OBJECT_TYPE.asArray()), argList);
+    code.assign(null, funType, stack(FUNCTION_TYPE_TYPE));
+    code.invoke(null, PREPARE_ARGS, stack(ARG_LIST_TYPE), stack(FUNCTION_TYPE_TYPE));
+    ILocal<ArgumentList> argList = code.local(ARG_LIST_TYPE);
+    code.assign(stack(ARG_LIST_TYPE), argList);
 
-    if (returnType != VOID_TYPE) {
-      code.assign(code.getThis(), stack(classInfo));
-      code.assign(null, funType, stack(FUNCTION_TYPE_TYPE));
-      code.loadConstant(stack(STRING_TYPE), method.getName());
-      code.assign(argList, stack(OBJECT_TYPE.asArray()));
+    //基本类型参数保存在参数表的基本类型槽位中，不进行装箱
+    for (int i = 0; i < code.getParamList().size(); i++) {
+      ILocal<?> param = code.getRealParam(i);
+      IClass<?> paramType = param.type();
 
-      code.invoke(stack(classInfo), INVOKE, stack(OBJECT_TYPE), stack(OBJECT_TYPE));
-      code.invoke(null, RECYCLE_LIST, null, argList);
-      code.cast(stack(OBJECT_TYPE), stack(returnType));
+      code.assign(argList, stack(ARG_LIST_TYPE));
+      code.loadConstant(stack(INT_TYPE), i);
+      code.assign((ILocal) param, stack(paramType));
+      code.invoke(stack(ARG_LIST_TYPE), argSetter(paramType), null, stack(INT_TYPE));
+    }
+
+    code.assign(code.getThis(), stack(classInfo));
+    code.assign(code.getThis(), dataPool, stack(DATA_POOL_TYPE));
+    code.assign(argList, stack(ARG_LIST_TYPE));
+
+    code.invokeDynamic(
+        LINK_FUNCTION,
+        new Object[]{funType.name()},
+        method.getName(),
+        siteReturn,
+        new IClass<?>[]{DYNAMIC_OBJECT_TYPE, DATA_POOL_TYPE, ARG_LIST_TYPE},
+        returnType != VOID_TYPE? stack((IClass) siteReturn): null,
+        stack(OBJECT_TYPE)
+    );
+    code.invoke(argList, RECYCLE_ARGS, null);
+
+    if (returnType != VOID_TYPE) {
+      if (siteReturn != returnType) code.cast(stack(OBJECT_TYPE), stack(returnType));
       code.returnValue(stack((IClass) returnType));
-    } else {
-      code.assign(code.getThis(), stack(classInfo));
-      code.assign(null, funType, stack(FUNCTION_TYPE_TYPE));
-      code.loadConstant(stack(STRING_TYPE), method.getName());
-      code.assign(argList, stack(OBJECT_TYPE.asArray()));
+    }
+  }
 
-      code.invoke(stack(classInfo), INVOKE, null, stack(OBJECT_TYPE));
-      code.invoke(null, RECYCLE_LIST, null, argList);
+  private static boolean isDirectArgs(Method method) {
+    if (method.getParameterCount() > 4) return false;
+
+    for (Class<?> type : method.getParameterTypes()) {
+      if (type.isPrimitive()) return false;
     }
+    return true;
+  }
+
+  private static IMethod<ArgumentList, Void> argSetter(IClass<?> type) {
+    if (type == INT_TYPE || type == BYTE_TYPE || type == SHORT_TYPE || type == CHAR_TYPE) return SET_ARG_INT;
+    if (type == LONG_TYPE) return SET_ARG_LONG;
+    if (type == FLOAT_TYPE) return SET_ARG_FLOAT;
+    if (type == DOUBLE_TYPE) return SET_ARG_DOUBLE;
+    if (type == BOOLEAN_TYPE) return SET_ARG_BOOLEAN;
+    return SET_ARG;
+  }
+
+  /**
+   * 生成取得对象独占的数据池的代码，池以比较并设置替换，并发提升的线程中只有一个的池被采用，其余线程使用已被替换的池：
+   * <pre>{@code
+   * DataPool curr = this.$datapool$;
+   * DataPool pool = curr.promote();
+   * if(pool != curr && !$datapool$updater$.compareAndSet(this, curr, pool)) pool = this.$datapool$;
+   * }</pre>
+   *
+   * @return 保存了独占数据池的局部变量
+   */
+  private static ILocal<DataPool> promotePool(CodeBlock<?> code, IField<DataPool> dataPool, IField<AtomicReferenceFieldUpdater> poolUpdater) {
+    ILocal<DataPool> curr = code.local(DATA_POOL_TYPE);
+    ILocal<DataPool> pool = code.local(DATA_POOL_TYPE);
+    ILocal<Boolean> swapped = code.local(BOOLEAN_TYPE);
+    Label end = code.label();
+
+    code.assign(code.getThis(), dataPool, curr);
+    code.invoke(curr, PROMOTE, pool);
+    code.compare(pool, ICompare.Comparison.EQUAL, curr, end);
+
+    code.assignStatic(poolUpdater, stack(POOL_UPDATER_TYPE));
+    code.invoke(stack(POOL_UPDATER_TYPE), POOL_CAS, swapped, code.getThis(), curr, pool);
+    code.condition(swapped, ICondition.CondCode.UNEQUAL, end);
+    code.assign(code.getThis(), dataPool, pool);
+
+    code.markLabel(end);
+    return pool;
   }
 
-  private static boolean filterMethod(Method method) {
-    //对于已经被声明为final的方法将被添加到排除列表
-    if (Modifier.isFinal(method.getModifiers())) {
-      DynamicMaker.FINALS.computeIfAbsent(method.getName(), e -> new HashSet<>()).add(FunctionType.from(method));
-      return false;
+  private static IField<DataPool> dataPoolField(Class<?> dynamicBase) {
+    Class<?> curr = dynamicBase;
+    while (curr != null) {
+      try {
+        curr.getDeclaredField("$datapool$");
+        return asType(curr).getField(DATA_POOL_TYPE, "$datapool$");
+      } catch (NoSuchFieldException ignored) {}
+
+      curr = curr.getSuperclass();
     }
 
-    // 如果方法是静态的，或者方法不对子类可见则不重写此方法
-    if (Modifier.isStatic(method.getModifiers())) return false;
-    if ((method.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED)) == 0) return false;
+    throw new IllegalHandleException("no data pool field found in dynamic class " + dynamicBase);
+  }
 
-    return !DynamicMaker.FINALS.computeIfAbsent(method.getName(), e -> new HashSet<>()).contains(FunctionType.from(method))
-        && DynamicMaker.OVERRIDES.computeIfAbsent(method.getName(), e -> new HashSet<>()).add(FunctionType.from(method));
+  /**
+   * 一次类型生成中用于筛选需要重写的方法的状态，记录已被声明为final与已被处理的方法签名，每一次生成各自持有一个实例
+   */
+  private static class MethodFilter {
+    final Map<String, Set<FunctionType>> overrides = new HashMap<>();
+    final Map<String, Set<FunctionType>> finals = new HashMap<>();
+
+    boolean filterMethod(Method method) {
+      //对于已经被声明为final的方法将被添加到排除列表
+      if (Modifier.isFinal(method.getModifiers())) {
+        finals.computeIfAbsent(method.getName(), e -> new HashSet<>()).add(FunctionType.from(method));
+        return false;
+      }
+
+      // 如果方法是静态的，或者方法不对子类可见则不重写此方法
+      if (Modifier.isStatic(method.getModifiers())) return false;
+      // Object的finalize不进行委托，覆盖它会使虚拟机为每一个实例注册终结器
+      if (method.getDeclaringClass() == Object.class && method.getName().equals("finalize")) return false;
+      if ((method.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED)) == 0) return false;
+
+      return !finals.computeIfAbsent(method.getName(), e -> new HashSet<>()).contains(FunctionType.from(method))
+          && overrides.computeIfAbsent(method.getName(), e -> new HashSet<>()).add(FunctionType.from(method));
+    }
+  }
+
+  /**
+   * 缓存中的生成任务，记录执行生成的线程以检测同一线程上对同一个键的递归生成
+   */
+  private static class Generation<V> extends CompletableFuture<V> {
+    final Thread owner = Thread.currentThread();
   }
 
   protected void makeSwitch(IClass<?> owner, HashMap<IMethod<?, ?>, Integer> callSuperCaseMap, CodeBlock<Object> code, ISwitch<Integer> iSwitch, ILocal<Object[]> args) {
@@ -1290,6 +1940,193 @@ public abstract class DynamicMaker {
    */
   protected abstract <T> Class<? extends T> generateClass(Class<T> baseClass, Class<?>[] interfaces, Class<?>[] aspects);
 
+  /**
+   * 在动态委托类型上生成具有变量字段的类型，类的行为描述请参考{@link DynamicMaker#makeFieldClassInfo(Class, FieldVariable[])}。
+   * <p>默认的实现不支持变量字段，需要使用{@link DynamicMaker#enableVariableFields(DynamicClass)}的生成器应当覆盖此方法
+   *
+   * @param dynamicBase 动态委托类型
+   * @param variables   生成字段的变量表
+   * @return 具有变量字段的类型
+   */
+  protected <T> Class<? extends T> generateFieldClass(Class<T> dynamicBase, FieldVariable[] variables) {
+    throw new IllegalHandleException("variable fields was not supported by this maker");
+  }
+
+  /**
+   * 创建在动态委托类型上具有变量字段的类型的描述，生成的类型继承动态委托类型，并为变量表中的每一个变量声明一个字段，
+   * 变量在表中的索引即为其字段的索引，字段通过{@link FieldVariable.Holder}的方法以索引访问，大致为如下形式：
+   * <pre>{@code
+   * public class Sample$dynamic$hash$fields$0 extends Sample$dynamic$hash implements FieldVariable.Holder{
+   *   public static FieldVariable[] $fieldVariables$;
+   *
+   *   public int $var$0;
+   *   public volatile Object $var$1;
+   *
+   *   public Sample$dynamic$hash$fields$0(*parameters*){
+   *     super(*parameters*);
+   *   }
+   *
+   *   public int getFieldVarInt(int index){
+   *     switch(index){
+   *       case 0: return this.$var$0;
+   *     }
+   *     throw new IllegalHandleException("no such variable field");
+   *   }
+   *   ...
+   * }
+   * }</pre>
+   * 变量表由{@link DynamicMaker#getFieldBase(Class, DynamicClass)}在类型生成后写入静态字段{@code $fieldVariables$}。
+   * 字段是公开的，仅{@linkplain FieldVariable#isVolatile() 声明为volatile}的变量的字段为volatile，{@link FieldVariable}以这些字段的原子更新器对其进行原子操作，
+   * {@code float}与{@code boolean}变量的字段为{@code int}，{@code double}变量的字段为{@code long}
+   *
+   * @param dynamicBase 动态委托类型
+   * @param variables   生成字段的变量表
+   * @return 具有变量字段的类型描述
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  protected <T> ClassInfo<? extends T> makeFieldClassInfo(Class<T> dynamicBase, FieldVariable[] variables) {
+    ClassInfo<? extends T> classInfo = new ClassInfo<>(
+        Modifier.PUBLIC,
+        dynamicBase.getName() + "$fields$" + FIELD_CLASS_COUNTER.getAndIncrement(),
+        asType(dynamicBase),
+        FIELD_HOLDER_TYPE
+    );
+
+    FieldInfo<FieldVariable[]> varsField = classInfo.declareField(
+        Modifier.PUBLIC | Modifier.STATIC,
+        FIELD_VARIABLES,
+        FIELD_VARIABLE_TYPE.asArray(),
+        null
+    );
+
+    FieldInfo<?>[] fields = new FieldInfo[variables.length];
+    for (int i = 0; i < variables.length; i++) {
+      Class<?> type = variables[i].type();
+      Class<?> storage = type == float.class || type == boolean.class? int.class: type == double.class? long.class: type;
+      fields[i] = classInfo.declareField(
+          variables[i].isVolatile()? Modifier.PUBLIC | Modifier.VOLATILE: Modifier.PUBLIC,
+          VARIABLE_FIELD + i,
+          asType(storage),
+          null
+      );
+    }
+
+    // public <init>(*parameters*){
+    //   super(*parameters*);
+    // }
+    for (Constructor<?> cstr : dynamicBase.getDeclaredConstructors()) {
+      if (!Modifier.isPublic(cstr.getModifiers())) continue;
+
+      Parameter<?>[] params = Parameter.asParameter(cstr.getParameters());
+      IMethod<?, Void> constructor = classInfo.superClass().getConstructor(Arrays.stream(params).map(Parameter::getType).toArray(IClass[]::new));
+
+      CodeBlock<Void> code = classInfo.declareConstructor(Modifier.PUBLIC, params);
+      code.invokeSuper(code.getThis(), constructor, null, code.getParamList().toArray(LOCALS_EMP));
+    }
+
+    // public FieldVariable[] fieldVariables(){
+    //   return $fieldVariables$;
+    // }
+    {
+      CodeBlock<FieldVariable[]> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "fieldVariables",
+          FIELD_VARIABLE_TYPE.asArray()
+      );
+      code.assignStatic(varsField, stack(FIELD_VARIABLE_TYPE.asArray()));
+      code.returnValue(stack(FIELD_VARIABLE_TYPE.asArray()));
+    }
+
+    genFieldAccessor(classInfo, fields, OBJECT_TYPE, "");
+    genFieldAccessor(classInfo, fields, INT_TYPE, "Int");
+    genFieldAccessor(classInfo, fields, LONG_TYPE, "Long");
+
+    AnnotationType<DynamicType> dycAnno = AnnotationType.asAnnotationType(DynamicType.class);
+    dycAnno.annotateTo(classInfo, null);
+
+    return classInfo;
+  }
+
+  /**
+   * 生成以索引读写变量字段的一对方法，type为{@link ClassInfo#OBJECT_TYPE}时方法访问所有的字段，否则只访问该类型的字段
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static void genFieldAccessor(ClassInfo<?> classInfo, FieldInfo<?>[] fields, ClassInfo<?> type, String suffix) {
+    // public *type* getFieldVar*suffix*(int index){
+    //   switch(index){
+    //     case *i*: return this.$var$*i*;
+    //   }
+    //   throw new IllegalHandleException("no such variable field");
+    // }
+    {
+      CodeBlock<Object> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "getFieldVar" + suffix,
+          (ClassInfo) type,
+          Parameter.as(0, INT_TYPE, "index")
+      );
+
+      genFieldSwitch(code, fields, type, field -> {
+        code.assign(code.getThis(), (IField) field, stack(type));
+        code.returnValue((ILocal) stack(type));
+      });
+    }
+
+    // public void setFieldVar*suffix*(int index, *type* value){
+    //   switch(index){
+    //     case *i*: this.$var$*i* = value; return;
+    //   }
+    //   throw new IllegalHandleException("no such variable field");
+    // }
+    {
+      CodeBlock<Void> code = classInfo.declareMethod(
+          Modifier.PUBLIC,
+          "setFieldVar" + suffix,
+          VOID_TYPE,
+          Parameter.as(
+              0, INT_TYPE, "index",
+              0, type, "value"
+          )
+      );
+
+      genFieldSwitch(code, fields, type, field -> {
+        code.assign(code.getThis(), (ILocal) code.getRealParam(1), (IField) field);
+        code.returnVoid();
+      });
+    }
+  }
+
+  private static void genFieldSwitch(CodeBlock<?> code, FieldInfo<?>[] fields, IClass<?> type, Consumer<FieldInfo<?>> caseBody) {
+    Label end = code.label();
+    ISwitch<Integer> iSwitch = null;
+
+    for (int i = 0; i < fields.length; i++) {
+      if (type != OBJECT_TYPE && fields[i].type() != type) continue;
+
+      if (iSwitch == null) {
+        code.assign(code.getRealParam(0), stack(INT_TYPE));
+        iSwitch = code.switchDef(stack(INT_TYPE), end);
+      }
+
+      Label l = code.label();
+      code.markLabel(l);
+      iSwitch.addCase(i, l);
+
+      caseBody.accept(fields[i]);
+    }
+
+    code.markLabel(end);
+
+    ILocal<String> msg = code.local(STRING_TYPE);
+    code.loadConstant(msg, "no such variable field");
+    code.newInstance(
+        ILLEGAL_HANDLE_TYPE.getConstructor(STRING_TYPE),
+        stack(ILLEGAL_HANDLE_TYPE),
+        msg
+    );
+    code.thr(stack(ILLEGAL_HANDLE_TYPE));
+  }
+
   protected static class FuzzyMatcher{
     java.lang.reflect.Parameter[] parameters;
     FuzzyMatch matcher;
@@ -1342,9 +2179,18 @@ public abstract class DynamicMaker {
   @Target(ElementType.METHOD)
   @Retention(RetentionPolicy.RUNTIME)
   @interface DynamicMethod {
+    /**此方法对应的超方法在{@link SuperInvoker#invokeSuper(int, Object...)}中的编号，若超方法不存在（抽象方法）则为-1*/
+    int superId() default -1;
   }
 
+  /**
+   * 动态委托类型对超类中原有的java方法的调用入口，生成数据池时基类的函数会被绑定到此入口上
+   */
   public interface SuperInvoker {
+    /**以方法签名调用超方法，需要查找签名对应的方法编号*/
     Object invokeSuper(String signature, Object... args);
+
+    /**以方法编号调用超方法，编号由{@link DynamicMethod#superId()}给出，调用直接经由tableswitch分派到超方法*/
+    Object invokeSuper(int methodId, Object... args);
   }
 }
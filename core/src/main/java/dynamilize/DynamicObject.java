@@ -3,7 +3,7 @@ package dynamilize;
 /**所有动态对象依赖的接口，描述了动态对象具有的基本行为，关于接口的实现应当由生成器生成。
  * <p>实现此接口通常不应该从外部进行，而应当通过{@link DynamicMaker#makeClassInfo(Class, Class[], Class[])}生成，对于生成器生成的实现类应当满足下列行为：
  * <ul>
- * <li>分配对象保存{@linkplain DataPool 数据池}的字段，字段具有private final修饰符
+ * <li>分配对象保存{@linkplain DataPool 数据池}的字段，字段具有protected修饰符，对象首次设置自身的函数或变量时字段会被替换为{@linkplain DataPool#promote() 对象独占的池}
  * <li>分配对象保存{@linkplain DynamicClass 动态类}的字段，字段具有private final修饰符
  * <li>对每一个超类构造函数生成相应的构造函数，并正确的调用超类的相应超类构造函数
  * 参数前新增两个参数分别传入{@linkplain DataPool 数据池}和{@linkplain DynamicClass 动态类}并分配给成员字段
@@ -27,6 +27,15 @@ public interface DynamicObject<Self>{
    * @return 变量的值*/
   IVariable getVariable(String name);
 
+  /**以变量符号获得对象的成员变量
+   * <p>生成器实施应当实现此方法使之调用数据池的{@link DataPool#getVariable(VarSymbol)}方法并返回值
+   *
+   * @param symbol 变量符号
+   * @return 变量的值*/
+  default IVariable getVariable(VarSymbol symbol){
+    return getVariable(symbol.name());
+  }
+
   DataPool.ReadOnlyPool baseSuperPointer();
 
   /**设置对象的成员变量
@@ -60,11 +69,64 @@ public interface DynamicObject<Self>{
     var.set(this, value);
   }
 
-  <T> T varValueGet(String name);
+  /**以变量符号获取对象的某一成员变量的值，若变量尚未定义则会抛出异常
+   *
+   * @param symbol 变量符号
+   * @return 变量值*/
+  default <T> T getVar(VarSymbol symbol){
+    IVariable var = getVariable(symbol);
+    if(var == null)
+      throw new IllegalHandleException("variable " + symbol + " was not defined");
+
+    return var.get(this);
+  }
+
+  /**以变量符号为对象的某一变量设置属性值，若在层次结构中未能找到变量则会定义变量
+   *
+   * @param symbol 变量符号
+   * @param value 属性值*/
+  default <T> void setVar(VarSymbol symbol, T value){
+    IVariable var = getVariable(symbol);
+    if(var == null){
+      var = new Variable(symbol.name());
+      setVariable(var);
+    }
+    var.set(this, value);
+  }
+
+  /**以变量名称直接读取对象变量布局中的值，不经过变量对象
+   *
+   * @param name 变量名称
+   * @return 变量值，若对象中没有此变量则为null*/
+  @SuppressWarnings("unchecked")
+  default <T> T varValueGet(String name){
+    return (T) VarShape.getValue(this, VarSymbol.of(name));
+  }
+
+  /**以变量名称直接设置对象变量布局中的值，不经过变量对象，若对象中没有此变量则定义它
+   *
+   * @param name 变量名称
+   * @param value 变量值*/
+  default <T> void varValueSet(String name, T value){
+    VarShape.setValue(this, VarSymbol.of(name), value);
+  }
+
+  /**获取对象当前的{@linkplain VarShape 变量布局}，对象尚未定义任何变量时可为null
+   * <p>生成器实施应当实现此方法使之返回保存布局的字段*/
+  VarShape varShape();
 
-  <T> void varValueSet(String name, T value);
+  /**获取对象按布局槽位索引的变量值数组，其长度不小于布局中的变量数量，对象尚未定义任何变量时可为null
+   * <p>生成器实施应当实现此方法使之返回保存变量值的字段*/
+  Object[] varSlots();
 
-  /**使用给出的运算器对指定名称的变量进行处理，并用其计算结果设置变量值
+  /**更新对象的变量布局与变量值数组，仅在对象定义新的变量时由{@link VarShape}调用
+   * <p>生成器实施应当实现此方法使之将参数分别写入保存布局与变量值的字段
+   *
+   * @param shape 新的布局
+   * @param slots 新的变量值数组*/
+  void setVarLayout(VarShape shape, Object[] slots);
+
+  /**使用给出的运算器对指定名称的变量进行处理，并用其计算结果设置变量值，读取与设置不是原子的，并发更新变量请使用{@link DynamicObject#updateVar(String, Calculator)}
    *
    * @param name 变量名称
    * @param calculator 计算器
@@ -83,6 +145,45 @@ public interface DynamicObject<Self>{
    * @return 指定函数的匿名表示*/
   IFunctionEntry getFunc(String name, FunctionType type);
 
+  /**以函数符号获取对象的函数入口
+   * <p>生成器实施应当实现此方法使之调用数据池的{@link DataPool#select(FunctionSymbol)}方法并返回值
+   *
+   * @param symbol 函数符号
+   * @return 指定函数的函数入口*/
+  default IFunctionEntry getFunc(FunctionSymbol symbol){
+    return getFunc(symbol.name(), symbol.type());
+  }
+
+  /**获取对象当前持有的数据池，对象的函数都从此池中选择，因此持有同一个池且池的{@linkplain DataPool#functionStamp() 函数版本戳}相同的对象选择到的函数也相同，
+   * {@linkplain DynamicMaker#invokeAll(java.util.Collection, FunctionSymbol, Object[], Object...) 批量调用}据此对对象分组，每组只选择一次函数。
+   * <p>生成器实施应当实现此方法使之返回保存数据池的字段，默认实现返回null，此时批量调用会为此对象单独选择函数
+   *
+   * @return 对象的数据池*/
+  default DataPool dataPool(){
+    return null;
+  }
+
+  /**将对象的函数绑定为可复用的{@linkplain BoundFunction 函数句柄}，句柄缓存选择的函数，并在对象或其动态类型的函数变更后自动重新选择，
+   * 适合在需要反复调用同一函数的场合长期持有。
+   * <p>生成器实施应当实现此方法使之调用数据池的{@link DataPool#bind(DynamicObject, FunctionSymbol)}方法并返回值，
+   * 默认实现返回的句柄无法检查函数版本，每次调用都会重新选择函数
+   *
+   * @param symbol 函数符号
+   * @return 绑定到此对象的函数句柄*/
+  default <R> BoundFunction<Self, R> bind(FunctionSymbol symbol){
+    return new BoundFunction<>(this, null, symbol);
+  }
+
+  /**@see DynamicObject#bind(FunctionSymbol)*/
+  default <R> BoundFunction<Self, R> bind(String name, FunctionType type){
+    return bind(FunctionSymbol.of(name, type));
+  }
+
+  /**@see DynamicObject#bind(FunctionSymbol)*/
+  default <R> BoundFunction<Self, R> bind(String name, Class<?>... argTypes){
+    return bind(FunctionSymbol.of(name, argTypes));
+  }
+
   default <R> Delegate<R> getFunction(String name, FunctionType type){
     IFunctionEntry entry = getFunc(name, type);
     if(entry == null)
@@ -158,6 +259,70 @@ public interface DynamicObject<Self>{
     return r;
   }
 
+  /**以函数符号执行对象的指定成员函数，符号确定了函数的名称与形式参数类型，函数通过符号的id直接索引
+   *
+   * @param symbol 函数符号
+   * @param args 传递给函数的实参列表
+   * @return 函数返回值*/
+  default <R> R invokeFunc(FunctionSymbol symbol, Object... args){
+    IFunctionEntry entry = getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    ArgumentList lis = ArgumentList.asWithType(symbol.type(), args);
+    R r = entry.<Self, R>getFunction().invoke(this, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**以固定数量的实参执行函数符号指定的函数，实参数量必须与符号的参数类型一致，调用不会构造实参数组，函数可覆盖{@link Function#invoke0(DynamicObject, FunctionType)}等方法直接接收参数
+   *
+   * @param symbol 函数符号
+   * @return 函数返回值*/
+  default <R> R invokeFunc0(FunctionSymbol symbol){
+    IFunctionEntry entry = getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.<Self, R>getFunction().invoke0(this, symbol.type());
+  }
+
+  /**@see DynamicObject#invokeFunc0(FunctionSymbol)*/
+  default <R> R invokeFunc1(FunctionSymbol symbol, Object a0){
+    IFunctionEntry entry = getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.<Self, R>getFunction().invoke1(this, symbol.type(), a0);
+  }
+
+  /**@see DynamicObject#invokeFunc0(FunctionSymbol)*/
+  default <R> R invokeFunc2(FunctionSymbol symbol, Object a0, Object a1){
+    IFunctionEntry entry = getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.<Self, R>getFunction().invoke2(this, symbol.type(), a0, a1);
+  }
+
+  /**@see DynamicObject#invokeFunc0(FunctionSymbol)*/
+  default <R> R invokeFunc3(FunctionSymbol symbol, Object a0, Object a1, Object a2){
+    IFunctionEntry entry = getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.<Self, R>getFunction().invoke3(this, symbol.type(), a0, a1, a2);
+  }
+
+  /**@see DynamicObject#invokeFunc0(FunctionSymbol)*/
+  default <R> R invokeFunc4(FunctionSymbol symbol, Object a0, Object a1, Object a2, Object a3){
+    IFunctionEntry entry = getFunc(symbol);
+    if(entry == null)
+      throw new IllegalHandleException("no such method declared: " + symbol);
+
+    return entry.<Self, R>getFunction().invoke4(this, symbol.type(), a0, a1, a2, a3);
+  }
+
   /**直接传入{@link ArgumentList}作为实参列表的函数调用，方法内完成拆箱，便于在匿名函数中对另一函数进行引用而无需拆箱
    *
    * @param name 函数名称
@@ -322,4 +487,151 @@ public interface DynamicObject<Self>{
     setVar(name, res = calculator.calculate(getVar(name)));
     return res;
   }
+
+  //atomic operations
+  /**以原子操作比较并设置对象的某一变量，当变量的当前值与期望值为同一对象时设置为新值，若变量尚未定义则会抛出异常
+   *
+   * @param name 变量名
+   * @param expect 期望的当前值
+   * @param update 新的值
+   * @return 是否设置成功*/
+  default <T> boolean compareAndSetVar(String name, T expect, T update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, boolean expect, boolean update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, byte expect, byte update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, short expect, short update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, int expect, int update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, long expect, long update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, float expect, float update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+  default boolean compareAndSetVar(String name, double expect, double update){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.compareAndSet(this, expect, update);
+  }
+
+  /**以原子操作为对象的某一整数变量加上给出的值，若变量尚未定义则会抛出异常
+   *
+   * @param name 变量名
+   * @param delta 加数
+   * @return 变量原先的值*/
+  default int getAndAddVar(String name, int delta){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.getAndAdd(this, delta);
+  }
+  default long getAndAddVar(String name, long delta){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.getAndAdd(this, delta);
+  }
+
+  /**以原子操作使用给出的运算器更新对象的某一变量，若变量尚未定义则会抛出异常。
+   * <p>与{@link DynamicObject#calculateVar(String, Calculator)}不同，并发的更新不会丢失，但运算器可能被调用多次，因此运算器不应当具有副作用
+   *
+   * @param name 变量名称
+   * @param calculator 计算器
+   * @return 计算结果*/
+  default <T> T updateVar(String name, Calculator<T> calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default boolean updateVar(String name, Calculator.BoolCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default byte updateVar(String name, Calculator.ByteCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default short updateVar(String name, Calculator.ShortCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default int updateVar(String name, Calculator.IntCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default long updateVar(String name, Calculator.LongCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default float updateVar(String name, Calculator.FloatCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
+  default double updateVar(String name, Calculator.DoubleCalculator calculator){
+    IVariable var = getVariable(name);
+    if(var == null)
+      throw new IllegalHandleException("variable " + name + " was not defined");
+
+    return var.update(this, calculator);
+  }
 }
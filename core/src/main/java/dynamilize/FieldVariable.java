@@ -0,0 +1,524 @@
+package dynamilize;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Predicate;
+
+/**由{@linkplain DynamicClass 动态类型}声明的变量，除对象的{@linkplain VarShape 变量布局}外，变量值还可以保存在生成的类型的字段中。
+ * <p>对于{@linkplain DynamicMaker#enableVariableFields(DynamicClass) 启用了变量字段}的动态类型，生成器会在对象的类型上为类型声明的每一个变量生成一个字段，
+ * 变量类型为{@code int}或{@code long}时字段为相应的基本类型，{@code float}与{@code boolean}保存在{@code int}字段中，{@code double}保存在{@code long}字段中
+ * （浮点数为其原始位，布尔值为0或1），否则为{@link Object}。
+ * 此类变量在对象实现了{@link Holder}且其字段表中包含此变量时直接读写字段，对基本类型的读写不需要包装对象，否则与{@link Variable}的行为一致。
+ * <p>基本类型的变量字段只能被赋值为相应的包装类型，数值类型之间按java的数值转换规则转换，赋值其他类型的值会抛出异常
+ * <p>变量字段默认是普通字段，读写不具有volatile语义。{@linkplain FieldVariable#isVolatile() 声明为volatile}的变量（例如样版中以volatile修饰的静态字段）会生成volatile字段，
+ * 对其的原子操作以字段的{@link AtomicIntegerFieldUpdater}，{@link AtomicLongFieldUpdater}或{@link AtomicReferenceFieldUpdater}进行，不加锁；
+ * 对普通字段的原子操作则在对象的监视器上同步进行，这些操作彼此之间是原子的，但与并发的普通写入之间不是，需要并发更新的变量应当声明为volatile
+ *
+ * @author EBwilson */
+public class FieldVariable extends Variable{
+  /**具有变量字段的类型的各volatile字段的原子更新器，以字段索引为下标，普通字段没有更新器*/
+  private static final ClassValue<Object[]> UPDATERS = new ClassValue<Object[]>(){
+    @Override
+    protected Object[] computeValue(Class<?> type){
+      ArrayList<Object> res = new ArrayList<>();
+      for(Field field; (field = variableField(type, res.size())) != null; ){
+        Class<?> owner = field.getDeclaringClass();
+        if(!Modifier.isVolatile(field.getModifiers())) res.add(null);
+        else if(field.getType() == int.class) res.add(AtomicIntegerFieldUpdater.newUpdater(owner, field.getName()));
+        else if(field.getType() == long.class) res.add(AtomicLongFieldUpdater.newUpdater(owner, field.getName()));
+        else res.add(AtomicReferenceFieldUpdater.newUpdater(owner, Object.class, field.getName()));
+      }
+      return res.toArray();
+    }
+  };
+
+  private final Class<?> type;
+  private final boolean isVolatile;
+
+  /**上一次访问时变量在对象字段表中的索引*/
+  private int fieldCache = -1;
+
+  /**创建一个变量
+   *
+   * @param name 变量名称
+   * @param type 变量的声明类型，非基本类型的变量总是被视为{@link Object}
+   * @param init 变量的初始化器*/
+  public FieldVariable(String name, Class<?> type, Initializer<?> init){
+    this(name, type, init, false);
+  }
+
+  /**创建一个变量
+   *
+   * @param name 变量名称
+   * @param type 变量的声明类型，非基本类型的变量总是被视为{@link Object}
+   * @param init 变量的初始化器
+   * @param isVolatile 变量字段是否为volatile的，参见{@link FieldVariable#isVolatile()}*/
+  public FieldVariable(String name, Class<?> type, Initializer<?> init, boolean isVolatile){
+    super(name, init);
+    this.type = type == int.class || type == long.class || type == float.class || type == double.class || type == boolean.class? type: Object.class;
+    this.isVolatile = isVolatile;
+  }
+
+  /**获取变量字段的类型，为{@code int}，{@code long}，{@code float}，{@code double}，{@code boolean}或{@link Object}之一*/
+  public Class<?> type(){
+    return type;
+  }
+
+  /**变量字段是否为volatile的，volatile字段的读写具有volatile语义，且原子操作不加锁；否则字段为普通字段，普通读写没有额外开销，原子操作在对象的监视器上同步*/
+  public boolean isVolatile(){
+    return isVolatile;
+  }
+
+  /**获取此变量在对象字段表中的索引，若对象不具有此变量的字段则返回-1*/
+  private int index(DynamicObject<?> obj){
+    if(!(obj instanceof Holder h)) return -1;
+
+    FieldVariable[] vars = h.fieldVariables();
+    int i = fieldCache;
+    if(i >= 0 && i < vars.length && vars[i] == this) return i;
+
+    for(i = 0; i < vars.length; i++){
+      if(vars[i] == this){
+        fieldCache = i;
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static Field variableField(Class<?> type, int index){
+    for(Class<?> c = type; c != null; c = c.getSuperclass()){
+      try{
+        return c.getDeclaredField(DynamicMaker.VARIABLE_FIELD + index);
+      }catch(NoSuchFieldException ignored){ /*find in super class*/ }
+    }
+    return null;
+  }
+
+  private Object checkValue(DynamicObject<?> obj, Object value){
+    if(type == Object.class) return value;
+    if(type == boolean.class? value instanceof Boolean: value instanceof Number) return value;
+
+    throw new IllegalHandleException("variable " + name() + " in object " + obj + " was declared as " + type + ", cannot assign with " + value);
+  }
+
+  private Number number(DynamicObject<?> obj, Object value){
+    if(value == null || value instanceof Number) return (Number) value;
+
+    throw new IllegalHandleException("variable " + name() + " in object " + obj + " was not a number");
+  }
+
+  private boolean bool(DynamicObject<?> obj, Object value, boolean def){
+    if(value == null) return def;
+    if(value instanceof Boolean b) return b;
+
+    throw new IllegalHandleException("variable " + name() + " in object " + obj + " was not a boolean");
+  }
+
+  /**将以int或long字段存储的变量值还原为变量类型的包装值*/
+  private Object decode(long bits){
+    if(type == int.class) return (int) bits;
+    if(type == long.class) return bits;
+    if(type == float.class) return Float.intBitsToFloat((int) bits);
+    if(type == double.class) return Double.longBitsToDouble(bits);
+    return bits != 0;
+  }
+
+  /**将已检查的值转换为变量字段中存储的位，float与double为其原始位，boolean为0或1*/
+  private long encode(Object value){
+    if(type == float.class) return Float.floatToRawIntBits(((Number) value).floatValue());
+    if(type == double.class) return Double.doubleToRawLongBits(((Number) value).doubleValue());
+    if(type == boolean.class) return (Boolean) value? 1: 0;
+    return type == int.class? ((Number) value).intValue(): ((Number) value).longValue();
+  }
+
+  private Object load(DynamicObject<?> obj, int index){
+    Holder h = (Holder) obj;
+    if(type == Object.class) return h.getFieldVar(index);
+    return decode(type == long.class || type == double.class? h.getFieldVarLong(index): h.getFieldVarInt(index));
+  }
+
+  private void store(DynamicObject<?> obj, int index, Object value){
+    Holder h = (Holder) obj;
+    value = checkValue(obj, value);
+    if(type == Object.class) h.setFieldVar(index, value);
+    else if(type == long.class || type == double.class) h.setFieldVarLong(index, encode(value));
+    else h.setFieldVarInt(index, (int) encode(value));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static AtomicIntegerFieldUpdater<Object> intUpdater(DynamicObject<?> obj, int index){
+    return (AtomicIntegerFieldUpdater<Object>) UPDATERS.get(obj.getClass())[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  private static AtomicLongFieldUpdater<Object> longUpdater(DynamicObject<?> obj, int index){
+    return (AtomicLongFieldUpdater<Object>) UPDATERS.get(obj.getClass())[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  private static AtomicReferenceFieldUpdater<Object, Object> refUpdater(DynamicObject<?> obj, int index){
+    return (AtomicReferenceFieldUpdater<Object, Object>) UPDATERS.get(obj.getClass())[index];
+  }
+
+  @Override
+  public void init(DynamicObject<?> obj){
+    //变量字段总是存在于对象中，常量默认值也需要写入字段
+    if(constant() != null && index(obj) >= 0) set(obj, constant());
+    else super.init(obj);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(DynamicObject<?> obj){
+    int i = index(obj);
+    return i < 0? super.get(obj): (T) load(obj, i);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, Object value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else store(obj, i, value);
+  }
+
+  @Override
+  public boolean get(DynamicObject<?> obj, boolean def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+    if(type == boolean.class) return ((Holder) obj).getFieldVarInt(i) != 0;
+
+    return bool(obj, load(obj, i), def);
+  }
+
+  @Override
+  public byte get(DynamicObject<?> obj, byte def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+
+    Number n = number(obj, load(obj, i));
+    return n == null? def: n.byteValue();
+  }
+
+  @Override
+  public short get(DynamicObject<?> obj, short def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+
+    Number n = number(obj, load(obj, i));
+    return n == null? def: n.shortValue();
+  }
+
+  @Override
+  public int get(DynamicObject<?> obj, int def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+    if(type == int.class) return ((Holder) obj).getFieldVarInt(i);
+
+    Number n = number(obj, load(obj, i));
+    return n == null? def: n.intValue();
+  }
+
+  @Override
+  public long get(DynamicObject<?> obj, long def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+    if(type == long.class) return ((Holder) obj).getFieldVarLong(i);
+
+    Number n = number(obj, load(obj, i));
+    return n == null? def: n.longValue();
+  }
+
+  @Override
+  public float get(DynamicObject<?> obj, float def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+    if(type == float.class) return Float.intBitsToFloat(((Holder) obj).getFieldVarInt(i));
+
+    Number n = number(obj, load(obj, i));
+    return n == null? def: n.floatValue();
+  }
+
+  @Override
+  public double get(DynamicObject<?> obj, double def){
+    int i = index(obj);
+    if(i < 0) return super.get(obj, def);
+    if(type == double.class) return Double.longBitsToDouble(((Holder) obj).getFieldVarLong(i));
+
+    Number n = number(obj, load(obj, i));
+    return n == null? def: n.doubleValue();
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, boolean value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else if(type == boolean.class) ((Holder) obj).setFieldVarInt(i, value? 1: 0);
+    else store(obj, i, value);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, byte value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else store(obj, i, value);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, short value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else store(obj, i, value);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, int value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else if(type == int.class) ((Holder) obj).setFieldVarInt(i, value);
+    else store(obj, i, value);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, long value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else if(type == long.class) ((Holder) obj).setFieldVarLong(i, value);
+    else store(obj, i, value);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, float value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else if(type == float.class) ((Holder) obj).setFieldVarInt(i, Float.floatToRawIntBits(value));
+    else store(obj, i, value);
+  }
+
+  @Override
+  public void set(DynamicObject<?> obj, double value){
+    int i = index(obj);
+    if(i < 0) super.set(obj, value);
+    else if(type == double.class) ((Holder) obj).setFieldVarLong(i, Double.doubleToRawLongBits(value));
+    else store(obj, i, value);
+  }
+
+  /**以字段的原子更新器比较并设置变量字段，字段的当前值（已还原为变量类型的值）满足条件时写入新值，
+   * 用于比较的值与变量类型不同的情况，当前值被其他线程修改时重试。普通字段在对象的监视器上比较并写入*/
+  private boolean compareAndSet(DynamicObject<?> obj, int index, Predicate<Object> matches, Object update){
+    Object value = checkValue(obj, update);
+
+    if(!isVolatile){
+      synchronized(obj){
+        if(!matches.test(load(obj, index))) return false;
+        store(obj, index, value);
+        return true;
+      }
+    }
+
+    if(type == Object.class){
+      AtomicReferenceFieldUpdater<Object, Object> updater = refUpdater(obj, index);
+      for(;;){
+        Object curr = updater.get(obj);
+        if(!matches.test(curr)) return false;
+        if(updater.compareAndSet(obj, curr, value)) return true;
+      }
+    }
+    else if(type == long.class || type == double.class){
+      AtomicLongFieldUpdater<Object> updater = longUpdater(obj, index);
+      long bits = encode(value);
+      for(;;){
+        long curr = updater.get(obj);
+        if(!matches.test(decode(curr))) return false;
+        if(updater.compareAndSet(obj, curr, bits)) return true;
+      }
+    }
+    else{
+      AtomicIntegerFieldUpdater<Object> updater = intUpdater(obj, index);
+      int bits = (int) encode(value);
+      for(;;){
+        int curr = updater.get(obj);
+        if(!matches.test(decode(curr))) return false;
+        if(updater.compareAndSet(obj, curr, bits)) return true;
+      }
+    }
+  }
+
+  private boolean compareAndSetInt(DynamicObject<?> obj, int index, int expect, int update){
+    if(isVolatile) return intUpdater(obj, index).compareAndSet(obj, expect, update);
+
+    Holder h = (Holder) obj;
+    synchronized(obj){
+      if(h.getFieldVarInt(index) != expect) return false;
+      h.setFieldVarInt(index, update);
+      return true;
+    }
+  }
+
+  private boolean compareAndSetLong(DynamicObject<?> obj, int index, long expect, long update){
+    if(isVolatile) return longUpdater(obj, index).compareAndSet(obj, expect, update);
+
+    Holder h = (Holder) obj;
+    synchronized(obj){
+      if(h.getFieldVarLong(index) != expect) return false;
+      h.setFieldVarLong(index, update);
+      return true;
+    }
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, Object expect, Object update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+    if(type == Object.class){
+      if(isVolatile) return refUpdater(obj, i).compareAndSet(obj, expect, update);
+
+      Holder h = (Holder) obj;
+      synchronized(obj){
+        if(h.getFieldVar(i) != expect) return false;
+        h.setFieldVar(i, update);
+        return true;
+      }
+    }
+
+    //基本类型的变量字段没有引用标识，包装类型的期望值与相应的基本类型重载以相同的方式比较
+    if(expect != null && update != null && expect.getClass() == update.getClass()){
+      if(expect instanceof Integer e) return compareAndSet(obj, e.intValue(), (int) (Integer) update);
+      if(expect instanceof Long e) return compareAndSet(obj, e.longValue(), (long) (Long) update);
+      if(expect instanceof Float e) return compareAndSet(obj, e.floatValue(), (float) (Float) update);
+      if(expect instanceof Double e) return compareAndSet(obj, e.doubleValue(), (double) (Double) update);
+      if(expect instanceof Boolean e) return compareAndSet(obj, e.booleanValue(), (boolean) (Boolean) update);
+      if(expect instanceof Short e) return compareAndSet(obj, e.shortValue(), (short) (Short) update);
+      if(expect instanceof Byte e) return compareAndSet(obj, e.byteValue(), (byte) (Byte) update);
+    }
+
+    return compareAndSet(obj, i, matches(obj, expect), update);
+  }
+
+  /**获取与期望值的类型相应的基本类型重载一致的比较条件，用于期望值与新值类型不同的情况*/
+  private Predicate<Object> matches(DynamicObject<?> obj, Object expect){
+    if(expect instanceof Boolean e) return v -> bool(obj, v, false) == e;
+    if(expect instanceof Float e){
+      int bits = Float.floatToRawIntBits(e);
+      return v -> { Number n = number(obj, v); return Float.floatToRawIntBits(n == null? 0: n.floatValue()) == bits; };
+    }
+    if(expect instanceof Double e){
+      long bits = Double.doubleToRawLongBits(e);
+      return v -> { Number n = number(obj, v); return Double.doubleToRawLongBits(n == null? 0: n.doubleValue()) == bits; };
+    }
+    if(expect instanceof Number e){
+      long value = e.longValue();
+      return v -> { Number n = number(obj, v); return (n == null? 0: n.longValue()) == value; };
+    }
+
+    return v -> v.equals(expect);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, boolean expect, boolean update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+    if(type == boolean.class) return compareAndSetInt(obj, i, expect? 1: 0, update? 1: 0);
+
+    return compareAndSet(obj, i, v -> bool(obj, v, false) == expect, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, byte expect, byte update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+
+    return compareAndSet(obj, i, v -> { Number n = number(obj, v); return (n == null? 0: n.byteValue()) == expect; }, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, short expect, short update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+
+    return compareAndSet(obj, i, v -> { Number n = number(obj, v); return (n == null? 0: n.shortValue()) == expect; }, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, int expect, int update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+    if(type == int.class) return compareAndSetInt(obj, i, expect, update);
+
+    return compareAndSet(obj, i, v -> { Number n = number(obj, v); return (n == null? 0: n.intValue()) == expect; }, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, long expect, long update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+    if(type == long.class) return compareAndSetLong(obj, i, expect, update);
+
+    return compareAndSet(obj, i, v -> { Number n = number(obj, v); return (n == null? 0: n.longValue()) == expect; }, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, float expect, float update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+    if(type == float.class) return compareAndSetInt(obj, i, Float.floatToRawIntBits(expect), Float.floatToRawIntBits(update));
+
+    return compareAndSet(obj, i, v -> { Number n = number(obj, v); return Float.floatToRawIntBits(n == null? 0: n.floatValue()) == Float.floatToRawIntBits(expect); }, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, double expect, double update){
+    int i = index(obj);
+    if(i < 0) return super.compareAndSet(obj, expect, update);
+    if(type == double.class) return compareAndSetLong(obj, i, Double.doubleToRawLongBits(expect), Double.doubleToRawLongBits(update));
+
+    return compareAndSet(obj, i, v -> { Number n = number(obj, v); return Double.doubleToRawLongBits(n == null? 0: n.doubleValue()) == Double.doubleToRawLongBits(expect); }, update);
+  }
+
+  @Override
+  public int getAndAdd(DynamicObject<?> obj, int delta){
+    int i = index(obj);
+    if(i < 0) return super.getAndAdd(obj, delta);
+    if(type == int.class && isVolatile) return intUpdater(obj, i).getAndAdd(obj, delta);
+
+    int prev;
+    do{
+      prev = get(obj, 0);
+    }while(!compareAndSet(obj, prev, prev + delta));
+    return prev;
+  }
+
+  @Override
+  public long getAndAdd(DynamicObject<?> obj, long delta){
+    int i = index(obj);
+    if(i < 0) return super.getAndAdd(obj, delta);
+    if(type == long.class && isVolatile) return longUpdater(obj, i).getAndAdd(obj, delta);
+
+    long prev;
+    do{
+      prev = get(obj, 0L);
+    }while(!compareAndSet(obj, prev, prev + delta));
+    return prev;
+  }
+
+  /**具有变量字段的对象类型实现的接口，由{@link DynamicMaker}为启用了变量字段的动态类型生成。
+   * <p>字段以其在{@link Holder#fieldVariables()}中的索引访问，对基本类型字段的读写方法只接受相应类型的字段的索引，
+   * {@link Holder#getFieldVar(int)}与{@link Holder#setFieldVar(int, Object)}可访问所有字段，基本类型的值会被包装/拆箱。
+   * {@code float}，{@code double}与{@code boolean}变量的字段保存其原始位，其值由{@link FieldVariable}转换*/
+  public interface Holder{
+    /**获取此类型具有字段的变量表，变量在表中的索引即为其字段的索引*/
+    FieldVariable[] fieldVariables();
+
+    Object getFieldVar(int index);
+    void setFieldVar(int index, Object value);
+
+    int getFieldVarInt(int index);
+    void setFieldVarInt(int index, int value);
+    long getFieldVarLong(int index);
+    void setFieldVarLong(int index, long value);
+  }
+}
@@ -19,6 +19,109 @@ public interface Function<S, R>{
     return r;
   }
 
+  /**以固定数量的参数调用函数，调用方不需要构造实参数组。默认实现以给定的形式参数类型准备一个{@linkplain ArgumentList#prepare(FunctionType) 参数列表}并转入{@link Function#invoke(DynamicObject, ArgumentList)}，
+   * 实现可以覆盖{@code invoke0}到{@code invoke4}以直接处理参数，避免参数列表的构造
+   *
+   * @param type 函数的形式参数类型，参数数量必须与调用的实参数量一致*/
+  default R invoke0(DynamicObject<S> self, FunctionType type){
+    ArgumentList lis = ArgumentList.prepare(type);
+    R r = invoke(self, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**@see Function#invoke0(DynamicObject, FunctionType)*/
+  default R invoke1(DynamicObject<S> self, FunctionType type, Object a0){
+    ArgumentList lis = ArgumentList.prepare(type);
+    lis.set(0, a0);
+    R r = invoke(self, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**@see Function#invoke0(DynamicObject, FunctionType)*/
+  default R invoke2(DynamicObject<S> self, FunctionType type, Object a0, Object a1){
+    ArgumentList lis = ArgumentList.prepare(type);
+    lis.set(0, a0);
+    lis.set(1, a1);
+    R r = invoke(self, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**@see Function#invoke0(DynamicObject, FunctionType)*/
+  default R invoke3(DynamicObject<S> self, FunctionType type, Object a0, Object a1, Object a2){
+    ArgumentList lis = ArgumentList.prepare(type);
+    lis.set(0, a0);
+    lis.set(1, a1);
+    lis.set(2, a2);
+    R r = invoke(self, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**@see Function#invoke0(DynamicObject, FunctionType)*/
+  default R invoke4(DynamicObject<S> self, FunctionType type, Object a0, Object a1, Object a2, Object a3){
+    ArgumentList lis = ArgumentList.prepare(type);
+    lis.set(0, a0);
+    lis.set(1, a1);
+    lis.set(2, a2);
+    lis.set(3, a3);
+    R r = invoke(self, lis);
+    lis.recycle();
+    return r;
+  }
+
+  /**返回int值的函数，当调用方需要的返回值为int时（例如委托的int方法）会直接调用{@link IntFunction#invokeInt(DynamicObject, ArgumentList)}，返回值不会被装箱*/
+  interface IntFunction<S> extends Function<S, Integer>{
+    int invokeInt(DynamicObject<S> self, ArgumentList args);
+
+    @Override
+    default Integer invoke(DynamicObject<S> self, ArgumentList args){
+      return invokeInt(self, args);
+    }
+  }
+
+  /**返回long值的函数，细节参阅{@link IntFunction}*/
+  interface LongFunction<S> extends Function<S, Long>{
+    long invokeLong(DynamicObject<S> self, ArgumentList args);
+
+    @Override
+    default Long invoke(DynamicObject<S> self, ArgumentList args){
+      return invokeLong(self, args);
+    }
+  }
+
+  /**返回float值的函数，细节参阅{@link IntFunction}*/
+  interface FloatFunction<S> extends Function<S, Float>{
+    float invokeFloat(DynamicObject<S> self, ArgumentList args);
+
+    @Override
+    default Float invoke(DynamicObject<S> self, ArgumentList args){
+      return invokeFloat(self, args);
+    }
+  }
+
+  /**返回double值的函数，细节参阅{@link IntFunction}*/
+  interface DoubleFunction<S> extends Function<S, Double>{
+    double invokeDouble(DynamicObject<S> self, ArgumentList args);
+
+    @Override
+    default Double invoke(DynamicObject<S> self, ArgumentList args){
+      return invokeDouble(self, args);
+    }
+  }
+
+  /**返回boolean值的函数，细节参阅{@link IntFunction}*/
+  interface BoolFunction<S> extends Function<S, Boolean>{
+    boolean invokeBool(DynamicObject<S> self, ArgumentList args);
+
+    @Override
+    default Boolean invoke(DynamicObject<S> self, ArgumentList args){
+      return invokeBool(self, args);
+    }
+  }
+
   interface NonRetFunction<S>{
     void invoke(DynamicObject<S> self, ArgumentList args);
   }
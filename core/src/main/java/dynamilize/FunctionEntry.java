@@ -12,17 +12,19 @@ public class FunctionEntry<S, R> implements IFunctionEntry{
     this.type = type;
   }
 
+  /**创建一个需要访问超函数的函数入口，超函数在调用时通过父池中预先链接的同签名函数获取，而不需要再按名称查找
+   *
+   * @param owner 设置此函数的数据池*/
   public FunctionEntry(String name, Function.SuperGetFunction<S, R> func, FunctionType type, DataPool owner){
-    this(
-        name,
-        (s, a) -> {
-          DataPool.ReadOnlyPool p = owner.getSuper(s, s.baseSuperPointer());
-          R res = func.invoke(s, p, a);
-          p.recycle();
-          return res;
-        },
-        type
-    );
+    FunctionSymbol symbol = FunctionSymbol.of(name, type);
+    this.name = name;
+    this.type = type;
+    this.func = (s, a) -> {
+      DataPool.ReadOnlyPool p = owner.getSuper(s, s.baseSuperPointer(), symbol);
+      R res = func.invoke(s, p, a);
+      p.recycle();
+      return res;
+    };
   }
 
   @Override
@@ -0,0 +1,392 @@
+package dynamilize;
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**动态对象委托方法的调用点链接器，{@link DynamicMaker}生成的委托方法通过invokedynamic指令以此类型的{@link FunctionLinker#bootstrap(MethodHandles.Lookup, String, MethodType, String)}作为引导方法链接到动态函数。
+ * <p>每一个调用点持有一个内联缓存，缓存以调用者的{@linkplain DynamicClass 动态类型}和java类型为键，保存已选中的函数：
+ * <ul>
+ * <li>调用点首次执行时选择函数并链接为单态调用，此后出现新的类型时在缓存链头部追加一个类型检查
+ * <li>缓存的类型数量超过{@link FunctionLinker#MAX_POLYMORPHIC}后，调用点退化为通用的{@link DataPool#select(FunctionSymbol)}查找调用
+ * <li>对象自身数据池中设置了函数的实例不会进入缓存，对这样的对象的调用总是重新选择函数
+ * </ul>
+ * 任何数据池中的某一名称的函数被设置时，会使该名称的{@link SwitchPoint}失效，所有调用该名称函数的调用点会在下一次调用时重新进行链接。
+ * <p>动态类型被{@linkplain DynamicClass#delete() 删除}时，缓存了该类型的调用点会被重置，使调用点不再引用该类型及其函数。
+ *
+ * @author EBwilson */
+public class FunctionLinker{
+  /**调用点缓存的最大类型数量，超过此数量的调用点将退化为通用查找调用*/
+  public static int MAX_POLYMORPHIC = 4;
+
+  private static final ConcurrentHashMap<String, SwitchPoint> SWITCH_POINTS = new ConcurrentHashMap<>();
+  /**缓存了动态类型的调用点，调用点随生成的类型一同被回收*/
+  private static final Set<InlineCacheSite> LINKED_SITES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  private static final MethodType SITE_TYPE = MethodType.methodType(Object.class, DynamicObject.class, DataPool.class, ArgumentList.class);
+
+  private static final MethodHandle TEST;
+  private static final MethodHandle INVOKE, INVOKE_INT, INVOKE_LONG, INVOKE_FLOAT, INVOKE_DOUBLE, INVOKE_BOOL;
+  private static final MethodHandle TO_INT, TO_LONG, TO_FLOAT, TO_DOUBLE, TO_BOOL;
+  private static final MethodHandle RELINK;
+  private static final MethodHandle GENERIC;
+  private static final MethodHandle[] INVOKE_ARITY = new MethodHandle[5];
+  private static final MethodHandle[] RELINK_ARITY = new MethodHandle[5];
+  private static final MethodHandle[] GENERIC_ARITY = new MethodHandle[5];
+
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try{
+      TEST = lookup.findStatic(FunctionLinker.class, "test",
+          MethodType.methodType(boolean.class, DynamicClass.class, Class.class, DynamicObject.class, DataPool.class));
+
+      INVOKE = lookup.findStatic(FunctionLinker.class, "invoke", invokeType(Object.class, Function.class));
+      INVOKE_INT = lookup.findStatic(FunctionLinker.class, "invokeInt", invokeType(int.class, Function.IntFunction.class));
+      INVOKE_LONG = lookup.findStatic(FunctionLinker.class, "invokeLong", invokeType(long.class, Function.LongFunction.class));
+      INVOKE_FLOAT = lookup.findStatic(FunctionLinker.class, "invokeFloat", invokeType(float.class, Function.FloatFunction.class));
+      INVOKE_DOUBLE = lookup.findStatic(FunctionLinker.class, "invokeDouble", invokeType(double.class, Function.DoubleFunction.class));
+      INVOKE_BOOL = lookup.findStatic(FunctionLinker.class, "invokeBool", invokeType(boolean.class, Function.BoolFunction.class));
+
+      TO_INT = lookup.findStatic(FunctionLinker.class, "toInt", MethodType.methodType(int.class, Object.class));
+      TO_LONG = lookup.findStatic(FunctionLinker.class, "toLong", MethodType.methodType(long.class, Object.class));
+      TO_FLOAT = lookup.findStatic(FunctionLinker.class, "toFloat", MethodType.methodType(float.class, Object.class));
+      TO_DOUBLE = lookup.findStatic(FunctionLinker.class, "toDouble", MethodType.methodType(double.class, Object.class));
+      TO_BOOL = lookup.findStatic(FunctionLinker.class, "toBool", MethodType.methodType(boolean.class, Object.class));
+
+      RELINK = lookup.findVirtual(InlineCacheSite.class, "relink", SITE_TYPE);
+      GENERIC = lookup.findVirtual(InlineCacheSite.class, "generic", SITE_TYPE);
+
+      for(int i = 0; i < INVOKE_ARITY.length; i++){
+        MethodType siteType = arityType(i);
+        INVOKE_ARITY[i] = lookup.findStatic(FunctionLinker.class, "invoke" + i, siteType.insertParameterTypes(0, Function.class, FunctionType.class));
+        RELINK_ARITY[i] = lookup.findVirtual(InlineCacheSite.class, "relink" + i, siteType);
+        GENERIC_ARITY[i] = lookup.findVirtual(InlineCacheSite.class, "generic" + i, siteType);
+      }
+    }catch(NoSuchMethodException | IllegalAccessException e){
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static MethodType invokeType(Class<?> ret, Class<?> functionType){
+    return MethodType.methodType(ret, functionType, DynamicObject.class, DataPool.class, ArgumentList.class);
+  }
+
+  private static MethodType arityType(int arity){
+    MethodType res = MethodType.methodType(Object.class, DynamicObject.class, DataPool.class);
+    for(int i = 0; i < arity; i++){
+      res = res.appendParameterTypes(Object.class);
+    }
+    return res;
+  }
+
+  /**获取调用点的实参数量，对于以{@link ArgumentList}传递参数的调用点返回-1*/
+  private static int arity(MethodType siteType){
+    return siteType.parameterCount() == 3 && siteType.parameterType(2) == ArgumentList.class? -1: siteType.parameterCount() - 2;
+  }
+
+  /**委托方法调用点的引导方法，调用点的参数类型应当为{@code (DynamicObject, DataPool, ArgumentList)}，
+   * 返回值类型可以为int，long，float，double，boolean或者Object，对于基本类型的返回值，若选中的函数是相应的{@linkplain Function.IntFunction 基本类型函数}，则返回值不会被装箱。
+   * <p>参数不多于4个的调用点也可以直接传递参数，即参数类型为{@code (DynamicObject, DataPool, Object...)}，此时调用点以{@link Function#invoke0(DynamicObject, FunctionType)}等固定参数数量的方法调用函数
+   *
+   * @param caller 调用者的查找对象
+   * @param name 调用的函数名称
+   * @param type 调用点的类型
+   * @param typeField 调用者类中保存此方法{@linkplain FunctionType 函数类型}的静态字段名称*/
+  public static CallSite bootstrap(MethodHandles.Lookup caller, String name, MethodType type, String typeField) throws Throwable{
+    FunctionType funcType = (FunctionType) caller.findStaticGetter(caller.lookupClass(), typeField, FunctionType.class).invoke();
+    return new InlineCacheSite(FunctionSymbol.of(name, funcType), type);
+  }
+
+  /**使给定名称的函数的所有调用点缓存失效，在数据池中的函数变更时调用
+   *
+   * @param name 发生变更的函数名称*/
+  public static void invalidate(String name){
+    SwitchPoint point = SWITCH_POINTS.remove(name);
+    if(point != null) SwitchPoint.invalidateAll(new SwitchPoint[]{point});
+  }
+
+  /**使给定的一组名称的函数的所有调用点缓存失效，所有{@link SwitchPoint}在同一次操作中失效，在批量变更函数时调用
+   *
+   * @param names 发生变更的函数名称*/
+  public static void invalidate(Collection<String> names){
+    ArrayList<SwitchPoint> points = new ArrayList<>(names.size());
+    for(String name: names){
+      SwitchPoint point = SWITCH_POINTS.remove(name);
+      if(point != null) points.add(point);
+    }
+
+    if(!points.isEmpty()) SwitchPoint.invalidateAll(points.toArray(new SwitchPoint[0]));
+  }
+
+  /**重置所有缓存了给定动态类型的调用点，在动态类型被删除时调用，调用点会在下一次调用时重新进行链接
+   *
+   * @param dyClass 被删除的动态类型*/
+  static void release(DynamicClass dyClass){
+    InlineCacheSite[] sites;
+    synchronized(LINKED_SITES){
+      sites = LINKED_SITES.toArray(new InlineCacheSite[0]);
+    }
+
+    for(InlineCacheSite site: sites){
+      site.evict(dyClass);
+    }
+  }
+
+  private static SwitchPoint switchPoint(String name){
+    return SWITCH_POINTS.computeIfAbsent(name, n -> new SwitchPoint());
+  }
+
+  @SuppressWarnings("unused")
+  private static boolean test(DynamicClass dyClass, Class<?> javaClass, DynamicObject<?> self, DataPool pool){
+    return self.getDyClass() == dyClass && self.getClass() == javaClass && !pool.hasOwnFunction();
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static Object invoke(Function<Object, Object> function, DynamicObject<?> self, DataPool pool, ArgumentList args){
+    return function.invoke((DynamicObject<Object>) self, args);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static int invokeInt(Function.IntFunction<Object> function, DynamicObject<?> self, DataPool pool, ArgumentList args){
+    return function.invokeInt((DynamicObject<Object>) self, args);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static long invokeLong(Function.LongFunction<Object> function, DynamicObject<?> self, DataPool pool, ArgumentList args){
+    return function.invokeLong((DynamicObject<Object>) self, args);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static float invokeFloat(Function.FloatFunction<Object> function, DynamicObject<?> self, DataPool pool, ArgumentList args){
+    return function.invokeFloat((DynamicObject<Object>) self, args);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static double invokeDouble(Function.DoubleFunction<Object> function, DynamicObject<?> self, DataPool pool, ArgumentList args){
+    return function.invokeDouble((DynamicObject<Object>) self, args);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static boolean invokeBool(Function.BoolFunction<Object> function, DynamicObject<?> self, DataPool pool, ArgumentList args){
+    return function.invokeBool((DynamicObject<Object>) self, args);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static Object invoke0(Function<Object, Object> function, FunctionType type, DynamicObject<?> self, DataPool pool){
+    return function.invoke0((DynamicObject<Object>) self, type);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static Object invoke1(Function<Object, Object> function, FunctionType type, DynamicObject<?> self, DataPool pool, Object a0){
+    return function.invoke1((DynamicObject<Object>) self, type, a0);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static Object invoke2(Function<Object, Object> function, FunctionType type, DynamicObject<?> self, DataPool pool, Object a0, Object a1){
+    return function.invoke2((DynamicObject<Object>) self, type, a0, a1);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static Object invoke3(Function<Object, Object> function, FunctionType type, DynamicObject<?> self, DataPool pool, Object a0, Object a1, Object a2){
+    return function.invoke3((DynamicObject<Object>) self, type, a0, a1, a2);
+  }
+
+  @SuppressWarnings({"unused", "unchecked"})
+  private static Object invoke4(Function<Object, Object> function, FunctionType type, DynamicObject<?> self, DataPool pool, Object a0, Object a1, Object a2, Object a3){
+    return function.invoke4((DynamicObject<Object>) self, type, a0, a1, a2, a3);
+  }
+
+  //返回值的拆箱与生成的委托方法中的转换保持一致，接受任何Number
+  @SuppressWarnings("unused")
+  private static int toInt(Object value){
+    return ((Number) value).intValue();
+  }
+
+  @SuppressWarnings("unused")
+  private static long toLong(Object value){
+    return ((Number) value).longValue();
+  }
+
+  @SuppressWarnings("unused")
+  private static float toFloat(Object value){
+    return ((Number) value).floatValue();
+  }
+
+  @SuppressWarnings("unused")
+  private static double toDouble(Object value){
+    return ((Number) value).doubleValue();
+  }
+
+  @SuppressWarnings("unused")
+  private static boolean toBool(Object value){
+    return (Boolean) value;
+  }
+
+  /**将返回Object的句柄适配到调用点的类型，基本类型的返回值以Number进行拆箱*/
+  private static MethodHandle adapt(MethodHandle handle, MethodType siteType){
+    Class<?> ret = siteType.returnType();
+    if(ret == int.class) handle = MethodHandles.filterReturnValue(handle, TO_INT);
+    else if(ret == long.class) handle = MethodHandles.filterReturnValue(handle, TO_LONG);
+    else if(ret == float.class) handle = MethodHandles.filterReturnValue(handle, TO_FLOAT);
+    else if(ret == double.class) handle = MethodHandles.filterReturnValue(handle, TO_DOUBLE);
+    else if(ret == boolean.class) handle = MethodHandles.filterReturnValue(handle, TO_BOOL);
+
+    return handle.asType(siteType);
+  }
+
+  /**为选中的函数创建调用句柄，若调用点需要基本类型返回值且函数为相应的基本类型函数，则直接调用其基本类型方法，固定参数数量的调用点则调用函数相应参数数量的方法*/
+  private static MethodHandle target(Function<?, ?> function, FunctionType type, MethodType siteType){
+    int arity = arity(siteType);
+    if(arity >= 0) return adapt(MethodHandles.insertArguments(INVOKE_ARITY[arity], 0, function, type), siteType);
+
+    Class<?> ret = siteType.returnType();
+    if(ret == int.class && function instanceof Function.IntFunction) return INVOKE_INT.bindTo(function).asType(siteType);
+    if(ret == long.class && function instanceof Function.LongFunction) return INVOKE_LONG.bindTo(function).asType(siteType);
+    if(ret == float.class && function instanceof Function.FloatFunction) return INVOKE_FLOAT.bindTo(function).asType(siteType);
+    if(ret == double.class && function instanceof Function.DoubleFunction) return INVOKE_DOUBLE.bindTo(function).asType(siteType);
+    if(ret == boolean.class && function instanceof Function.BoolFunction) return INVOKE_BOOL.bindTo(function).asType(siteType);
+
+    return adapt(INVOKE.bindTo(function), siteType);
+  }
+
+  private static class InlineCacheSite extends MutableCallSite{
+    private final FunctionSymbol symbol;
+    private final MethodHandle fallback;
+
+    private final ArrayList<Object> cachedKeys = new ArrayList<>();
+    private SwitchPoint currentPoint;
+    private MethodHandle chain;
+    private boolean megamorphic;
+
+    InlineCacheSite(FunctionSymbol symbol, MethodType siteType){
+      super(siteType);
+      this.symbol = symbol;
+      int arity = arity(siteType);
+      this.fallback = adapt((arity >= 0? RELINK_ARITY[arity]: RELINK).bindTo(this), siteType);
+      this.chain = fallback;
+
+      setTarget(fallback);
+    }
+
+    /**选择函数，并在对象的数据池中没有设置函数时将选中的函数加入缓存*/
+    @SuppressWarnings("unchecked")
+    private Function<Object, Object> link(DynamicObject<?> self, DataPool pool){
+      SwitchPoint point = switchPoint(symbol.name());
+      Function<Object, Object> function = select(pool);
+      if(!pool.hasOwnFunction()) install(point, self.getDyClass(), self.getClass(), function);
+
+      return function;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Function<Object, Object> select(DataPool pool){
+      IFunctionEntry entry = pool.select(symbol);
+      if(entry == null)
+        throw new IllegalHandleException("no such method declared: " + symbol);
+
+      return entry.getFunction();
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object relink(DynamicObject<?> self, DataPool pool, ArgumentList args){
+      return link(self, pool).invoke((DynamicObject<Object>) self, args);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object relink0(DynamicObject<?> self, DataPool pool){
+      return link(self, pool).invoke0((DynamicObject<Object>) self, symbol.type());
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object relink1(DynamicObject<?> self, DataPool pool, Object a0){
+      return link(self, pool).invoke1((DynamicObject<Object>) self, symbol.type(), a0);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object relink2(DynamicObject<?> self, DataPool pool, Object a0, Object a1){
+      return link(self, pool).invoke2((DynamicObject<Object>) self, symbol.type(), a0, a1);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object relink3(DynamicObject<?> self, DataPool pool, Object a0, Object a1, Object a2){
+      return link(self, pool).invoke3((DynamicObject<Object>) self, symbol.type(), a0, a1, a2);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object relink4(DynamicObject<?> self, DataPool pool, Object a0, Object a1, Object a2, Object a3){
+      return link(self, pool).invoke4((DynamicObject<Object>) self, symbol.type(), a0, a1, a2, a3);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object generic(DynamicObject<?> self, DataPool pool, ArgumentList args){
+      return select(pool).invoke((DynamicObject<Object>) self, args);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object generic0(DynamicObject<?> self, DataPool pool){
+      return select(pool).invoke0((DynamicObject<Object>) self, symbol.type());
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object generic1(DynamicObject<?> self, DataPool pool, Object a0){
+      return select(pool).invoke1((DynamicObject<Object>) self, symbol.type(), a0);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object generic2(DynamicObject<?> self, DataPool pool, Object a0, Object a1){
+      return select(pool).invoke2((DynamicObject<Object>) self, symbol.type(), a0, a1);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object generic3(DynamicObject<?> self, DataPool pool, Object a0, Object a1, Object a2){
+      return select(pool).invoke3((DynamicObject<Object>) self, symbol.type(), a0, a1, a2);
+    }
+
+    @SuppressWarnings({"unused", "unchecked"})
+    Object generic4(DynamicObject<?> self, DataPool pool, Object a0, Object a1, Object a2, Object a3){
+      return select(pool).invoke4((DynamicObject<Object>) self, symbol.type(), a0, a1, a2, a3);
+    }
+
+    private synchronized void install(SwitchPoint point, DynamicClass dyClass, Class<?> javaClass, Function<Object, Object> function){
+      if(megamorphic) return;
+
+      if(point != currentPoint){
+        currentPoint = point;
+        cachedKeys.clear();
+        chain = fallback;
+      }
+
+      for(int i = 0; i < cachedKeys.size(); i += 2){
+        if(cachedKeys.get(i) == dyClass && cachedKeys.get(i + 1) == javaClass) return;
+      }
+
+      if(cachedKeys.size()/2 >= MAX_POLYMORPHIC){
+        megamorphic = true;
+        int arity = arity(type());
+        setTarget(adapt((arity >= 0? GENERIC_ARITY[arity]: GENERIC).bindTo(this), type()));
+        return;
+      }
+
+      cachedKeys.add(dyClass);
+      cachedKeys.add(javaClass);
+      LINKED_SITES.add(this);
+
+      MethodHandle test = MethodHandles.insertArguments(TEST, 0, dyClass, javaClass);
+      MethodHandle target = target(function, symbol.type(), type());
+      chain = MethodHandles.guardWithTest(test, target, chain);
+
+      setTarget(point.guardWithTest(chain, fallback));
+    }
+
+    /**若缓存中包含给定的动态类型则清空缓存，使调用点回到未链接的状态*/
+    private synchronized void evict(DynamicClass dyClass){
+      if(!cachedKeys.contains(dyClass)) return;
+
+      cachedKeys.clear();
+      currentPoint = null;
+      chain = fallback;
+      setTarget(fallback);
+      LINKED_SITES.remove(this);
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package dynamilize;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**函数符号，将函数名称与形式参数类型驻留为全局唯一的对象，并分配一个紧凑的整数id。
+ * <p>以符号访问函数时，{@linkplain DataPool 数据池}通过符号的id直接索引函数入口，不需要对函数名称和类型进行散列，
+ * 在需要频繁调用的地方，应当将符号保存为常量以重复使用，例如：
+ * <pre>{@code
+ * static final FunctionSymbol RUN = FunctionSymbol.of("run", String.class);
+ * ...
+ * dyObject.invokeFunc(RUN, "text");
+ * }</pre>
+ * 同名同参数类型的符号总是同一个对象。符号保存在其{@linkplain FunctionType#intern(Class[]) 驻留类型}中，参数类型以类对象而非类名区分，
+ * 不同类加载器加载的同名类型具有不同的符号，符号不再被引用时随驻留类型一同被回收，不会持有已卸载的类型。
+ *
+ * @author EBwilson */
+public final class FunctionSymbol{
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  private final int id;
+  private final String name;
+  private final FunctionType type;
+
+  private FunctionSymbol(int id, String name, FunctionType type){
+    this.id = id;
+    this.name = name;
+    this.type = type;
+  }
+
+  /**获取给定名称与参数类型的函数符号
+   *
+   * @param name 函数名称
+   * @param argTypes 函数的形式参数类型*/
+  public static FunctionSymbol of(String name, Class<?>... argTypes){
+    return of(name, FunctionType.intern(argTypes));
+  }
+
+  /**获取给定名称与函数类型的函数符号，传入的类型对象不会被符号持有，在此之后回收类型对象是安全的
+   *
+   * @param name 函数名称
+   * @param type 函数的参数类型*/
+  public static FunctionSymbol of(String name, FunctionType type){
+    FunctionType interned = FunctionType.intern(type);
+    ConcurrentHashMap<String, FunctionSymbol> symbols = interned.symbols();
+    FunctionSymbol res = symbols.get(name);
+    if(res != null) return res;
+
+    return symbols.computeIfAbsent(name, n -> new FunctionSymbol(
+        COUNTER.getAndIncrement(),
+        n,
+        interned
+    ));
+  }
+
+  /**当前已分配的符号id数量（包括已被回收的符号），任何符号的id都小于此值*/
+  public static int count(){
+    return COUNTER.get();
+  }
+
+  public int id(){
+    return id;
+  }
+
+  public String name(){
+    return name;
+  }
+
+  public FunctionType type(){
+    return type;
+  }
+
+  @Override
+  public String toString(){
+    return FunctionType.signature(name, type);
+  }
+}
@@ -3,24 +3,35 @@ package dynamilize;
 import dynamilize.classmaker.ClassInfo;
 
 import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**函数类型封装对象，记录函数的参数类型用于比对和搜索函数
+ * <p>通过{@link FunctionType#intern(Class[])}获取的类型对象是全局唯一且不可变的，相同参数类型的驻留对象总是同一个对象，
+ * 驻留对象之间的比较只需要比较引用，对驻留对象调用{@link FunctionType#recycle()}没有任何效果。
+ * 驻留表对类型对象是弱引用的，不再被使用的驻留对象会被回收
  *
  * @author EBwilson */
 public class FunctionType{
-  /**复用回收区容量，改数值通常不需要设置，但如果您可能需要大规模的递归或大量的并发调用，那么您可能需要将这个限制设置为一个更高的数值*/
+  /**每个线程的复用回收区容量，改数值通常不需要设置，但如果您可能需要大规模的递归或大量的并发调用，那么您可能需要将这个限制设置为一个更高的数值*/
   public static int MAX_RECYCLE = 4096;
 
   private static final Class<?>[] EMPTY = new Class[0];
-  private static final Stack<FunctionType> RECYCLE_POOL = new Stack<>();
+  private static final RecyclePool<FunctionType> RECYCLE_POOL = new RecyclePool<>(() -> new FunctionType(EMPTY), () -> MAX_RECYCLE);
+
+  private static final ConcurrentHashMap<InternKey, InternRef> INTERNED = new ConcurrentHashMap<>();
+  private static final ReferenceQueue<FunctionType> INTERN_QUEUE = new ReferenceQueue<>();
 
   private Class<?>[] paramType;
   private int hash;
+  private boolean interned;
+  /**以此驻留类型为参数类型的函数符号，以函数名称为键，符号随驻留类型一同被回收*/
+  private volatile ConcurrentHashMap<String, FunctionSymbol> symbols;
 
   private FunctionType(Class<?>... paramType){
     this.paramType = paramType;
@@ -70,14 +81,65 @@ public class FunctionType{
     return inst(paramType.toArray(new Class[0]));
   }
 
-  public static synchronized FunctionType inst(Class<?>... paramType){
-    if(RECYCLE_POOL.isEmpty()) return new FunctionType(paramType);
-    FunctionType res = RECYCLE_POOL.pop();
+  public static FunctionType inst(Class<?>... paramType){
+    FunctionType res = RECYCLE_POOL.obtain();
     res.paramType = paramType;
     res.hash = Arrays.hashCode(paramType);
     return res;
   }
 
+  /**获取给定参数类型的驻留类型对象，相同参数类型总是返回同一个对象。传入的数组不会被类型对象持有
+   *
+   * @param paramType 函数的形式参数类型
+   * @return 全局唯一的不可变类型对象*/
+  public static FunctionType intern(Class<?>... paramType){
+    InternRef ref = INTERNED.get(new InternKey(paramType));
+    FunctionType res = ref == null? null: ref.get();
+    if(res != null) return res;
+
+    expungeInterned();
+
+    Class<?>[] types = paramType.clone();
+    InternKey key = new InternKey(types);
+    while(true){
+      ref = INTERNED.computeIfAbsent(key, k -> {
+        FunctionType type = new FunctionType(types);
+        type.interned = true;
+        return new InternRef(k, type, INTERN_QUEUE);
+      });
+
+      res = ref.get();
+      if(res != null) return res;
+
+      INTERNED.remove(key, ref);
+    }
+  }
+
+  /**获取与给定类型参数相同的驻留类型对象
+   *
+   * @see FunctionType#intern(Class[])*/
+  public static FunctionType intern(FunctionType type){
+    return type.interned? type: intern(type.paramType);
+  }
+
+  /**获取此驻留类型的函数符号表，由{@link FunctionSymbol#of(String, FunctionType)}使用*/
+  ConcurrentHashMap<String, FunctionSymbol> symbols(){
+    ConcurrentHashMap<String, FunctionSymbol> res = symbols;
+    if(res != null) return res;
+
+    synchronized(this){
+      if(symbols == null) symbols = new ConcurrentHashMap<>();
+      return symbols;
+    }
+  }
+
+  private static void expungeInterned(){
+    InternRef ref;
+    while((ref = (InternRef) INTERN_QUEUE.poll()) != null){
+      INTERNED.remove(ref.key, ref);
+    }
+  }
+
   public static FunctionType inst(Method method){
     return inst(method.getParameterTypes());
   }
@@ -111,11 +173,11 @@ public class FunctionType{
   }
 
   public static FunctionType from(MethodType type){
-    return inst(type.parameterArray());
+    return intern(type.parameterArray());
   }
 
   public static FunctionType from(Executable method){
-    return inst(method.getParameterTypes());
+    return intern(method.getParameterTypes());
   }
 
   public static FunctionType generic(int argCount){
@@ -159,19 +221,25 @@ public class FunctionType{
     return paramType;
   }
 
+  /**是否为{@linkplain FunctionType#intern(Class[]) 驻留}的类型对象*/
+  public boolean isInterned(){
+    return interned;
+  }
+
   public void recycle(){
-    if(RECYCLE_POOL.size() >= MAX_RECYCLE) return;
+    if(interned) return;
 
     paramType = EMPTY;
     hash = -1;
-    RECYCLE_POOL.push(this);
+    RECYCLE_POOL.free(this);
   }
 
   @Override
   public boolean equals(Object o){
     if(this == o) return true;
     if(!(o instanceof FunctionType that)) return false;
-    return paramType.length == that.paramType.length && hashCode() == o.hashCode();
+    if(interned && that.interned) return false;
+    return hash == that.hash && Arrays.equals(paramType, that.paramType);
   }
 
   @Override
@@ -179,6 +247,35 @@ public class FunctionType{
     return hash;
   }
 
+  private static class InternKey{
+    private final Class<?>[] types;
+    private final int hash;
+
+    InternKey(Class<?>[] types){
+      this.types = types;
+      this.hash = Arrays.hashCode(types);
+    }
+
+    @Override
+    public boolean equals(Object o){
+      return o instanceof InternKey that && hash == that.hash && Arrays.equals(types, that.types);
+    }
+
+    @Override
+    public int hashCode(){
+      return hash;
+    }
+  }
+
+  private static class InternRef extends WeakReference<FunctionType>{
+    private final InternKey key;
+
+    InternRef(InternKey key, FunctionType type, ReferenceQueue<FunctionType> queue){
+      super(type, queue);
+      this.key = key;
+    }
+  }
+
   @Override
   public String toString(){
     StringBuilder b = new StringBuilder("(");
@@ -25,4 +25,129 @@ public interface IVariable{
   void set(DynamicObject<?> obj, long value);
   void set(DynamicObject<?> obj, float value);
   void set(DynamicObject<?> obj, double value);
+
+  //atomic operations
+  /**以原子操作比较并设置变量的值，当变量的当前值与期望值为同一对象时设置为新值
+   *
+   * @param obj 变量所在的对象
+   * @param expect 期望的当前值
+   * @param update 新的值
+   * @return 是否设置成功*/
+  boolean compareAndSet(DynamicObject<?> obj, Object expect, Object update);
+
+  /**以原子操作比较并设置基本类型变量的值，变量尚未赋值时视为该类型的默认值，浮点数按其二进制表示比较*/
+  boolean compareAndSet(DynamicObject<?> obj, boolean expect, boolean update);
+  boolean compareAndSet(DynamicObject<?> obj, byte expect, byte update);
+  boolean compareAndSet(DynamicObject<?> obj, short expect, short update);
+  boolean compareAndSet(DynamicObject<?> obj, int expect, int update);
+  boolean compareAndSet(DynamicObject<?> obj, long expect, long update);
+  boolean compareAndSet(DynamicObject<?> obj, float expect, float update);
+  boolean compareAndSet(DynamicObject<?> obj, double expect, double update);
+
+  /**以原子操作为整数变量加上给出的值
+   *
+   * @return 变量原先的值*/
+  default int getAndAdd(DynamicObject<?> obj, int delta){
+    int prev;
+    do{
+      prev = get(obj, 0);
+    }while(!compareAndSet(obj, prev, prev + delta));
+
+    return prev;
+  }
+
+  /**以原子操作为长整数变量加上给出的值
+   *
+   * @return 变量原先的值*/
+  default long getAndAdd(DynamicObject<?> obj, long delta){
+    long prev;
+    do{
+      prev = get(obj, 0L);
+    }while(!compareAndSet(obj, prev, prev + delta));
+
+    return prev;
+  }
+
+  /**以原子操作使用运算器更新变量的值，在并发修改时运算器可能被调用多次，因此运算器不应当具有副作用
+   *
+   * @return 更新后的值*/
+  default <T> T update(DynamicObject<?> obj, Calculator<T> calculator){
+    T prev, next;
+    do{
+      prev = get(obj);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, (Object) prev, (Object) next));
+
+    return next;
+  }
+
+  default boolean update(DynamicObject<?> obj, Calculator.BoolCalculator calculator){
+    boolean prev, next;
+    do{
+      prev = get(obj, false);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
+
+  default byte update(DynamicObject<?> obj, Calculator.ByteCalculator calculator){
+    byte prev, next;
+    do{
+      prev = get(obj, (byte) 0);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
+
+  default short update(DynamicObject<?> obj, Calculator.ShortCalculator calculator){
+    short prev, next;
+    do{
+      prev = get(obj, (short) 0);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
+
+  default int update(DynamicObject<?> obj, Calculator.IntCalculator calculator){
+    int prev, next;
+    do{
+      prev = get(obj, 0);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
+
+  default long update(DynamicObject<?> obj, Calculator.LongCalculator calculator){
+    long prev, next;
+    do{
+      prev = get(obj, 0L);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
+
+  default float update(DynamicObject<?> obj, Calculator.FloatCalculator calculator){
+    float prev, next;
+    do{
+      prev = get(obj, 0f);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
+
+  default double update(DynamicObject<?> obj, Calculator.DoubleCalculator calculator){
+    double prev, next;
+    do{
+      prev = get(obj, 0d);
+      next = calculator.calculate(prev);
+    }while(!compareAndSet(obj, prev, next));
+
+    return next;
+  }
 }
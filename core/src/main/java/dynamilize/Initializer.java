@@ -2,15 +2,33 @@ package dynamilize;
 
 public class Initializer<T>{
   private final Producer<T> init;
+  private final boolean constant;
 
   public Initializer(Producer<T> init){
+    this(init, false);
+  }
+
+  private Initializer(Producer<T> init, boolean constant){
     this.init = init;
+    this.constant = constant;
+  }
+
+  /**创建一个常量初始化器，常量默认值只保存在动态类型中，实例写入自身的值之前读取到的都是这个值，实例化时不需要为实例复制
+   *
+   * @param value 常量值*/
+  public static <T> Initializer<T> constant(T value){
+    return new Initializer<>(() -> value, true);
   }
 
   public Object getInit(){
     return init.get();
   }
 
+  /**此初始化器是否为{@linkplain Initializer#constant(Object) 常量初始化器}*/
+  public boolean isConstant(){
+    return constant;
+  }
+
   public interface Producer<T>{
     T get();
   }
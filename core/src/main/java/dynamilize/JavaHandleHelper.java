@@ -13,4 +13,15 @@ public interface JavaHandleHelper{
   IVariable genJavaVariableRef(Field field);
 
   IFunctionEntry genJavaMethodRef(Method method);
+
+  /**为{@linkplain DynamicClass#visitClass(Class, JavaHandleHelper) 行为样版}中的方法生成直接调用样版方法的函数，通常为{@link TemplateInvoker#makeClassInfo(Method, String)}生成的调用器类型的实例。
+   * <p>默认实现返回null，此时动态类使用{@link JavaHandleHelper#genJavaMethodRef(Method)}生成的函数调用样版方法
+   *
+   * @param method 样版方法
+   * @param pool 设置函数的数据池
+   * @param symbol 函数的符号
+   * @return 调用样版方法的函数，若无法生成则返回null*/
+  default Function<?, ?> genTemplateInvoker(Method method, DataPool pool, FunctionSymbol symbol){
+    return null;
+  }
 }
@@ -82,7 +82,7 @@ public abstract class PackageAccHandler {
   public static final ILocal[] A = new ILocal[0];
   private final Map<Class<?>, Class<?>> classMap = new HashMap<>();
 
-  public <T> Class<? extends T> handle(Class<T> baseClass) {
+  public synchronized <T> Class<? extends T> handle(Class<T> baseClass) {
     return (Class<? extends T>) classMap.computeIfAbsent(baseClass, c -> {
       Class<?> curr = c;
       Class<?> opening = null;
@@ -1,10 +1,10 @@
 package dynamilize;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**代理创建工具，用于生成类似{@linkplain  java.lang.reflect.Proxy java代理工具}的面向切面代理实例，但不同的是这允许从类型进行委托，类似于<i>cglib</i>。
  * <p>通过此工具创建的代理实例会将所有可用（非static/final/private/package private）方法调用转入代理调用处理器，在此工具中被声明为了{@link ProxyMaker#invoke(DynamicObject, FuncMarker, FuncMarker, ArgumentList)}])}。
@@ -25,11 +25,16 @@ import java.util.WeakHashMap;
  * @since 1.2
  * @author EBwilson */
 public abstract class ProxyMaker{
-  private static final Map<DynamicClass, Map<ClassImplements<?>, DynamicClass>> proxyMap = new WeakHashMap<>();
-  private static final Map<ClassImplements<?>, DynamicClass> nonSuperProxy = new HashMap<>();
+  private static final AtomicInteger counter = new AtomicInteger();
   public static final Class<?>[] EMPTY_CLASSES = new Class[0];
   public static final Object[] EMPTY_ARGS = new Object[0];
 
+  /**代理动态类型的函数引用了此生成器的代理处理器，因此代理类型由每个代理生成器各自持有。
+   * 以动态类型为超类的代理类型声明在超类所在的注册表中，超类被删除时一同删除*/
+  private final Map<DynamicClass, Map<ClassImplements<?>, DynamicClass>> proxyMap = new ConcurrentHashMap<>();
+  private final Map<ClassImplements<?>, DynamicClass> nonSuperProxy = new ConcurrentHashMap<>();
+  private final int id = counter.getAndIncrement();
+
   protected final DynamicMaker maker;
 
   protected ProxyMaker(DynamicMaker maker){
@@ -103,10 +108,15 @@ public abstract class ProxyMaker{
    * @return 声明为代理实现的动态类型*/
   private <T> DynamicClass getProxyDyClass(DynamicClass dynamicClass, Class<T> base, Class<?>[] interfaces, Class<?>[] aspects){
     ClassImplements<T> impl = new ClassImplements<>(base, interfaces, aspects);
-    DynamicClass dyc = dynamicClass == null? nonSuperProxy.get(impl): proxyMap.computeIfAbsent(dynamicClass, e -> new HashMap<>()).get(impl);
+    Map<ClassImplements<?>, DynamicClass> proxies = dynamicClass == null? nonSuperProxy: proxiesOf(dynamicClass);
+    DynamicClass dyc = proxies.get(impl);
+    if(dyc != null) return dyc;
+
+    synchronized(proxies){
+      dyc = proxies.get(impl);
+      if(dyc != null) return dyc;
 
-    if(dyc == null){
-      dyc = dynamicClass == null? DynamicClass.get("defProxy$" + impl): DynamicClass.declare(dynamicClass.getName() + "$proxy$" + impl, dynamicClass);
+      dyc = dynamicClass == null? DynamicClass.get("defProxy$" + id + "$" + impl): dynamicClass.registry().declare(dynamicClass.getName() + "$proxy$" + id + "$" + impl, dynamicClass);
 
       Class<?> dyBase = maker.getDynamicBase(base, interfaces, aspects);
       for(Method method: dyBase.getDeclaredMethods()){
@@ -141,12 +151,35 @@ public abstract class ProxyMaker{
         }
       }
 
-      (dynamicClass == null? nonSuperProxy: proxyMap.get(dynamicClass)).put(impl, dyc);
+      proxies.put(impl, dyc);
     }
 
     return dyc;
   }
 
+  /**获取以动态类型为超类的代理类型表，首次获取时在动态类型上添加释放操作，类型被删除时移除代理类型表并删除其中的代理类型*/
+  private Map<ClassImplements<?>, DynamicClass> proxiesOf(DynamicClass dynamicClass){
+    Map<ClassImplements<?>, DynamicClass> res = proxyMap.get(dynamicClass);
+    if(res != null) return res;
+
+    Map<ClassImplements<?>, DynamicClass> created = new ConcurrentHashMap<>();
+    res = proxyMap.putIfAbsent(dynamicClass, created);
+    if(res != null) return res;
+
+    WeakReference<ProxyMaker> ref = new WeakReference<>(this);
+    dynamicClass.onRelease(() -> {
+      ProxyMaker maker = ref.get();
+      Map<ClassImplements<?>, DynamicClass> proxies = maker == null? created: maker.proxyMap.remove(dynamicClass);
+      if(proxies == null) return;
+
+      for(DynamicClass proxy: proxies.values()){
+        proxy.release();
+      }
+    });
+
+    return created;
+  }
+
   /**代理处理器，所有被代理的方法执行被拦截都会转入该方法，方法/函数都会以一个匿名函数的形式传递给这个方法
    * <p>默认实现调用会传入给出的匿名函数，否则子类应当按需要的代理处理方式实现此方法
    *
@@ -167,8 +200,7 @@ public abstract class ProxyMaker{
   public static class FunctionMarker implements FuncMarker{
     public static int maxPoolSize = 4096;
 
-    private static FunctionMarker[] pool = new FunctionMarker[128];
-    private static int cursor = -1;
+    private static final RecyclePool<FunctionMarker> pool = new RecyclePool<>(FunctionMarker::new, () -> maxPoolSize);
 
     private String name;
     private FunctionType type;
@@ -176,7 +208,7 @@ public abstract class ProxyMaker{
     private Function<?, Object> function;
 
     private static FunctionMarker make(IFunctionEntry functionEntry){
-      FunctionMarker res = cursor < 0? new FunctionMarker(): pool[cursor];
+      FunctionMarker res = pool.obtain();
 
       res.name = functionEntry.getName();
       res.type = functionEntry.getType();
@@ -213,14 +245,7 @@ public abstract class ProxyMaker{
       function = null;
       entry = null;
 
-      if (cursor >= maxPoolSize) return;
-
-      cursor++;
-      if (cursor >= pool.length){
-        pool = Arrays.copyOf(pool, pool.length*2);
-      }
-
-      pool[cursor] = this;
+      pool.free(this);
     }
   }
 
@@ -0,0 +1,60 @@
+package dynamilize;
+
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**可复用对象的回收池，每一个线程持有一个独立的有界空闲列表，取出与回收对象都不需要任何同步，也不会在虚拟线程上固定载体线程。
+ * <p>空闲列表以栈的方式工作，每一次{@link RecyclePool#obtain()}都会得到一个不同的对象，因此重入与递归调用中嵌套的取出是安全的，
+ * 只要对象在回收后不再被使用。回收到其他线程的对象会进入该线程的空闲列表，空闲列表的容量达到上限后，继续回收的对象将被丢弃。
+ * <p>以系统属性{@code -Ddynamilize.pool.disable=true}启动时，所有回收池都不再保存对象，取出总是构造新的对象，此时短生命周期的对象交由JIT的逃逸分析处理。
+ *
+ * @author EBwilson */
+public class RecyclePool<T>{
+  /**是否启用对象回收，由系统属性{@code dynamilize.pool.disable}决定*/
+  public static final boolean POOLING = !Boolean.getBoolean("dynamilize.pool.disable");
+
+  private final Supplier<T> factory;
+  private final IntSupplier maxSize;
+  private final ThreadLocal<FreeList> local = ThreadLocal.withInitial(FreeList::new);
+
+  /**创建一个回收池
+   *
+   * @param factory 空闲列表为空时用于构造新对象的工厂
+   * @param maxSize 每个线程的空闲列表的容量上限*/
+  public RecyclePool(Supplier<T> factory, IntSupplier maxSize){
+    this.factory = factory;
+    this.maxSize = maxSize;
+  }
+
+  /**从当前线程的空闲列表中取出一个对象，若列表为空则构造一个新的对象*/
+  @SuppressWarnings("unchecked")
+  public T obtain(){
+    if(!POOLING) return factory.get();
+
+    FreeList list = local.get();
+    if(list.size == 0) return factory.get();
+
+    Object res = list.items[--list.size];
+    list.items[list.size] = null;
+    return (T) res;
+  }
+
+  /**将对象回收到当前线程的空闲列表，若列表已达到容量上限则丢弃此对象*/
+  public void free(T item){
+    if(!POOLING) return;
+
+    FreeList list = local.get();
+    if(list.size >= maxSize.getAsInt()) return;
+
+    if(list.size >= list.items.length){
+      list.items = Arrays.copyOf(list.items, list.items.length*2);
+    }
+    list.items[list.size++] = item;
+  }
+
+  private static class FreeList{
+    Object[] items = new Object[16];
+    int size;
+  }
+}
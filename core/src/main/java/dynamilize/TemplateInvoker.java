@@ -0,0 +1,195 @@
+package dynamilize;
+
+import dynamilize.classmaker.ClassInfo;
+import dynamilize.classmaker.CodeBlock;
+import dynamilize.classmaker.Parameter;
+import dynamilize.classmaker.code.IClass;
+import dynamilize.classmaker.code.ILocal;
+import dynamilize.classmaker.code.IMethod;
+import dynamilize.runtimeannos.Super;
+import dynamilize.runtimeannos.This;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static dynamilize.classmaker.ClassInfo.*;
+import static dynamilize.classmaker.CodeBlock.stack;
+
+/**{@linkplain DynamicClass#visitClass(Class, JavaHandleHelper) 行为样版}中方法的直接调用器的基类，调用器类型由{@link TemplateInvoker#makeClassInfo(Method, String)}为每一个样版方法生成，
+ * 其函数方法从参数列表的槽位中取出参数，注入{@link This}与{@link Super}指针并以invokestatic直接调用样版方法，样版方法的方法体可以被JIT内联到函数的调用处。
+ * <p>生成的类型大致为如下形式：
+ * <pre>{@code
+ * public class Template$invoker$method extends TemplateInvoker{
+ *   public Template$invoker$method(DataPool pool, FunctionSymbol symbol){
+ *     super(pool, symbol);
+ *   }
+ *
+ *   public Object invoke(DynamicObject self, ArgumentList args){
+ *     DataPool.ReadOnlyPool su = superPointer(self);
+ *     Object res = Template.method(self, su, (String) args.get(0), args.getInt(1));
+ *     release(su);
+ *     return res;
+ *   }
+ *
+ *   public Object invoke2(DynamicObject self, FunctionType type, Object a0, Object a1){
+ *     DataPool.ReadOnlyPool su = superPointer(self);
+ *     Object res = Template.method(self, su, (String) a0, (Integer) a1);
+ *     release(su);
+ *     return res;
+ *   }
+ * }
+ * }</pre>
+ * 参数不多于4个的样版方法会同时生成相应参数数量的{@link Function#invoke0(DynamicObject, FunctionType)}等方法。
+ * 生成的类型需要能够访问样版方法，因此通常应当被定义在样版类所在的包中
+ *
+ * @author EBwilson */
+public abstract class TemplateInvoker implements Function<Object, Object>{
+  private static final ClassInfo<TemplateInvoker> INVOKER_TYPE = asType(TemplateInvoker.class);
+  private static final ClassInfo<DataPool> DATA_POOL_TYPE = asType(DataPool.class);
+  private static final ClassInfo<DataPool.ReadOnlyPool> READONLY_POOL_TYPE = asType(DataPool.ReadOnlyPool.class);
+  private static final ClassInfo<FunctionSymbol> FUNCTION_SYMBOL_TYPE = asType(FunctionSymbol.class);
+  private static final ClassInfo<FunctionType> FUNCTION_TYPE_TYPE = asType(FunctionType.class);
+  @SuppressWarnings("rawtypes")
+  private static final ClassInfo<DynamicObject> DYNAMIC_OBJECT_TYPE = asType(DynamicObject.class);
+  private static final ClassInfo<ArgumentList> ARG_LIST_TYPE = asType(ArgumentList.class);
+
+  private static final IMethod<TemplateInvoker, Void> CONSTRUCTOR = INVOKER_TYPE.getConstructor(DATA_POOL_TYPE, FUNCTION_SYMBOL_TYPE);
+  private static final IMethod<TemplateInvoker, DataPool.ReadOnlyPool> SUPER_POINTER = INVOKER_TYPE.getMethod(READONLY_POOL_TYPE, "superPointer", DYNAMIC_OBJECT_TYPE);
+  private static final IMethod<TemplateInvoker, Void> RELEASE = INVOKER_TYPE.getMethod(VOID_TYPE, "release", READONLY_POOL_TYPE);
+
+  private static final IMethod<ArgumentList, Object> GET_ARG = ARG_LIST_TYPE.getMethod(OBJECT_TYPE, "get", INT_TYPE);
+  private static final IMethod<ArgumentList, Integer> GET_ARG_INT = ARG_LIST_TYPE.getMethod(INT_TYPE, "getInt", INT_TYPE);
+  private static final IMethod<ArgumentList, Long> GET_ARG_LONG = ARG_LIST_TYPE.getMethod(LONG_TYPE, "getLong", INT_TYPE);
+  private static final IMethod<ArgumentList, Float> GET_ARG_FLOAT = ARG_LIST_TYPE.getMethod(FLOAT_TYPE, "getFloat", INT_TYPE);
+  private static final IMethod<ArgumentList, Double> GET_ARG_DOUBLE = ARG_LIST_TYPE.getMethod(DOUBLE_TYPE, "getDouble", INT_TYPE);
+  private static final IMethod<ArgumentList, Boolean> GET_ARG_BOOLEAN = ARG_LIST_TYPE.getMethod(BOOLEAN_TYPE, "getBoolean", INT_TYPE);
+
+  /**设置此函数的数据池*/
+  protected final DataPool pool;
+  /**此函数的符号，用于预先链接超函数*/
+  protected final FunctionSymbol symbol;
+
+  protected TemplateInvoker(DataPool pool, FunctionSymbol symbol){
+    this.pool = pool;
+    this.symbol = symbol;
+  }
+
+  /**获取传递给样版方法的{@link Super}指针*/
+  protected final DataPool.ReadOnlyPool superPointer(DynamicObject<?> self){
+    return pool.getSuper(self, self.baseSuperPointer(), symbol);
+  }
+
+  /**回收{@link TemplateInvoker#superPointer(DynamicObject)}获取的指针*/
+  protected static void release(DataPool.ReadOnlyPool superPointer){
+    if(superPointer != null) superPointer.recycle();
+  }
+
+  /**为样版方法创建调用器的类型描述，方法必须是静态的，{@link This}与{@link Super}参数的规则与{@link DynamicClass#visitClass(Class, JavaHandleHelper)}一致
+   *
+   * @param method 样版方法
+   * @param name 生成的类型的完整名称
+   * @return 调用器的类型描述，其构造器参数为{@code (DataPool, FunctionSymbol)}*/
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public static ClassInfo<? extends TemplateInvoker> makeClassInfo(Method method, String name){
+    if(!Modifier.isStatic(method.getModifiers()))
+      throw new IllegalHandleException("cannot assign a non-static method to function");
+
+    java.lang.reflect.Parameter[] params = method.getParameters();
+    boolean thisP = params.length > 0 && params[0].getAnnotation(This.class) != null;
+    int superIndex = thisP? 1: 0;
+    boolean superP = params.length > superIndex && params[superIndex].getAnnotation(Super.class) != null;
+    int offset = (thisP? 1: 0) + (superP? 1: 0);
+
+    IClass<?>[] paramTypes = new IClass[params.length];
+    for(int i = 0; i < params.length; i++){
+      paramTypes[i] = asType(params[i].getType());
+    }
+    IMethod<?, ?> template = asType(method.getDeclaringClass()).getMethod(asType(method.getReturnType()), method.getName(), paramTypes);
+
+    ClassInfo<? extends TemplateInvoker> classInfo = new ClassInfo<>(Modifier.PUBLIC | Modifier.FINAL, name, INVOKER_TYPE);
+
+    CodeBlock<Void> cstr = classInfo.declareConstructor(Modifier.PUBLIC, Parameter.trans(DATA_POOL_TYPE, FUNCTION_SYMBOL_TYPE));
+    cstr.invokeSuper(cstr.getThis(), CONSTRUCTOR, null, cstr.getParamList().toArray(new ILocal<?>[0]));
+
+    int argCount = params.length - offset;
+
+    //public Object invoke(DynamicObject self, ArgumentList args)
+    {
+      CodeBlock<Object> code = classInfo.declareMethod(Modifier.PUBLIC, "invoke", OBJECT_TYPE, Parameter.trans(DYNAMIC_OBJECT_TYPE, ARG_LIST_TYPE));
+      ILocal<ArgumentList> args = code.getRealParam(1);
+
+      ILocal<?>[] locals = new ILocal[params.length];
+      for(int i = 0; i < argCount; i++){
+        IClass<?> type = paramTypes[i + offset];
+        ILocal<?> local = code.local(type);
+
+        code.assign(args, stack(ARG_LIST_TYPE));
+        code.loadConstant(stack(INT_TYPE), i);
+        code.invoke(stack(ARG_LIST_TYPE), argGetter(type), (ILocal) local, stack(INT_TYPE));
+        locals[i + offset] = local;
+      }
+
+      callTemplate(code, template, paramTypes, locals, thisP, superP);
+    }
+
+    //public Object invokeN(DynamicObject self, FunctionType type, Object a0, ...)
+    if(argCount <= 4){
+      IClass<?>[] argTypes = new IClass[argCount + 2];
+      argTypes[0] = DYNAMIC_OBJECT_TYPE;
+      argTypes[1] = FUNCTION_TYPE_TYPE;
+      for(int i = 0; i < argCount; i++){
+        argTypes[i + 2] = OBJECT_TYPE;
+      }
+
+      CodeBlock<Object> code = classInfo.declareMethod(Modifier.PUBLIC, "invoke" + argCount, OBJECT_TYPE, Parameter.trans(argTypes));
+
+      ILocal<?>[] locals = new ILocal[params.length];
+      for(int i = 0; i < argCount; i++){
+        ILocal<?> local = code.local(paramTypes[i + offset]);
+        code.cast(code.getRealParam(i + 2), local);
+        locals[i + offset] = local;
+      }
+
+      callTemplate(code, template, paramTypes, locals, thisP, superP);
+    }
+
+    return classInfo;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static void callTemplate(CodeBlock<Object> code, IMethod<?, ?> template, IClass<?>[] paramTypes, ILocal<?>[] locals, boolean thisP, boolean superP){
+    ILocal<DynamicObject> self = code.getRealParam(0);
+    ILocal<DataPool.ReadOnlyPool> superPointer = null;
+
+    if(thisP){
+      ILocal<?> local = code.local(paramTypes[0]);
+      code.cast(self, local);
+      locals[0] = local;
+    }
+    if(superP){
+      superPointer = code.local(READONLY_POOL_TYPE);
+      code.invoke(code.getThis(), SUPER_POINTER, superPointer, self);
+      locals[thisP? 1: 0] = superPointer;
+    }
+
+    ILocal<Object> res = code.local(OBJECT_TYPE);
+    if(template.returnType() == VOID_TYPE){
+      code.invokeStatic(template, null, locals);
+      code.loadConstant(res, null);
+    }
+    else code.invokeStatic((IMethod) template, res, locals);
+
+    if(superPointer != null) code.invokeStatic(RELEASE, null, superPointer);
+
+    code.returnValue(res);
+  }
+
+  private static IMethod<ArgumentList, ?> argGetter(IClass<?> type){
+    if(type == INT_TYPE || type == BYTE_TYPE || type == SHORT_TYPE || type == CHAR_TYPE) return GET_ARG_INT;
+    if(type == LONG_TYPE) return GET_ARG_LONG;
+    if(type == FLOAT_TYPE) return GET_ARG_FLOAT;
+    if(type == DOUBLE_TYPE) return GET_ARG_DOUBLE;
+    if(type == BOOLEAN_TYPE) return GET_ARG_BOOLEAN;
+    return GET_ARG;
+  }
+}
@@ -0,0 +1,119 @@
+package dynamilize;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**动态变量的布局（隐藏类），描述了一组变量到对象中变量槽位的映射。
+ * <p>对象只保存当前的布局与一个按槽位索引的紧凑数组，具有相同变量集合（且以相同顺序定义）的对象共享同一个布局对象。
+ * 对象定义新的变量时沿布局间缓存的迁移转换到后继布局，变量的槽位一经分配便不再改变，因此同一变量在一个布局及其所有后继布局中的槽位都相同，
+ * {@link Variable}据此只需缓存上一次访问的槽位，并检查当前布局中该槽位是否仍为此变量。
+ * <p>对象的布局为null时视为{@link VarShape#EMPTY}，此时对象尚未分配槽位数组
+ *
+ * @author EBwilson */
+public final class VarShape{
+  /**不含任何变量的根布局*/
+  public static final VarShape EMPTY = new VarShape(null, new VarSymbol[0]);
+
+  private final VarShape parent;
+  private final VarSymbol[] symbols;
+  private final ConcurrentHashMap<VarSymbol, VarShape> transitions = new ConcurrentHashMap<>();
+
+  /**经由此布局到达过的最大变量数量，对象扩充槽位数组时会一次性分配到此长度，避免随每一个变量的定义反复扩容*/
+  private volatile int expectedSize;
+
+  private VarShape(VarShape parent, VarSymbol[] symbols){
+    this.parent = parent;
+    this.symbols = symbols;
+    this.expectedSize = symbols.length;
+  }
+
+  /**此布局中的变量数量*/
+  public int size(){
+    return symbols.length;
+  }
+
+  /**获取槽位上的变量符号*/
+  public VarSymbol symbolAt(int slot){
+    return symbols[slot];
+  }
+
+  /**检查给出的槽位在此布局中是否为指定的变量*/
+  public boolean holds(int slot, VarSymbol symbol){
+    return slot >= 0 && slot < symbols.length && symbols[slot] == symbol;
+  }
+
+  /**获取变量在此布局中的槽位
+   *
+   * @return 变量的槽位，若此布局中没有此变量则返回-1*/
+  public int slotOf(VarSymbol symbol){
+    for(int i = 0; i < symbols.length; i++){
+      if(symbols[i] == symbol) return i;
+    }
+    return -1;
+  }
+
+  /**获取在此布局上追加一个变量后的布局，迁移会被缓存，因此以相同顺序定义相同变量的对象总是得到同一个布局
+   *
+   * @param symbol 追加的变量
+   * @return 后继布局*/
+  public VarShape withVar(VarSymbol symbol){
+    VarShape res = transitions.get(symbol);
+    if(res != null) return res;
+
+    return transitions.computeIfAbsent(symbol, s -> {
+      VarSymbol[] arr = Arrays.copyOf(symbols, symbols.length + 1);
+      arr[symbols.length] = s;
+      VarShape shape = new VarShape(this, arr);
+
+      for(VarShape p = this; p != null; p = p.parent){
+        if(p.expectedSize < arr.length) p.expectedSize = arr.length;
+      }
+      return shape;
+    });
+  }
+
+  /**读取对象的变量值，若对象中没有此变量则返回null*/
+  public static Object getValue(DynamicObject<?> obj, VarSymbol symbol){
+    VarShape shape = obj.varShape();
+    if(shape == null) return null;
+
+    int slot = shape.slotOf(symbol);
+    return slot < 0? null: Variable.unwrap(obj.varSlots()[slot]);
+  }
+
+  /**设置对象的变量值，若对象中没有此变量则定义它
+   *
+   * @return 变量的槽位*/
+  public static int setValue(DynamicObject<?> obj, VarSymbol symbol, Object value){
+    VarShape shape = obj.varShape();
+    int slot = shape == null? -1: shape.slotOf(symbol);
+    if(slot < 0) return define(obj, symbol, value);
+
+    Variable.store(obj.varSlots(), slot, value);
+    return slot;
+  }
+
+  /**在对象上定义一个新的变量并设置值，对象迁移到包含此变量的后继布局
+   *
+   * @return 变量的槽位*/
+  static int define(DynamicObject<?> obj, VarSymbol symbol, Object value){
+    VarShape shape = obj.varShape();
+    VarShape next = (shape == null? EMPTY: shape).withVar(symbol);
+    int slot = next.symbols.length - 1;
+
+    Object[] slots = obj.varSlots();
+    if(slots == null || slots.length <= slot){
+      int len = Math.max(next.symbols.length, next.expectedSize);
+      slots = slots == null? new Object[len]: Arrays.copyOf(slots, len);
+    }
+    slots[slot] = value;
+    obj.setVarLayout(next, slots);
+
+    return slot;
+  }
+
+  @Override
+  public String toString(){
+    return "VarShape" + Arrays.toString(symbols);
+  }
+}
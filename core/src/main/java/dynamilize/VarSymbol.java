@@ -0,0 +1,50 @@
+package dynamilize;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**变量符号，将变量名称驻留为全局唯一的对象，并分配一个紧凑的整数id。
+ * <p>以符号访问变量时，{@linkplain DataPool 数据池}通过符号的id直接索引变量对象，不需要对变量名称进行散列，
+ * 用法与{@link FunctionSymbol}一致，同名的符号总是同一个对象。
+ *
+ * @author EBwilson */
+public final class VarSymbol{
+  private static final ConcurrentHashMap<String, VarSymbol> SYMBOLS = new ConcurrentHashMap<>();
+  private static final AtomicInteger COUNTER = new AtomicInteger();
+
+  private final int id;
+  private final String name;
+
+  private VarSymbol(int id, String name){
+    this.id = id;
+    this.name = name;
+  }
+
+  /**获取给定名称的变量符号
+   *
+   * @param name 变量名称*/
+  public static VarSymbol of(String name){
+    VarSymbol res = SYMBOLS.get(name);
+    if(res != null) return res;
+
+    return SYMBOLS.computeIfAbsent(name, n -> new VarSymbol(COUNTER.getAndIncrement(), n));
+  }
+
+  /**当前已分配的符号数量，任何符号的id都小于此值*/
+  public static int count(){
+    return COUNTER.get();
+  }
+
+  public int id(){
+    return id;
+  }
+
+  public String name(){
+    return name;
+  }
+
+  @Override
+  public String toString(){
+    return name;
+  }
+}
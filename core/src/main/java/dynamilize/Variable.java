@@ -1,17 +1,33 @@
 package dynamilize;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**储存在动态对象的{@linkplain VarShape 变量布局}中的变量，变量值保存在对象的槽位数组内。
+ * <p>变量缓存了上一次访问时所在的槽位，只要对象当前布局的该槽位仍然是此变量即可直接读写数组，否则才在布局中查找槽位
+ * <p>变量的初始化器为{@linkplain Initializer#constant(Object) 常量}时，值只保存在变量中，对象写入自身的值之前读取到的都是这个常量，实例化时不会复制它
+ * <p>变量首次被原子地访问时，槽位中的值会被替换为一个原子值单元（基本类型为{@link AtomicInteger}或{@link AtomicLong}，引用值为{@link AtomicReference}），
+ * 之后对此变量的读写都经过这个单元。替换只在对象上同步地进行一次，此后的原子操作均不加锁，未被原子地访问的变量仍然以普通的读写访问*/
 public class Variable implements IVariable{
   private final String name;
+  private final VarSymbol symbol;
   private final Initializer<?> init;
+  /**常量初始化器的值，对象中没有此变量的值时读取到的默认值*/
+  private final Object constant;
+
+  /**上一次访问时变量所在的槽位，同一变量在一条布局迁移链上的槽位是固定的*/
+  private int slotCache = -1;
 
   public Variable(String name){
-    this.name = name;
-    this.init = null;
+    this(name, null);
   }
 
   public Variable(String name, Initializer<?> init){
     this.name = name;
+    this.symbol = VarSymbol.of(name);
     this.init = init;
+    this.constant = init != null && init.isConstant()? init.getInit(): null;
   }
 
   @Override
@@ -19,9 +35,17 @@ public class Variable implements IVariable{
     return name;
   }
 
+  /**获取变量的常量默认值，若变量的初始化器不是{@linkplain Initializer#constant(Object) 常量}则返回null*/
+  public Object constant(){
+    return constant;
+  }
+
   @Override
   public void init(DynamicObject<?> object) {
-    Object value = init == null? null: init.getInit();
+    //常量默认值不复制到对象中，对象写入自身的值之前读取到的都是默认值
+    if (init == null || init.isConstant()) return;
+
+    Object value = init.getInit();
     if (value == null) return;
     if (value.getClass().isPrimitive()){
       if (value instanceof Byte b) set(object, b.byteValue());
@@ -37,14 +61,43 @@ public class Variable implements IVariable{
     else set(object, value);
   }
 
+  /**获取变量在对象当前布局中的槽位，若对象中没有此变量则返回-1*/
+  private int slot(DynamicObject<?> obj){
+    VarShape shape = obj.varShape();
+    if(shape == null) return -1;
+
+    int slot = slotCache;
+    if(!shape.holds(slot, symbol)){
+      slot = shape.slotOf(symbol);
+      if(slot < 0) return -1;
+      slotCache = slot;
+    }
+    return slot;
+  }
+
   @Override
+  @SuppressWarnings("unchecked")
   public <T> T get(DynamicObject<?> obj){
-    return obj.varValueGet(name);
+    int slot = slot(obj);
+    return (T) (slot < 0? constant: unwrap(obj.varSlots()[slot]));
   }
 
   @Override
   public void set(DynamicObject<?> obj, Object value){
-    obj.varValueSet(name, value);
+    int slot = slot(obj);
+    if(slot < 0) slotCache = VarShape.define(obj, symbol, value);
+    else store(obj.varSlots(), slot, value);
+  }
+
+  /**获取槽位中保存的值，若值被包装在引用单元中则返回单元的值*/
+  static Object unwrap(Object slotValue){
+    return slotValue instanceof ObjRef ref? ref.get(): slotValue;
+  }
+
+  /**向槽位写入值，若槽位中是引用单元则写入单元*/
+  static void store(Object[] slots, int slot, Object value){
+    if(slots[slot] instanceof ObjRef ref) ref.set(value);
+    else slots[slot] = value;
   }
 
   @Override
@@ -54,6 +107,12 @@ public class Variable implements IVariable{
     if (b instanceof BooleanRef ref){
       res = ref.value;
     }
+    else if (b instanceof BooleanCell cell){
+      res = cell.get() != 0;
+    }
+    else if (b instanceof Boolean v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a boolean");
 
@@ -67,6 +126,12 @@ public class Variable implements IVariable{
     if (b instanceof ByteRef ref){
       res = ref.value;
     }
+    else if (b instanceof ByteCell cell){
+      res = (byte) cell.get();
+    }
+    else if (b instanceof Byte v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a byte");
 
@@ -80,6 +145,12 @@ public class Variable implements IVariable{
     if (b instanceof ShortRef ref){
       res = ref.value;
     }
+    else if (b instanceof ShortCell cell){
+      res = (short) cell.get();
+    }
+    else if (b instanceof Short v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a short");
 
@@ -93,6 +164,12 @@ public class Variable implements IVariable{
     if (b instanceof IntRef ref){
       res = ref.value;
     }
+    else if (b instanceof IntCell cell){
+      res = cell.get();
+    }
+    else if (b instanceof Integer v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a integer");
 
@@ -106,6 +183,12 @@ public class Variable implements IVariable{
     if (b instanceof LongRef ref){
       res = ref.value;
     }
+    else if (b instanceof LongCell cell){
+      res = cell.get();
+    }
+    else if (b instanceof Long v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a long");
 
@@ -119,6 +202,12 @@ public class Variable implements IVariable{
     if (b instanceof FloatRef ref){
       res = ref.value;
     }
+    else if (b instanceof FloatCell cell){
+      res = Float.intBitsToFloat(cell.get());
+    }
+    else if (b instanceof Float v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a float");
 
@@ -132,6 +221,12 @@ public class Variable implements IVariable{
     if (b instanceof DoubleRef ref){
       res = ref.value;
     }
+    else if (b instanceof DoubleCell cell){
+      res = Double.longBitsToDouble(cell.get());
+    }
+    else if (b instanceof Double v){
+      res = v;
+    }
     else if (b != null)
       throw new IllegalHandleException("variable " + name + " in object " + obj + " was not a double");
 
@@ -140,9 +235,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, boolean value) {
-    if (get(obj) instanceof BooleanRef ref){
+    Object curr = get(obj);
+    if (curr instanceof BooleanRef ref){
       ref.value = value;
     }
+    else if (curr instanceof BooleanCell cell){
+      cell.set(value? 1: 0);
+    }
     else{
       BooleanRef ref = new BooleanRef();
       ref.value = value;
@@ -152,9 +251,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, byte value) {
-    if (get(obj) instanceof ByteRef ref){
+    Object curr = get(obj);
+    if (curr instanceof ByteRef ref){
       ref.value = value;
     }
+    else if (curr instanceof ByteCell cell){
+      cell.set(value);
+    }
     else{
       ByteRef ref = new ByteRef();
       ref.value = value;
@@ -164,9 +267,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, short value) {
-    if (get(obj) instanceof ShortRef ref){
+    Object curr = get(obj);
+    if (curr instanceof ShortRef ref){
       ref.value = value;
     }
+    else if (curr instanceof ShortCell cell){
+      cell.set(value);
+    }
     else{
       ShortRef ref = new ShortRef();
       ref.value = value;
@@ -176,9 +283,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, int value) {
-    if (get(obj) instanceof IntRef ref){
+    Object curr = get(obj);
+    if (curr instanceof IntRef ref){
       ref.value = value;
     }
+    else if (curr instanceof IntCell cell){
+      cell.set(value);
+    }
     else{
       IntRef ref = new IntRef();
       ref.value = value;
@@ -188,9 +299,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, long value) {
-    if (get(obj) instanceof LongRef ref){
+    Object curr = get(obj);
+    if (curr instanceof LongRef ref){
       ref.value = value;
     }
+    else if (curr instanceof LongCell cell){
+      cell.set(value);
+    }
     else{
       LongRef ref = new LongRef();
       ref.value = value;
@@ -200,9 +315,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, float value) {
-    if (get(obj) instanceof FloatRef ref){
+    Object curr = get(obj);
+    if (curr instanceof FloatRef ref){
       ref.value = value;
     }
+    else if (curr instanceof FloatCell cell){
+      cell.set(Float.floatToRawIntBits(value));
+    }
     else{
       FloatRef ref = new FloatRef();
       ref.value = value;
@@ -212,9 +331,13 @@ public class Variable implements IVariable{
 
   @Override
   public void set(DynamicObject<?> obj, double value) {
-    if (get(obj) instanceof DoubleRef ref){
+    Object curr = get(obj);
+    if (curr instanceof DoubleRef ref){
       ref.value = value;
     }
+    else if (curr instanceof DoubleCell cell){
+      cell.set(Double.doubleToRawLongBits(value));
+    }
     else{
       DoubleRef ref = new DoubleRef();
       ref.value = value;
@@ -222,11 +345,121 @@ public class Variable implements IVariable{
     }
   }
 
+  //atomic operations
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, Object expect, Object update) {
+    return objRef(obj).compareAndSet(expect, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, boolean expect, boolean update) {
+    return cell(obj, BooleanCell.class).compareAndSet(expect? 1: 0, update? 1: 0);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, byte expect, byte update) {
+    return cell(obj, ByteCell.class).compareAndSet(expect, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, short expect, short update) {
+    return cell(obj, ShortCell.class).compareAndSet(expect, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, int expect, int update) {
+    return cell(obj, IntCell.class).compareAndSet(expect, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, long expect, long update) {
+    return cell(obj, LongCell.class).compareAndSet(expect, update);
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, float expect, float update) {
+    return cell(obj, FloatCell.class).compareAndSet(Float.floatToRawIntBits(expect), Float.floatToRawIntBits(update));
+  }
+
+  @Override
+  public boolean compareAndSet(DynamicObject<?> obj, double expect, double update) {
+    return cell(obj, DoubleCell.class).compareAndSet(Double.doubleToRawLongBits(expect), Double.doubleToRawLongBits(update));
+  }
+
+  @Override
+  public int getAndAdd(DynamicObject<?> obj, int delta) {
+    return cell(obj, IntCell.class).getAndAdd(delta);
+  }
+
+  @Override
+  public long getAndAdd(DynamicObject<?> obj, long delta) {
+    return cell(obj, LongCell.class).getAndAdd(delta);
+  }
+
+  /**获取对象中此变量的引用单元，若槽位中的值还不是引用单元则在对象上同步地将其包装*/
+  private ObjRef objRef(DynamicObject<?> obj){
+    int slot = slot(obj);
+    if(slot >= 0 && obj.varSlots()[slot] instanceof ObjRef ref) return ref;
+
+    synchronized(obj){
+      slot = slot(obj);
+      Object curr = slot < 0? constant: obj.varSlots()[slot];
+      if(curr instanceof ObjRef ref) return ref;
+
+      ObjRef res = new ObjRef(curr);
+      if(slot < 0) slotCache = VarShape.define(obj, symbol, res);
+      else obj.varSlots()[slot] = res;
+      return res;
+    }
+  }
+
+  /**获取对象中此变量的原子值单元，若变量的值还不是该类型的单元，则在对象上同步地将当前值转换为单元，变量尚未赋值时单元的值为该类型的默认值*/
+  @SuppressWarnings("unchecked")
+  private <C> C cell(DynamicObject<?> obj, Class<C> type){
+    Object curr = get(obj);
+    if(type.isInstance(curr)) return (C) curr;
+
+    synchronized(obj){
+      curr = get(obj);
+      if(type.isInstance(curr)) return (C) curr;
+
+      Object res;
+      if(type == BooleanCell.class && (curr == null || curr instanceof Boolean || curr instanceof BooleanRef))
+        res = new BooleanCell(curr instanceof BooleanRef ref? ref.value: curr != null && (Boolean) curr);
+      else if(type == ByteCell.class && (curr == null || curr instanceof Byte || curr instanceof ByteRef))
+        res = new ByteCell(curr instanceof ByteRef ref? ref.value: curr == null? 0: (Byte) curr);
+      else if(type == ShortCell.class && (curr == null || curr instanceof Short || curr instanceof ShortRef))
+        res = new ShortCell(curr instanceof ShortRef ref? ref.value: curr == null? 0: (Short) curr);
+      else if(type == IntCell.class && (curr == null || curr instanceof Integer || curr instanceof IntRef))
+        res = new IntCell(curr instanceof IntRef ref? ref.value: curr == null? 0: (Integer) curr);
+      else if(type == LongCell.class && (curr == null || curr instanceof Long || curr instanceof LongRef))
+        res = new LongCell(curr instanceof LongRef ref? ref.value: curr == null? 0: (Long) curr);
+      else if(type == FloatCell.class && (curr == null || curr instanceof Float || curr instanceof FloatRef))
+        res = new FloatCell(curr instanceof FloatRef ref? ref.value: curr == null? 0: (Float) curr);
+      else if(type == DoubleCell.class && (curr == null || curr instanceof Double || curr instanceof DoubleRef))
+        res = new DoubleCell(curr instanceof DoubleRef ref? ref.value: curr == null? 0: (Double) curr);
+      else throw new IllegalHandleException("variable " + name + " in object " + obj + " cannot be accessed atomically as " + type.getSimpleName().replace("Cell", "").toLowerCase());
+
+      set(obj, res);
+      return (C) res;
+    }
+  }
+
   private static class BooleanRef{ boolean value; }
   private static class ByteRef{ byte value; }
-  private static class ShortRef{ Short value; }
+  private static class ShortRef{ short value; }
   private static class IntRef{ int value; }
   private static class LongRef{ long value; }
   private static class FloatRef{ float value; }
   private static class DoubleRef{ double value; }
+
+  //值单元，变量首次被原子地访问时将替换上面的值引用
+  @SuppressWarnings("serial") private static class ObjRef extends AtomicReference<Object>{ ObjRef(Object value){ super(value); } }
+  @SuppressWarnings("serial") private static class BooleanCell extends AtomicInteger{ BooleanCell(boolean value){ super(value? 1: 0); } }
+  @SuppressWarnings("serial") private static class ByteCell extends AtomicInteger{ ByteCell(byte value){ super(value); } }
+  @SuppressWarnings("serial") private static class ShortCell extends AtomicInteger{ ShortCell(short value){ super(value); } }
+  @SuppressWarnings("serial") private static class IntCell extends AtomicInteger{ IntCell(int value){ super(value); } }
+  @SuppressWarnings("serial") private static class LongCell extends AtomicLong{ LongCell(long value){ super(value); } }
+  @SuppressWarnings("serial") private static class FloatCell extends AtomicInteger{ FloatCell(float value){ super(Float.floatToRawIntBits(value)); } }
+  @SuppressWarnings("serial") private static class DoubleCell extends AtomicLong{ DoubleCell(double value){ super(Double.doubleToRawLongBits(value)); } }
 }
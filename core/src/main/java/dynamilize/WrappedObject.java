@@ -12,7 +12,7 @@ import java.lang.reflect.Method;
  *   <li>将包装动态对象尝试转换成被包装的对象类型</li>
  * </ul>*/
 public class WrappedObject<T> implements DynamicObject<T>{
-  private static final DynamicClass $wrappedDef$ = new DynamicClass("$wrappedDef$", null){
+  private static final DynamicClass $wrappedDef$ = new DynamicClass("$wrappedDef$", null, DynamicClassRegistry.global()){
     @Override public void setVariable(String name, Initializer.Producer<?> prov)
     { throw new IllegalHandleException("wrapped object class is immutable"); }
 
@@ -57,6 +57,16 @@ public class WrappedObject<T> implements DynamicObject<T>{
     return pool.getVariable(name);
   }
 
+  @Override
+  public IVariable getVariable(VarSymbol symbol) {
+    return pool.getVariable(symbol);
+  }
+
+  @Override
+  public DataPool dataPool() {
+    return pool;
+  }
+
   @Override
   public DataPool.ReadOnlyPool baseSuperPointer() {
     return null;
@@ -77,11 +87,36 @@ public class WrappedObject<T> implements DynamicObject<T>{
     throw new IllegalHandleException("unsupported operation");
   }
 
+  @Override
+  public VarShape varShape() {
+    return null;
+  }
+
+  @Override
+  public Object[] varSlots() {
+    return null;
+  }
+
+  @Override
+  public void setVarLayout(VarShape shape, Object[] slots) {
+    throw new IllegalHandleException("wrapped object cannot add new variable");
+  }
+
   @Override
   public IFunctionEntry getFunc(String name, FunctionType type) {
     return pool.select(name, type);
   }
 
+  @Override
+  public IFunctionEntry getFunc(FunctionSymbol symbol) {
+    return pool.select(symbol);
+  }
+
+  @Override
+  public <R> BoundFunction<T, R> bind(FunctionSymbol symbol) {
+    return pool.bind(this, symbol);
+  }
+
   @Override
   public <R> void setFunc(String name, Function<T, R> func, Class<?>... argTypes) {
     throw new IllegalHandleException("wrapped object cannot add new function");
@@ -17,6 +17,8 @@ import java.util.*;
 import static dynamilize.classmaker.ClassInfo.*;
 
 /**基于ASM字节码操作框架实现的默认类型生成器
+ * <p>生成器可以被多个线程共享，每一次生成都在一个独立的生成器上进行，各线程的生成互不阻塞。
+ * 扩展此类型的生成器需要重写{@link ASMGenerator#newEmitter()}以返回自身类型的实例，否则生成将在共享的生成器上依次进行
  *
  * <br><i>该类存在一个尚未修复的性能问题，即对部分可堆栈化的局部变量的优化</i>
  *
@@ -80,7 +82,13 @@ public class ASMGenerator extends AbstractClassGenerator implements Opcodes{
   }
 
   @Override
-  public byte[] genByteCode(ClassInfo<?> classInfo){
+  protected AbstractClassGenerator newEmitter(){
+    //子类可能重写了访问行为，子类未提供自身的实例时不能以基类的实例代替
+    return getClass() == ASMGenerator.class? new ASMGenerator(classLoader, codeVersion): null;
+  }
+
+  @Override
+  protected byte[] emitByteCode(ClassInfo<?> classInfo){
     initial();
     writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
 
@@ -95,7 +103,12 @@ public class ASMGenerator extends AbstractClassGenerator implements Opcodes{
     try{
       return (Class<T>) classLoader.loadClass(classInfo.name(), false);
     }catch(ClassNotFoundException e){
-      classLoader.declareClass(classInfo.name(), genByteCode(classInfo));
+      byte[] byteCode = genByteCode(classInfo);
+      try{
+        classLoader.declareClass(classInfo.name(), byteCode);
+      }catch(IllegalHandleException ignored){
+        //其他线程同时生成了同名的类型并已经先行声明，此时加载已声明的类型
+      }
 
       return (Class<T>) classLoader.loadClass(classInfo.name(), false);
     }
@@ -323,6 +336,60 @@ public class ASMGenerator extends AbstractClassGenerator implements Opcodes{
     }
   }
 
+  @Override
+  public void visitInvokeDynamic(IInvokeDynamic<?> invoke){
+    if(!invoke.args().isEmpty() && !(invoke.args().get(0) instanceof CodeBlock.StackElem)){
+      for(ILocal<?> arg: invoke.args()){
+        methodVisitor.visitVarInsn(
+            getLoadType(arg.type()),
+            localIndex.get(arg.name())
+        );
+      }
+    }
+
+    StringBuilder desc = new StringBuilder("(");
+    for(IClass<?> type: invoke.argTypes()){
+      desc.append(type.realName());
+    }
+    desc.append(")").append(invoke.returnType().realName());
+
+    Object[] bsmArgs = new Object[invoke.bootstrapArgs().size()];
+    for(int i = 0; i < bsmArgs.length; i++){
+      Object arg = invoke.bootstrapArgs().get(i);
+      bsmArgs[i] = arg instanceof Class<?> c? Type.getType(ClassInfo.asType(c).realName()):
+          arg instanceof IClass<?> c? Type.getType(c.realName()): arg;
+    }
+
+    IMethod<?, ?> bootstrap = invoke.bootstrap();
+    methodVisitor.visitInvokeDynamicInsn(
+        invoke.name(),
+        desc.toString(),
+        new Handle(
+            Opcodes.H_INVOKESTATIC,
+            bootstrap.owner().internalName(),
+            bootstrap.name(),
+            bootstrap.typeDescription(),
+            Modifier.isInterface(bootstrap.owner().modifiers())
+        ),
+        bsmArgs
+    );
+
+    if(invoke.returnTo() == null){
+      if(invoke.returnType() != ClassInfo.VOID_TYPE){
+        methodVisitor.visitInsn(Opcodes.POP);
+      }
+    }
+    else{
+      castAssign(invoke.returnType(), invoke.returnTo().type());
+
+      if(invoke.returnTo() instanceof CodeBlock.StackElem) return;
+      methodVisitor.visitVarInsn(
+          getStoreType(invoke.returnTo().type()),
+          localIndex.get(invoke.returnTo().name())
+      );
+    }
+  }
+
   @Override
   public void visitGetField(IGetField<?, ?> getField){
     if(!Modifier.isStatic(getField.source().modifiers())){
@@ -970,6 +1037,9 @@ public class ASMGenerator extends AbstractClassGenerator implements Opcodes{
       }
       else methodVisitor.visitLdcInsn(Type.getType(ClassInfo.asType((Class<?>) value).realName()));
     }
+    else if(value instanceof IClass<?> c){
+      methodVisitor.visitLdcInsn(Type.getType(c.realName()));
+    }
     else if(value.getClass().isArray()){
       Class<?> componentType = value.getClass().getComponentType();
 
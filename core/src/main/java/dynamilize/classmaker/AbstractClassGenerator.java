@@ -3,8 +3,17 @@ package dynamilize.classmaker;
 import dynamilize.classmaker.code.*;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**类型生成器的基类，将{@linkplain ClassInfo 类型描述}生成为字节码并加载为类对象。
+ * <p>生成器在访问类型描述时持有访问状态，因此一次生成必须独占一个生成器。{@link AbstractClassGenerator#genByteCode(ClassInfo)}可以在多个线程上同时调用，
+ * 每一次生成都会从此生成器的空闲队列中取出一个{@linkplain AbstractClassGenerator#newEmitter() 配置相同的生成器}独占使用，生成结束后放回队列；
+ * 若生成器不支持创建新的生成器，则生成在此生成器的锁内依次进行
+ *
+ * @author EBwilson */
 public abstract class AbstractClassGenerator implements ElementVisitor{
+  private final ConcurrentLinkedQueue<AbstractClassGenerator> idleEmitters = new ConcurrentLinkedQueue<>();
+
   protected IClass<?> currGenerating;
   protected IField<?> currField;
   protected IMethod<?, ?> currMethod;
@@ -44,7 +53,40 @@ public abstract class AbstractClassGenerator implements ElementVisitor{
     localMap.put(local.name(), local);
   }
 
-  public abstract byte[] genByteCode(ClassInfo<?> classInfo);
+  /**将类型描述生成为字节码，此方法是线程安全的，不同线程上的生成各自使用独立的访问状态并行进行
+   *
+   * @param classInfo 生成的类型描述
+   * @return 类型的字节码*/
+  public byte[] genByteCode(ClassInfo<?> classInfo){
+    AbstractClassGenerator emitter = idleEmitters.poll();
+    if(emitter == null) emitter = newEmitter();
+
+    if(emitter == null){
+      synchronized(this){
+        return emitByteCode(classInfo);
+      }
+    }
+
+    try{
+      return emitter.emitByteCode(classInfo);
+    }finally{
+      idleEmitters.offer(emitter);
+    }
+  }
+
+  /**创建一个与此生成器配置相同的新生成器，用于独占地执行一次生成，新生成器的{@link AbstractClassGenerator#emitByteCode(ClassInfo)}必须与此生成器产生相同的结果。
+   * <p>默认返回null，即不支持并行生成，所有生成都在此生成器上依次进行
+   *
+   * @return 新的生成器，不支持时为null*/
+  protected AbstractClassGenerator newEmitter(){
+    return null;
+  }
+
+  /**在此生成器上生成类型描述的字节码，调用者保证生成期间没有其他线程使用此生成器
+   *
+   * @param classInfo 生成的类型描述
+   * @return 类型的字节码*/
+  protected abstract byte[] emitByteCode(ClassInfo<?> classInfo);
 
   protected abstract <T> Class<T> generateClass(ClassInfo<T> classInfo) throws ClassNotFoundException;
 }
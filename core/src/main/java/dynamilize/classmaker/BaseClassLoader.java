@@ -2,12 +2,19 @@ package dynamilize.classmaker;
 
 import dynamilize.IllegalHandleException;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**默认的字节码加载器，此加载器是{@linkplain ClassLoader#registerAsParallelCapable() 可并行的}，不同类型的声明与加载可以在多个线程上同时进行
+ *
+ * @author EBwilson */
 public class BaseClassLoader extends ClassLoader implements ByteClassLoader{
-  protected final Map<String, byte[]> bytecodes = new HashMap<>();
-  protected final Map<String, Class<?>> classMap = new HashMap<>();
+  static{
+    registerAsParallelCapable();
+  }
+
+  protected final Map<String, byte[]> bytecodes = new ConcurrentHashMap<>();
+  protected final Map<String, Class<?>> classMap = new ConcurrentHashMap<>();
 
   public BaseClassLoader(ClassLoader parent){
     super(parent);
@@ -15,7 +22,7 @@ public class BaseClassLoader extends ClassLoader implements ByteClassLoader{
 
   @Override
   public void declareClass(String name, byte[] byteCode){
-    if(bytecodes.put(name, byteCode) != null)
+    if(bytecodes.putIfAbsent(name, byteCode) != null)
       throw new IllegalHandleException("cannot declare class with same name twice");
   }
 
@@ -29,16 +36,22 @@ public class BaseClassLoader extends ClassLoader implements ByteClassLoader{
     try{
       return super.findClass(name);
     }catch(ClassNotFoundException e){
-      Class<?> result = classMap.computeIfAbsent(name, n -> {
-        byte[] byteCode = bytecodes.get(n);
-        if(byteCode == null) return null;
+      Class<?> result = classMap.get(name);
+      if(result != null) return result;
 
-        return defineClass(n, byteCode, 0, byteCode.length);
-      });
-
-      if(result == null)
+      byte[] byteCode = bytecodes.get(name);
+      if(byteCode == null)
         throw new ClassNotFoundException("class " + name + " was not declared and not found a existed.");
 
+      //定义类型时可能会加载此加载器中声明的其他类型，因此不能在映射表的计算过程中定义
+      synchronized(getClassLoadingLock(name)){
+        result = classMap.get(name);
+        if(result == null){
+          result = defineClass(name, byteCode, 0, byteCode.length);
+          classMap.put(name, result);
+        }
+      }
+
       return result;
     }
   }
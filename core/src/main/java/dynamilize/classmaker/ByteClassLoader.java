@@ -1,5 +1,8 @@
 package dynamilize.classmaker;
 
+/**可声明字节码的类加载器，被{@linkplain AbstractClassGenerator 类型生成器}共享时，其声明与加载方法可能会在多个线程上同时调用，实现应当是线程安全的
+ *
+ * @author EBwilson */
 public interface ByteClassLoader{
   void declareClass(String name, byte[] byteCode);
 
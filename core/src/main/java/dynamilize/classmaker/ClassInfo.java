@@ -89,8 +89,7 @@ import java.util.*;
  * 这样的过程是繁琐的，但是也是快速的，跳过编译器产生类文件牺牲了可操作性以换取了类的生成速度，建议将行为描述为模板后再基于模板进行变更以提高开发效率*/
 @SuppressWarnings("rawtypes")
 public class ClassInfo<T> extends AnnotatedMember implements IClass<T>{
-  public static final LinkedList<IClass<?>> QUEUE = new LinkedList<>();
-  public static final HashSet<IClass<?>> EXCLUDE = new HashSet<>();
+  /**已有类型的类型标识表，类型标识由所有线程共享，标识的创建与已有类型的成员查找都在此表的锁内进行*/
   private static final Map<Class<?>, ClassInfo<?>> classMap = new HashMap<>();
 
   private static final String OBJECTTYPEMARK = "Ljava/lang/Object;";
@@ -179,30 +178,33 @@ public class ClassInfo<T> extends AnnotatedMember implements IClass<T>{
   final boolean isPrimitive;
 
   /**创建一个类型标识用于标记类型，若这个目标类型已经被标记过则会返回那个已有对象标识
+   * <p>此方法是线程安全的，多个线程同时标记同一个类型时得到的是同一个标识
    *
    * @param clazz 要用于标记的类对象*/
   @SuppressWarnings("unchecked")
   public static <T> ClassInfo<T> asType(Class<T> clazz){
-    ClassInfo<T> res = (ClassInfo<T>) classMap.get(clazz);
+    synchronized(classMap){
+      ClassInfo<T> res = (ClassInfo<T>) classMap.get(clazz);
 
-    if(res == null){
-      res = clazz.isArray()? new ClassInfo<>(asType(clazz.getComponentType())): new ClassInfo<>(
-          clazz.getModifiers(),
-          clazz.getName(),
-          clazz.getSuperclass() == null? null: clazz.getSuperclass().equals(Object.class)? OBJECT_TYPE : asType(clazz.getSuperclass()),
-          Arrays.stream(clazz.getInterfaces()).map(ClassInfo::asType).toArray(ClassInfo[]::new)
-      );
-      res.clazz = clazz;
+      if(res == null){
+        res = clazz.isArray()? new ClassInfo<>(asType(clazz.getComponentType())): new ClassInfo<>(
+            clazz.getModifiers(),
+            clazz.getName(),
+            clazz.getSuperclass() == null? null: clazz.getSuperclass().equals(Object.class)? OBJECT_TYPE : asType(clazz.getSuperclass()),
+            Arrays.stream(clazz.getInterfaces()).map(ClassInfo::asType).toArray(ClassInfo[]::new)
+        );
+        res.clazz = clazz;
 
-      classMap.put(clazz, res);
+        classMap.put(clazz, res);
 
-      if(clazz.isAnnotation())
-        res.asAnnotation(null);
+        if(clazz.isAnnotation())
+          res.asAnnotation(null);
 
-      res.initAnnotations();
-    }
+        res.initAnnotations();
+      }
 
-    return res;
+      return res;
+    }
   }
 
   /**不应该从外部调用此方法，该方法仅用于传入java基础类型的类对象获得其类型标识，若传入的类型不是基本java类型或者{@link Object}则抛出异常
@@ -434,9 +436,15 @@ public class ClassInfo<T> extends AnnotatedMember implements IClass<T>{
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   //utilMethods
   public <R> MethodInfo<T, R> getMethod(IClass<R> returnType, String name, IClass<?>... args){
+    synchronized(classMap){
+      return getMethod0(returnType, name, args);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <R> MethodInfo<T, R> getMethod0(IClass<R> returnType, String name, IClass<?>... args){
     return (MethodInfo<T, R>) methodMap.computeIfAbsent(pack(name, args), e -> {
       if(!isExistedClass())
         throw new IllegalHandleException("this class info is not a existed type mark, you have to declare method then get it");
@@ -481,8 +489,14 @@ public class ClassInfo<T> extends AnnotatedMember implements IClass<T>{
   }
   //utilMethods
   @Override
-  @SuppressWarnings("unchecked")
   public MethodInfo<T, Void> getConstructor(IClass<?>... args){
+    synchronized(classMap){
+      return getConstructor0(args);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private MethodInfo<T, Void> getConstructor0(IClass<?>... args){
     return (MethodInfo<T, Void>) methodMap.computeIfAbsent(pack(INIT, args), e -> {
       if(!isExistedClass())
         throw new IllegalHandleException("this class info is not a existed type mark, you have to declare method then get it");
@@ -527,8 +541,14 @@ public class ClassInfo<T> extends AnnotatedMember implements IClass<T>{
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public <TY> FieldInfo<TY> getField(IClass<TY> type, String name){
+    synchronized(classMap){
+      return getField0(type, name);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <TY> FieldInfo<TY> getField0(IClass<TY> type, String name){
     return (FieldInfo<TY>) fieldMap.computeIfAbsent(name, e -> {
       if(!isExistedClass())
         throw new IllegalHandleException("this class info is not a existed type mark, you have to declare field then get it");
@@ -561,19 +581,19 @@ public class ClassInfo<T> extends AnnotatedMember implements IClass<T>{
       }
     }
     else{
-      QUEUE.clear();
-      EXCLUDE.clear();
+      LinkedList<IClass<?>> queue = new LinkedList<>();
+      HashSet<IClass<?>> exclude = new HashSet<>();
 
       while(ty != null){
         for(IClass<?> iClass: ty.interfaces()){
-          if(EXCLUDE.add(iClass)) QUEUE.addFirst(iClass);
+          if(exclude.add(iClass)) queue.addFirst(iClass);
         }
-        while(!QUEUE.isEmpty()){
-          IClass<?> c = QUEUE.removeFirst();
+        while(!queue.isEmpty()){
+          IClass<?> c = queue.removeFirst();
           if(equals(c)) return true;
 
           for(IClass<?> iClass: c.interfaces()){
-            if(EXCLUDE.add(iClass)) QUEUE.addFirst(iClass);
+            if(exclude.add(iClass)) queue.addFirst(iClass);
           }
         }
 
@@ -5,6 +5,7 @@ import dynamilize.classmaker.code.*;
 
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static dynamilize.classmaker.ClassInfo.*;
 
@@ -13,7 +14,7 @@ import static dynamilize.classmaker.ClassInfo.*;
  * @author EBwilson */
 public class CodeBlock<R> implements ICodeBlock<R>{
   public static class StackElem<Type> implements ILocal<Type>{
-    private static final HashMap<IClass<?>, StackElem<?>> caching = new HashMap<>();
+    private static final ConcurrentHashMap<IClass<?>, StackElem<?>> caching = new ConcurrentHashMap<>();
 
     private final IClass<Type> type;
 
@@ -252,6 +253,12 @@ public class CodeBlock<R> implements ICodeBlock<R>{
     );
   }
 
+  public final <Ret> void invokeDynamic(IMethod<?, ?> bootstrap, Object[] bootstrapArgs, String name, IClass<Ret> returnType, IClass<?>[] argTypes, ILocal<? super Ret> returnTo, ILocal<?>... args){
+    codes().add(
+        new InvokeDynamic<>(bootstrap, bootstrapArgs, name, returnType, argTypes, returnTo, args)
+    );
+  }
+
   public final <T extends R> void returnValue(ILocal<T> local){
     codes().add(
         new Return<>(local)
@@ -633,6 +640,68 @@ public class CodeBlock<R> implements ICodeBlock<R>{
     }
   }
 
+  protected static class InvokeDynamic<R> implements IInvokeDynamic<R>{
+    final IMethod<?, ?> bootstrap;
+    final List<Object> bootstrapArgs;
+    final String name;
+    final IClass<R> returnType;
+    final List<IClass<?>> argTypes;
+    final ILocal<? super R> returnTo;
+    final List<ILocal<?>> args;
+
+    public InvokeDynamic(IMethod<?, ?> bootstrap, Object[] bootstrapArgs, String name, IClass<R> returnType, IClass<?>[] argTypes, ILocal<? super R> returnTo, ILocal<?>... args){
+      checkStack(this, args);
+
+      if(!Modifier.isStatic(bootstrap.modifiers()))
+        throw new IllegalHandleException("bootstrap method must be static");
+      if(args.length > 0 && !(args[0] instanceof StackElem) && args.length != argTypes.length)
+        throw new IllegalHandleException("arguments count not match the call site type");
+
+      this.bootstrap = bootstrap;
+      this.bootstrapArgs = Arrays.asList(bootstrapArgs);
+      this.name = name;
+      this.returnType = returnType;
+      this.argTypes = Arrays.asList(argTypes);
+      this.returnTo = returnType != VOID_TYPE ? returnTo: null;
+      this.args = Arrays.asList(args);
+    }
+
+    @Override
+    public IMethod<?, ?> bootstrap(){
+      return bootstrap;
+    }
+
+    @Override
+    public List<Object> bootstrapArgs(){
+      return bootstrapArgs;
+    }
+
+    @Override
+    public String name(){
+      return name;
+    }
+
+    @Override
+    public IClass<R> returnType(){
+      return returnType;
+    }
+
+    @Override
+    public List<IClass<?>> argTypes(){
+      return argTypes;
+    }
+
+    @Override
+    public List<ILocal<?>> args(){
+      return args;
+    }
+
+    @Override
+    public ILocal<? super R> returnTo(){
+      return returnTo;
+    }
+  }
+
   protected static class Compare<T> implements ICompare<T>{
     final ILocal<T> left;
     final ILocal<T> right;
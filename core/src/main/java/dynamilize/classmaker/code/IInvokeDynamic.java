@@ -0,0 +1,34 @@
+package dynamilize.classmaker.code;
+
+import dynamilize.classmaker.ElementVisitor;
+
+import java.util.List;
+
+public interface IInvokeDynamic<R> extends Element{
+  @Override
+  default void accept(ElementVisitor visitor){
+    visitor.visitInvokeDynamic(this);
+  }
+
+  @Override
+  default ElementKind kind(){
+    return ElementKind.INVOKEDYNAMIC;
+  }
+
+  /**调用点的引导方法，必须为一个静态方法*/
+  IMethod<?, ?> bootstrap();
+
+  /**传递给引导方法的静态参数，仅可为字符串，基本类型包装器或者类型*/
+  List<Object> bootstrapArgs();
+
+  String name();
+
+  IClass<R> returnType();
+
+  /**调用点的参数类型，与{@link IInvokeDynamic#args()}一一对应*/
+  List<IClass<?>> argTypes();
+
+  List<ILocal<?>> args();
+
+  ILocal<? super R> returnTo();
+}
@@ -0,0 +1,59 @@
+package dynamilize;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**参数表基本类型槽位的测试*/
+public class ArgumentListTest{
+  @Test
+  public void primitiveSlotsAreNotBoxedUntilRead(){
+    ArgumentList lis = ArgumentList.prepare(FunctionType.intern(int.class, Object.class, double.class, boolean.class));
+    lis.setInt(0, 7);
+    lis.set(1, "obj");
+    lis.setDouble(2, 1.5);
+    lis.setBoolean(3, true);
+
+    assertEquals(7, lis.getInt(0));
+    assertEquals(7L, lis.getLong(0));
+    assertEquals(1.5, lis.getDouble(2));
+    assertTrue(lis.getBoolean(3));
+    assertEquals("obj", lis.get(1));
+    assertArrayEquals(new Object[]{7, "obj", 1.5, true}, lis.args());
+
+    lis.recycle();
+  }
+
+  @Test
+  public void argumentsBeyondMaskDoNotAlias(){
+    int len = ArgumentList.MAX_PRIMITIVE_SLOTS + 6;
+    Class<?>[] types = new Class<?>[len];
+    Arrays.fill(types, Object.class);
+    types[ArgumentList.MAX_PRIMITIVE_SLOTS] = int.class;
+    types[ArgumentList.MAX_PRIMITIVE_SLOTS + 1] = char.class;
+    types[ArgumentList.MAX_PRIMITIVE_SLOTS + 2] = double.class;
+
+    ArgumentList lis = ArgumentList.prepare(FunctionType.intern(types));
+    for(int i = 0; i < len; i++){
+      if(types[i] == Object.class) lis.set(i, "arg" + i);
+    }
+    lis.setInt(ArgumentList.MAX_PRIMITIVE_SLOTS, 42);
+    lis.setInt(ArgumentList.MAX_PRIMITIVE_SLOTS + 1, 'c');
+    lis.setDouble(ArgumentList.MAX_PRIMITIVE_SLOTS + 2, 2.5);
+
+    assertEquals("arg0", lis.get(0));
+    assertEquals("arg1", lis.get(1));
+    assertEquals("arg2", lis.get(2));
+    assertEquals(42, lis.getInt(ArgumentList.MAX_PRIMITIVE_SLOTS));
+    assertEquals((Character) 'c', lis.get(ArgumentList.MAX_PRIMITIVE_SLOTS + 1));
+    assertEquals(2.5, lis.getDouble(ArgumentList.MAX_PRIMITIVE_SLOTS + 2));
+
+    Object[] args = lis.args();
+    assertEquals(42, args[ArgumentList.MAX_PRIMITIVE_SLOTS]);
+    assertEquals("arg" + (len - 1), args[len - 1]);
+
+    lis.recycle();
+  }
+}
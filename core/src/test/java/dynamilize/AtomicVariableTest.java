@@ -0,0 +1,177 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**变量原子操作的测试*/
+public class AtomicVariableTest{
+  private static final int THREADS = 4, ROUNDS = 20000;
+
+  public static class Counters{
+    public static int hits = 0;
+    public static long total = 0;
+    public static float ratio = 0;
+    public static double sum = 0;
+    public static boolean done = false;
+    public static String tag = "init";
+  }
+
+  public static class VolatileCounters{
+    public static volatile int hits = 0;
+    public static volatile long total = 0;
+    public static volatile float ratio = 0;
+    public static volatile double sum = 0;
+    public static volatile boolean done = false;
+    public static volatile String tag = "init";
+  }
+
+  private DynamicClassRegistry scope;
+  private DynamicMaker maker;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+    maker = DynamicFactory.getDefault();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  private DynamicObject<Object> counters(Class<?> template, boolean fields){
+    DynamicClass dyc = scope.get(template.getSimpleName() + (fields? "Fields": "Slots"));
+    dyc.visitClass(template, maker.getHelper());
+    if(fields) maker.enableVariableFields(dyc);
+
+    DynamicObject<Object> obj = maker.newInstance(dyc);
+    assertEquals(fields, obj instanceof FieldVariable.Holder);
+    return obj;
+  }
+
+  private static void assertVolatileFields(DynamicObject<Object> obj, boolean expect){
+    int count = 0;
+    for(Field field: obj.getClass().getFields()){
+      if(!field.getName().startsWith(DynamicMaker.VARIABLE_FIELD)) continue;
+
+      assertEquals(expect, Modifier.isVolatile(field.getModifiers()), field.getName());
+      count++;
+    }
+    assertEquals(6, count);
+  }
+
+  private static void concurrently(Runnable task) throws InterruptedException{
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    for(int i = 0; i < THREADS; i++){
+      Thread t = new Thread(() -> {
+        for(int n = 0; n < ROUNDS; n++){
+          task.run();
+        }
+      });
+      t.setUncaughtExceptionHandler((th, e) -> errors.add(e));
+      threads.add(t);
+      t.start();
+    }
+    for(Thread t: threads){
+      t.join();
+    }
+    assertEquals(Collections.emptyList(), errors);
+  }
+
+  private void countersAreExact(DynamicObject<Object> obj) throws InterruptedException{
+    obj.setVar("dynamic", 0);
+    concurrently(() -> {
+      obj.getAndAddVar("hits", 1);
+      obj.getAndAddVar("total", 2L);
+      obj.updateVar("sum", (double v) -> v + 0.5);
+      obj.getAndAddVar("dynamic", 1);
+    });
+
+    assertEquals(THREADS*ROUNDS, obj.getVar("hits", 0));
+    assertEquals(2L*THREADS*ROUNDS, obj.getVar("total", 0L));
+    assertEquals(0.5*THREADS*ROUNDS, obj.getVar("sum", 0d));
+    assertEquals(THREADS*ROUNDS, obj.getVar("dynamic", 0));
+  }
+
+  @Test
+  public void slotCountersAreExact() throws InterruptedException{
+    countersAreExact(counters(Counters.class, false));
+  }
+
+  @Test
+  public void volatileFieldCountersAreExact() throws InterruptedException{
+    DynamicObject<Object> obj = counters(VolatileCounters.class, true);
+    assertVolatileFields(obj, true);
+    countersAreExact(obj);
+  }
+
+  @Test
+  public void plainFieldCountersAreExact() throws InterruptedException{
+    DynamicObject<Object> obj = counters(Counters.class, true);
+    assertVolatileFields(obj, false);
+    countersAreExact(obj);
+  }
+
+  @Test
+  public void volatileFieldCompareAndSet(){
+    fieldCompareAndSet(counters(VolatileCounters.class, true));
+  }
+
+  @Test
+  public void plainFieldCompareAndSet(){
+    fieldCompareAndSet(counters(Counters.class, true));
+  }
+
+  private static void fieldCompareAndSet(DynamicObject<Object> obj){
+    assertTrue(obj.compareAndSetVar("ratio", 0f, 1.5f));
+    assertFalse(obj.compareAndSetVar("ratio", 0f, 2f));
+    assertEquals(1.5f, obj.getVar("ratio", 0f));
+
+    assertTrue(obj.compareAndSetVar("done", false, true));
+    assertFalse(obj.compareAndSetVar("done", false, true));
+    assertTrue(obj.getVar("done", false));
+    assertEquals(Boolean.TRUE, obj.getVar("done"));
+
+    assertTrue(obj.compareAndSetVar("hits", 0L, 7L));
+    assertEquals(7, obj.getVar("hits", 0));
+
+    String tag = obj.getVar("tag");
+    assertFalse(obj.compareAndSetVar("tag", new String("init"), "next"));
+    assertTrue(obj.compareAndSetVar("tag", tag, "next"));
+    assertEquals("next", obj.getVar("tag"));
+  }
+
+  @Test
+  public void boxedCompareAndSetMatchesTypedOverloads(){
+    for(Class<?> template: new Class<?>[]{Counters.class, VolatileCounters.class}){
+      DynamicObject<Object> obj = counters(template, true);
+
+      assertTrue(obj.compareAndSetVar("hits", (Object) 0L, (Object) 3));
+      assertTrue(obj.compareAndSetVar("hits", (Object) (short) 3, (Object) (short) 4));
+      assertFalse(obj.compareAndSetVar("hits", (Object) 3L, (Object) 5L));
+      assertEquals(4, obj.getVar("hits", 0));
+
+      assertTrue(obj.compareAndSetVar("total", (Object) 0, (Object) 9L));
+      assertEquals(9L, obj.getVar("total", 0L));
+
+      obj.setVar("ratio", -0f);
+      assertFalse(obj.compareAndSetVar("ratio", (Object) 0f, (Object) 1f));
+      assertTrue(obj.compareAndSetVar("ratio", (Object) (-0f), (Object) Float.NaN));
+      assertTrue(obj.compareAndSetVar("ratio", (Object) Float.NaN, (Object) 2f));
+      assertEquals(2f, obj.getVar("ratio", 0f));
+
+      assertTrue(obj.compareAndSetVar("done", (Object) false, (Object) true));
+      assertFalse(obj.compareAndSetVar("done", (Object) false, (Object) true));
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**批量调用的测试*/
+public class BatchInvokeTest{
+  public static class Base{
+    public int value(int x){
+      return x;
+    }
+  }
+
+  private DynamicClassRegistry scope;
+  private DynamicMaker maker;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+    maker = DynamicFactory.getDefault();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  private List<DynamicObject<Base>> mixedObjects(int count){
+    DynamicClass a = scope.get("BatchA");
+    DynamicClass b = scope.get("BatchB");
+    a.setFunction("value", (s, args) -> args.<Integer>get(0) + 100, int.class);
+    b.setFunction("value", (s, args) -> args.<Integer>get(0) + 200, int.class);
+
+    List<DynamicObject<Base>> res = new ArrayList<>();
+    for(int i = 0; i < count; i++){
+      res.add(maker.newInstance(Base.class, i % 3 == 0? b: a));
+    }
+    return res;
+  }
+
+  private static int expected(int i){
+    return i == 4? 7: i % 3 == 0? 201: 101;
+  }
+
+  @Test
+  public void objectsOfOneClassShareDataPool(){
+    List<DynamicObject<Base>> objs = mixedObjects(6);
+    assertSame(objs.get(1).dataPool(), objs.get(2).dataPool());
+    assertNotSame(objs.get(0).dataPool(), objs.get(1).dataPool());
+
+    objs.get(4).setFunc("value", (s, args) -> 7, int.class);
+    assertNotSame(objs.get(1).dataPool(), objs.get(4).dataPool());
+    assertSame(objs.get(1).dataPool(), objs.get(2).dataPool());
+  }
+
+  @Test
+  public void invokeAllResolvesPerPool(){
+    List<DynamicObject<Base>> objs = mixedObjects(10);
+    objs.get(4).setFunc("value", (s, args) -> 7, int.class);
+
+    Integer[] res = DynamicMaker.invokeAll(objs, FunctionSymbol.of("value", int.class), new Integer[objs.size()], 1);
+    for(int i = 0; i < res.length; i++){
+      assertEquals(expected(i), res[i], "object " + i);
+    }
+  }
+
+  @Test
+  public void parallelInvokeAllMatchesSerial(){
+    List<DynamicObject<Base>> objs = mixedObjects(5000);
+    objs.get(4).setFunc("value", (s, args) -> 7, int.class);
+
+    Integer[] res = DynamicMaker.invokeAll(ForkJoinPool.commonPool(), objs, FunctionSymbol.of("value", int.class), new Integer[objs.size()], 1);
+    for(int i = 0; i < res.length; i++){
+      assertEquals(expected(i), res[i], "object " + i);
+    }
+  }
+
+  @Test
+  public void missingFunctionFailsTheBatch(){
+    List<DynamicObject<Base>> objs = mixedObjects(3);
+    assertThrows(IllegalHandleException.class, () -> DynamicMaker.invokeAll(objs, FunctionSymbol.of("absent"), null));
+  }
+}
@@ -0,0 +1,130 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**动态类型事务编辑的测试*/
+public class ClassEditorTest{
+  private DynamicClassRegistry scope;
+  private DynamicMaker maker;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+    maker = DynamicFactory.getDefault();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  private static int call(DynamicObject<Object> obj, String name){
+    return obj.invokeFunc(name);
+  }
+
+  @Test
+  public void readersNeverSeePartialUpdate() throws InterruptedException{
+    DynamicClass dyc = scope.get("Swapped");
+    dyc.update(e -> e.setFunction("a", (s, args) -> 0).setFunction("b", (s, args) -> 0));
+    DynamicObject<Object> obj = maker.newInstance(dyc);
+
+    int generations = 2000;
+    AtomicBoolean done = new AtomicBoolean();
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> readers = new ArrayList<>();
+    for(int r = 0; r < 2; r++){
+      Thread t = new Thread(() -> {
+        while(!done.get()){
+          //发布是原子的，后读取的函数不会比先读取的函数更旧
+          int a = call(obj, "a");
+          int b = call(obj, "b");
+          assertTrue(b >= a, "read a=" + a + " then b=" + b);
+
+          b = call(obj, "b");
+          a = call(obj, "a");
+          assertTrue(a >= b, "read b=" + b + " then a=" + a);
+        }
+      });
+      t.setUncaughtExceptionHandler((th, e) -> errors.add(e));
+      readers.add(t);
+      t.start();
+    }
+
+    for(int g = 1; g <= generations; g++){
+      int gen = g;
+      dyc.update(e -> e.setFunction("a", (s, args) -> gen).setFunction("b", (s, args) -> gen));
+    }
+    done.set(true);
+    for(Thread t: readers){
+      t.join();
+    }
+
+    assertEquals(Collections.emptyList(), errors);
+    assertEquals(generations, call(obj, "a"));
+    assertEquals(generations, call(obj, "b"));
+  }
+
+  @Test
+  public void failedEditPublishesNothing(){
+    DynamicClass dyc = scope.get("Failed");
+    dyc.setFunction("a", (s, args) -> 1);
+    DynamicObject<Object> obj = maker.newInstance(dyc);
+
+    assertThrows(IllegalStateException.class, () -> dyc.update(e -> {
+      e.setFunction("a", (s, args) -> 2);
+      e.setVariable("added", 1);
+      throw new IllegalStateException("abort");
+    }));
+
+    assertEquals(1, call(obj, "a"));
+    assertNull(maker.newInstance(dyc).getVariable("added"));
+  }
+
+  @Test
+  public void editorCannotBeUsedAfterPublish(){
+    DynamicClass dyc = scope.get("Escaped");
+    ClassEditor[] escaped = new ClassEditor[1];
+    dyc.update(e -> escaped[0] = e.setFunction("a", (s, args) -> 1));
+
+    assertThrows(IllegalHandleException.class, () -> escaped[0].setFunction("a", (s, args) -> 2));
+    assertThrows(IllegalHandleException.class, () -> escaped[0].setVariable("v", 1));
+    assertEquals(1, call(maker.newInstance(dyc), "a"));
+  }
+
+  @Test
+  public void existingVariablesAreNotReplaced(){
+    DynamicClass dyc = scope.get("Variables");
+    dyc.setVariable("limit", 1);
+
+    dyc.update(e -> e.setVariable("limit", 2).setVariable("extra", 3));
+
+    DynamicObject<Object> obj = maker.newInstance(dyc);
+    assertEquals(1, obj.getVar("limit", 0));
+    assertEquals(3, obj.getVar("extra", 0));
+  }
+
+  @Test
+  public void lastStagedFunctionWins(){
+    DynamicClass dyc = scope.get("LastWins");
+    dyc.update(e -> e.setFunction("a", (s, args) -> 1).setFunction("a", (s, args) -> 2));
+
+    assertEquals(2, call(maker.newInstance(dyc), "a"));
+  }
+
+  @Test
+  public void obsoletedClassCannotBeUpdated(){
+    DynamicClass dyc = scope.get("Deleted");
+    dyc.delete();
+
+    assertThrows(IllegalHandleException.class, () -> dyc.update(e -> e.setFunction("a", (s, args) -> 1)));
+  }
+}
@@ -0,0 +1,103 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**类型常量默认值读穿的测试*/
+public class ConstantVariableTest{
+  private static final AtomicInteger produced = new AtomicInteger();
+
+  public static class Defaults{
+    public static final int hp = 20;
+    public static final String kind = "unit";
+    public static final Initializer.Producer<Integer> serial = produced::incrementAndGet;
+  }
+
+  private DynamicClassRegistry scope;
+  private DynamicMaker maker;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+    maker = DynamicFactory.getDefault();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  @Test
+  public void constantsAreReadThroughClass(){
+    DynamicClass dyc = scope.get("Defaults");
+    dyc.setVariable("speed", 1.5);
+    dyc.visitClass(Defaults.class, maker.getHelper());
+
+    DynamicObject<Object> a = maker.newInstance(dyc);
+    DynamicObject<Object> b = maker.newInstance(dyc);
+
+    assertEquals(20, a.getVar("hp", 0));
+    assertEquals("unit", a.getVar("kind"));
+    assertEquals(1.5, b.getVar("speed", 0d));
+    assertTrue(a.varShape() == null || a.varShape().slotOf(VarSymbol.of("hp")) < 0);
+
+    a.setVar("hp", 5);
+    assertEquals(5, a.getVar("hp", 0));
+    assertEquals(20, b.getVar("hp", 0));
+    assertEquals(20, maker.newInstance(dyc).getVar("hp", 0));
+  }
+
+  @Test
+  public void producersStillRunPerInstance(){
+    DynamicClass dyc = scope.get("Producers");
+    dyc.visitClass(Defaults.class, maker.getHelper());
+
+    DynamicObject<Object> a = maker.newInstance(dyc);
+    DynamicObject<Object> b = maker.newInstance(dyc);
+
+    assertNotEquals((Integer) a.getVar("serial"), (Integer) b.getVar("serial"));
+  }
+
+  @Test
+  public void constantsFollowClassHierarchy(){
+    DynamicClass parent = scope.get("DefaultsParent");
+    DynamicClass child = scope.declare("DefaultsChild", parent);
+    parent.setVariable("level", 1);
+
+    DynamicObject<Object> obj = maker.newInstance(child);
+    assertEquals(1, obj.getVar("level", 0));
+
+    parent.setVariable("armor", 3);
+    assertEquals(3, maker.newInstance(child).getVar("armor", 0));
+  }
+
+  @Test
+  public void atomicOperationsStartFromConstant(){
+    DynamicClass dyc = scope.get("AtomicDefaults");
+    dyc.setVariable("count", 10);
+
+    DynamicObject<Object> a = maker.newInstance(dyc);
+    DynamicObject<Object> b = maker.newInstance(dyc);
+
+    assertEquals(10, a.getAndAddVar("count", 1));
+    assertEquals(11, a.getVar("count", 0));
+    assertEquals(10, b.getVar("count", 0));
+  }
+
+  @Test
+  public void constantsAreWrittenToVariableFields(){
+    DynamicClass dyc = scope.get("FieldDefaults");
+    dyc.visitClass(Defaults.class, maker.getHelper());
+    maker.enableVariableFields(dyc);
+
+    DynamicObject<Object> obj = maker.newInstance(dyc);
+    assertInstanceOf(FieldVariable.Holder.class, obj);
+    assertEquals(20, obj.getVar("hp", 0));
+    assertEquals("unit", obj.getVar("kind"));
+  }
+}
@@ -0,0 +1,144 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**数据池函数选择缓存与版本戳的失效测试*/
+public class DataPoolCacheTest{
+  private static final FunctionType NONE = FunctionType.intern();
+
+  private DynamicClassRegistry scope;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  private static Object call(IFunctionEntry entry){
+    return entry.<Object, Object>getFunction().invoke0(null, NONE);
+  }
+
+  @Test
+  public void ownChangeExpiresCache(){
+    DataPool pool = new DataPool(null);
+    pool.setFunction("f", (s, a) -> 1);
+    assertEquals(1, call(pool.select("f", NONE)));
+
+    int stamp = pool.functionStamp();
+    pool.setFunction("f", (s, a) -> 2);
+    assertNotEquals(stamp, pool.functionStamp());
+    assertEquals(2, call(pool.select("f", NONE)));
+  }
+
+  @Test
+  public void superChangeExpiresChildCache(){
+    DataPool parent = new DataPool(null);
+    DataPool child = new DataPool(parent);
+    parent.setFunction("f", (s, a) -> 1);
+    child.setFunction("g", (s, a) -> 0);
+
+    assertEquals(1, call(child.select("f", NONE)));
+    assertNull(child.select("h", NONE));
+
+    int stamp = child.functionStamp();
+    parent.setFunction("f", (s, a) -> 2);
+    parent.setFunction("h", (s, a) -> 3);
+    assertNotEquals(stamp, child.functionStamp());
+
+    assertEquals(2, call(child.select("f", NONE)));
+    assertEquals(3, call(child.select("h", NONE)));
+  }
+
+  @Test
+  public void childOverrideShadowsCachedSuper(){
+    DataPool parent = new DataPool(null);
+    DataPool child = new DataPool(parent);
+    parent.setFunction("f", (s, a) -> 1);
+    child.setFunction("g", (s, a) -> 0);
+
+    FunctionSymbol symbol = FunctionSymbol.of("f");
+    assertEquals(1, call(child.select(symbol)));
+
+    child.setFunction("f", (s, a) -> 2);
+    assertEquals(2, call(child.select(symbol)));
+    assertEquals(2, call(child.select("f", NONE)));
+  }
+
+  @Test
+  public void symbolAndNameSelectAgree(){
+    DataPool pool = new DataPool(null);
+    pool.setFunction("f", (s, a) -> 1, int.class);
+    pool.setFunction("f", (s, a) -> 2, String.class);
+
+    FunctionSymbol sym = FunctionSymbol.of("f", String.class);
+    assertSame(pool.select("f", FunctionType.intern(String.class)), pool.select(sym));
+    assertSame(FunctionSymbol.of("f", String.class), sym);
+    assertNotSame(FunctionSymbol.of("f", int.class), sym);
+  }
+
+  @Test
+  public void boundFunctionSeesHotSwap(){
+    DynamicClass dyc = scope.get("Bound");
+    dyc.setFunction("f", (s, a) -> 1);
+
+    DynamicObject<Object> obj = DynamicFactory.getDefault().newInstance(dyc);
+    BoundFunction<Object, Object> bound = obj.bind(FunctionSymbol.of("f"));
+    assertEquals(1, bound.invoke0());
+    assertEquals(1, bound.invoke0());
+
+    dyc.setFunction("f", (s, a) -> 2);
+    assertEquals(2, bound.invoke0());
+
+    obj.setFunc("f", (s, a) -> 3);
+    assertEquals(3, obj.bind(FunctionSymbol.of("f")).invoke0());
+  }
+
+  @Test
+  public void bindKeepsSharedPool(){
+    DynamicClass dyc = scope.get("SharedBound");
+    dyc.setFunction("f", (s, a) -> 1);
+
+    DynamicMaker maker = DynamicFactory.getDefault();
+    DynamicObject<Object> obj = maker.newInstance(dyc);
+    DynamicObject<Object> other = maker.newInstance(dyc);
+    BoundFunction<Object, Object> bound = obj.bind(FunctionSymbol.of("f"));
+    assertEquals(1, bound.invoke0());
+    assertSame(other.dataPool(), obj.dataPool());
+
+    dyc.setFunction("f", (s, a) -> 2);
+    assertEquals(2, bound.invoke0());
+
+    obj.setFunc("f", (s, a) -> 3);
+    assertNotSame(other.dataPool(), obj.dataPool());
+    assertEquals(3, bound.invoke0());
+    assertEquals(2, other.<Object>invokeFunc("f"));
+  }
+
+  @Test
+  public void deepHierarchySelectsRootFunction(){
+    DataPool root = new DataPool(null);
+    root.setFunction("f", (s, a) -> 1);
+
+    DataPool leaf = root;
+    for(int i = 0; i < 16; i++){
+      leaf = new DataPool(leaf);
+      leaf.setFunction("g" + i, (s, a) -> 0);
+    }
+
+    FunctionSymbol symbol = FunctionSymbol.of("f");
+    assertEquals(1, call(leaf.select("f", NONE)));
+    assertEquals(1, call(leaf.select(symbol)));
+
+    root.setFunction("f", (s, a) -> 2);
+    assertEquals(2, call(leaf.select("f", NONE)));
+    assertEquals(2, call(leaf.select(symbol)));
+  }
+}
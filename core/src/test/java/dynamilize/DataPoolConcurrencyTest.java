@@ -0,0 +1,167 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**数据池在并发读取与修改下的测试*/
+public class DataPoolConcurrencyTest{
+  public static class Base{
+    public int value(int x){
+      return x;
+    }
+  }
+
+  private DynamicClassRegistry scope;
+  private DynamicMaker maker;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+    maker = DynamicFactory.getDefault();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  private static void await(CyclicBarrier barrier){
+    try{
+      barrier.await();
+    }catch(Exception e){
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void runAll(List<Runnable> tasks) throws InterruptedException{
+    List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    List<Thread> threads = new ArrayList<>();
+    for(Runnable task: tasks){
+      Thread t = new Thread(task);
+      t.setUncaughtExceptionHandler((th, e) -> errors.add(e));
+      threads.add(t);
+      t.start();
+    }
+    for(Thread t: threads){
+      t.join();
+    }
+    assertEquals(Collections.emptyList(), errors);
+  }
+
+  @Test
+  public void concurrentPromotionKeepsEveryFunction() throws InterruptedException{
+    DynamicClass dyc = scope.get("Promoted");
+    int objects = 20000, threads = 2;
+
+    List<DynamicObject<Base>> objs = new ArrayList<>();
+    for(int i = 0; i < objects; i++){
+      objs.add(maker.newInstance(Base.class, dyc));
+    }
+
+    CyclicBarrier barrier = new CyclicBarrier(threads);
+    List<Runnable> tasks = new ArrayList<>();
+    for(int t = 0; t < threads; t++){
+      String name = "own" + t;
+      int result = t;
+      tasks.add(() -> {
+        await(barrier);
+        for(DynamicObject<Base> obj: objs){
+          obj.setFunc(name, (s, args) -> result);
+        }
+      });
+    }
+    runAll(tasks);
+
+    for(int i = 0; i < objects; i++){
+      DynamicObject<Base> obj = objs.get(i);
+      for(int t = 0; t < threads; t++){
+        assertEquals(t, (int) obj.invokeFunc("own" + t), "object " + i + " lost function own" + t);
+      }
+    }
+  }
+
+  @Test
+  public void readersObserveCompletePatches() throws InterruptedException{
+    DynamicClass dyc = scope.get("Patched");
+    dyc.setFunction("value", (s, args) -> 0, int.class);
+
+    List<DynamicObject<Base>> objs = new ArrayList<>();
+    for(int i = 0; i < 64; i++){
+      objs.add(maker.newInstance(Base.class, dyc));
+    }
+
+    int patches = 2000;
+    AtomicBoolean done = new AtomicBoolean();
+    List<Runnable> tasks = new ArrayList<>();
+    for(int r = 0; r < 2; r++){
+      tasks.add(() -> {
+        int last = 0;
+        while(!done.get()){
+          for(DynamicObject<Base> obj: objs){
+            int v = obj.objSelf().value(1);
+            assertTrue(v >= 0 && v <= patches, "unexpected result " + v);
+            last = Math.max(last, v);
+          }
+        }
+      });
+    }
+    tasks.add(() -> {
+      for(int p = 1; p <= patches; p++){
+        int res = p;
+        if(p % 2 == 0) dyc.setFunction("value", (s, args) -> res, int.class);
+        else objs.get(p % objs.size()).setFunc("value", (s, args) -> res, int.class);
+      }
+      done.set(true);
+    });
+    runAll(tasks);
+
+    assertEquals(patches, objs.get(0).objSelf().value(1));
+    assertEquals(patches - 1, objs.get((patches - 1) % objs.size()).objSelf().value(1));
+  }
+
+  @Test
+  public void readersRacingSetFunctionNeverGoBack() throws InterruptedException{
+    FunctionType type = FunctionType.intern();
+    FunctionSymbol symbol = FunctionSymbol.of("f");
+    DataPool root = new DataPool(null);
+    DataPool child = new DataPool(root);
+    root.setFunction("f", (s, a) -> 0);
+    child.setFunction("g", (s, a) -> -1);
+
+    int writes = 20000;
+    AtomicBoolean done = new AtomicBoolean();
+    List<Runnable> tasks = new ArrayList<>();
+    for(int r = 0; r < 2; r++){
+      boolean bySymbol = r == 1;
+      tasks.add(() -> {
+        int last = 0;
+        while(!done.get()){
+          IFunctionEntry entry = bySymbol? child.select(symbol): child.select("f", type);
+          int v = entry.<Object, Integer>getFunction().invoke0(null, type);
+          assertTrue(v >= last, "read " + v + " after " + last);
+          last = v;
+        }
+
+        IFunctionEntry entry = bySymbol? child.select(symbol): child.select("f", type);
+        assertEquals(writes, (int) entry.<Object, Integer>getFunction().invoke0(null, type));
+      });
+    }
+    tasks.add(() -> {
+      for(int w = 1; w <= writes; w++){
+        int res = w;
+        root.setFunction("f", (s, a) -> res);
+      }
+      done.set(true);
+    });
+    runAll(tasks);
+  }
+}
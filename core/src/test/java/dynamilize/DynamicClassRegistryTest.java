@@ -0,0 +1,75 @@
+package dynamilize;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**动态类型注册表作用域的测试*/
+public class DynamicClassRegistryTest{
+  public static class Base{
+    public int value(int x){
+      return x;
+    }
+  }
+
+  @Test
+  public void closeDeletesClassesOfScopeAndChildren(){
+    DynamicClassRegistry scope = DynamicClassRegistry.global().newScope();
+    DynamicClassRegistry child = scope.newScope();
+    DynamicClass a = scope.get("ScopedA");
+    DynamicClass b = child.declare("ScopedB", a);
+
+    assertSame(a, scope.get("ScopedA"));
+    assertSame(a, child.find("ScopedA"));
+    assertNull(scope.find("ScopedB"));
+
+    scope.close();
+
+    assertTrue(scope.isClosed());
+    assertTrue(child.isClosed());
+    assertTrue(a.isObsoleted());
+    assertTrue(b.isObsoleted());
+    assertNull(scope.find("ScopedA"));
+    assertEquals(0, scope.getClasses().length);
+    assertThrows(IllegalHandleException.class, () -> scope.get("ScopedC"));
+    assertThrows(IllegalHandleException.class, () -> scope.newScope().get("ScopedC"));
+    assertThrows(IllegalHandleException.class, () -> DynamicFactory.getDefault().newInstance(a));
+    assertThrows(IllegalHandleException.class, () -> DynamicClassRegistry.global().close());
+  }
+
+  @Test
+  public void scopesDoNotShareNames(){
+    try(DynamicClassRegistry a = DynamicClassRegistry.global().newScope();
+        DynamicClassRegistry b = DynamicClassRegistry.global().newScope()){
+      assertNotSame(a.get("Shared"), b.get("Shared"));
+      assertThrows(IllegalHandleException.class, () -> a.declare("Shared", null));
+    }
+  }
+
+  private static WeakReference<DynamicClass> useAndClose(){
+    DynamicClassRegistry scope = DynamicClassRegistry.global().newScope();
+    DynamicClass dyc = scope.get("Collected");
+    dyc.setFunction("value", (s, args) -> args.<Integer>get(0) + 1, int.class);
+
+    Base obj = DynamicFactory.getDefault().newInstance(Base.class, dyc).objSelf();
+    for(int i = 0; i < 3; i++){
+      assertEquals(2, obj.value(1));
+    }
+
+    scope.close();
+    return new WeakReference<>(dyc);
+  }
+
+  @Test
+  public void closedClassIsCollectedAfterDelegatedCall() throws InterruptedException{
+    WeakReference<DynamicClass> ref = useAndClose();
+
+    for(int i = 0; i < 50 && ref.get() != null; i++){
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertNull(ref.get(), "dynamic class was still reachable after its scope was closed");
+  }
+}
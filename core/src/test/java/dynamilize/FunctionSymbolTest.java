@@ -0,0 +1,67 @@
+package dynamilize;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**函数符号驻留的测试*/
+public class FunctionSymbolTest{
+  public static class Arg{}
+
+  /**以独立的类加载器加载{@link Arg}，得到与测试类中的类型同名但不同的类*/
+  private static Class<?> isolatedArg() throws Exception{
+    URL location = Arg.class.getProtectionDomain().getCodeSource().getLocation();
+    return new URLClassLoader(new URL[]{location}, null).loadClass(Arg.class.getName());
+  }
+
+  @Test
+  public void symbolsAreInterned(){
+    FunctionSymbol a = FunctionSymbol.of("run", int.class, String.class);
+
+    assertSame(a, FunctionSymbol.of("run", int.class, String.class));
+    assertSame(a, FunctionSymbol.of("run", FunctionType.intern(int.class, String.class)));
+    assertNotSame(a, FunctionSymbol.of("walk", int.class, String.class));
+    assertSame(FunctionType.intern(int.class, String.class), a.type());
+  }
+
+  @Test
+  public void sameClassNameFromOtherLoaderHasOwnSymbol() throws Exception{
+    Class<?> a1 = isolatedArg(), a2 = isolatedArg();
+    assertEquals(a1.getName(), a2.getName());
+    assertNotSame(a1, a2);
+
+    FunctionSymbol s1 = FunctionSymbol.of("f", a1);
+    FunctionSymbol s2 = FunctionSymbol.of("f", a2);
+    assertNotSame(s1, s2);
+    assertSame(a2, s2.type().getTypes()[0]);
+
+    try(DynamicClassRegistry scope = DynamicClassRegistry.global().newScope()){
+      DynamicClass dyc = scope.get("Reloaded");
+      dyc.setFunction("f", (s, args) -> 2, a2);
+
+      DataPool pool = DynamicFactory.getDefault().newInstance(dyc).dataPool();
+      assertNotNull(pool.select("f", FunctionType.inst(a2)));
+      assertNotNull(pool.select(FunctionSymbol.of("f", a2)));
+      assertNull(pool.select(s1));
+    }
+  }
+
+  private static WeakReference<FunctionSymbol> symbolOfUnloadedClass() throws Exception{
+    return new WeakReference<>(FunctionSymbol.of("f", isolatedArg()));
+  }
+
+  @Test
+  public void symbolsDoNotHoldUnreachableTypes() throws Exception{
+    WeakReference<FunctionSymbol> ref = symbolOfUnloadedClass();
+
+    for(int i = 0; i < 50 && ref.get() != null; i++){
+      System.gc();
+      Thread.sleep(20);
+    }
+    assertNull(ref.get(), "function symbol of an unreachable class was still retained");
+  }
+}
@@ -0,0 +1,79 @@
+package dynamilize;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**函数类型驻留与比较的测试*/
+public class FunctionTypeTest{
+  @Test
+  public void internReturnsCanonicalInstance(){
+    FunctionType a = FunctionType.intern(int.class, String.class);
+    FunctionType b = FunctionType.intern(int.class, String.class);
+
+    assertSame(a, b);
+    assertTrue(a.isInterned());
+    assertNotSame(a, FunctionType.intern(String.class, int.class));
+    assertSame(FunctionType.intern(), FunctionType.intern());
+  }
+
+  @Test
+  public void internDoesNotHoldCallerArray(){
+    Class<?>[] types = {int.class, String.class};
+    FunctionType type = FunctionType.intern(types);
+    types[0] = long.class;
+
+    assertArrayEquals(new Class<?>[]{int.class, String.class}, type.getTypes());
+    assertSame(type, FunctionType.intern(int.class, String.class));
+  }
+
+  @Test
+  public void internOfInstanceMatchesInternOfTypes(){
+    FunctionType inst = FunctionType.inst(int.class, String.class);
+    FunctionType interned = FunctionType.intern(inst);
+
+    assertFalse(inst.isInterned());
+    assertSame(FunctionType.intern(int.class, String.class), interned);
+    assertSame(interned, FunctionType.intern(interned));
+
+    inst.recycle();
+  }
+
+  @Test
+  public void recycleIgnoresInternedTypes(){
+    FunctionType type = FunctionType.intern(double.class);
+    type.recycle();
+
+    assertArrayEquals(new Class<?>[]{double.class}, type.getTypes());
+    assertSame(type, FunctionType.intern(double.class));
+  }
+
+  @Test
+  public void equalsComparesParameterTypes(){
+    FunctionType a = FunctionType.inst(int.class, String.class);
+    FunctionType b = FunctionType.inst(int.class, String.class);
+    FunctionType c = FunctionType.inst(int.class, Object.class);
+    FunctionType interned = FunctionType.intern(int.class, String.class);
+
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertNotEquals(a, c);
+    assertEquals(a, interned);
+    assertEquals(interned, a);
+    assertNotEquals(interned, FunctionType.intern(int.class, Object.class));
+
+    a.recycle();
+    b.recycle();
+    c.recycle();
+  }
+
+  @Test
+  public void fromMethodIsInterned() throws NoSuchMethodException{
+    Method method = String.class.getMethod("substring", int.class, int.class);
+
+    assertSame(FunctionType.intern(int.class, int.class), FunctionType.from(method));
+    assertSame(FunctionSymbol.of("substring", int.class, int.class).type(), FunctionType.from(method));
+  }
+}
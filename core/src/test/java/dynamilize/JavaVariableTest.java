@@ -0,0 +1,68 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**java字段变量访问的测试*/
+public class JavaVariableTest{
+  public static class Base{
+    public volatile int flag;
+    public volatile long stamp;
+    public final int fixed = 5;
+    public String label = "base";
+  }
+
+  private DynamicClassRegistry scope;
+  private DynamicObject<Base> obj;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+    obj = DynamicFactory.getDefault().newInstance(Base.class, scope.get("Fields"));
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  @Test
+  public void readsAndWritesBaseFields(){
+    obj.setVar("flag", 3);
+    obj.setVar("label", "dyn");
+
+    assertEquals(3, obj.objSelf().flag);
+    assertEquals(3, obj.getVar("flag", 0));
+    assertEquals(3L, obj.getVar("flag", 0L));
+    assertEquals("dyn", obj.getVar("label"));
+    assertEquals(5, obj.getVar("fixed", 0));
+  }
+
+  @Test
+  public void volatileFieldsArePublished(){
+    Thread writer = new Thread(() -> {
+      obj.setVar("stamp", 42L);
+      obj.setVar("flag", 1);
+    });
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      writer.start();
+      while(obj.getVar("flag", 0) == 0) Thread.yield();
+      assertEquals(42L, obj.getVar("stamp", 0L));
+      writer.join();
+    });
+  }
+
+  @Test
+  public void atomicOperationsUseFieldHandle(){
+    assertTrue(obj.compareAndSetVar("flag", 0, 7));
+    assertFalse(obj.compareAndSetVar("flag", 0, 8));
+    assertEquals(7, obj.getAndAddVar("flag", 3));
+    assertEquals(10, obj.objSelf().flag);
+  }
+}
@@ -0,0 +1,57 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**超函数调用预先链接的测试*/
+public class SuperCallTest{
+  public static class Base{
+    public int value(int x){
+      return x * 10;
+    }
+  }
+
+  private DynamicClassRegistry scope;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  @Test
+  public void superCallToBaseMethodIsLinked(){
+    DynamicClass dyc = scope.get("Around");
+    FunctionType type = FunctionType.intern(int.class);
+    dyc.<Base, Object>setFunction("value", (self, sup, args) -> {
+      assertNotSame(self.baseSuperPointer(), sup);
+      assertSame(sup.getFunc("value", type), sup.getFunc(FunctionSymbol.of("value", type)));
+      return sup.<Integer>invokeFunc(type, "value", args.args()) + 1;
+    }, int.class);
+
+    Base obj = DynamicFactory.getDefault().newInstance(Base.class, dyc).objSelf();
+    assertEquals(31, obj.value(3));
+    assertEquals(31, obj.value(3));
+  }
+
+  @Test
+  public void superCallFollowsDynamicSuperClass(){
+    DynamicClass parent = scope.get("Parent");
+    DynamicClass child = scope.declare("Child", parent);
+    parent.<Base, Object>setFunction("value", (self, sup, args) -> sup.<Integer>invokeFunc(FunctionType.intern(int.class), "value", args.args()) + 1, int.class);
+    child.<Base, Object>setFunction("value", (self, sup, args) -> sup.<Integer>invokeFunc(FunctionType.intern(int.class), "value", args.args()) * 2, int.class);
+
+    Base obj = DynamicFactory.getDefault().newInstance(Base.class, child).objSelf();
+    assertEquals(62, obj.value(3));
+
+    parent.<Base, Object>setFunction("value", (self, sup, args) -> sup.<Integer>invokeFunc(FunctionType.intern(int.class), "value", args.args()) + 2, int.class);
+    assertEquals(64, obj.value(3));
+  }
+}
@@ -0,0 +1,54 @@
+package dynamilize;
+
+import dynamilize.runtimeannos.Super;
+import dynamilize.runtimeannos.This;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**行为样版方法调用器的测试*/
+public class TemplateInvokerTest{
+  public static class Base{
+    public int scale(int x){
+      return x * 10;
+    }
+  }
+
+  public static class Template{
+    public static int scale(@This DynamicObject<?> self, @Super DataPool.ReadOnlyPool sup, int x){
+      return sup.<Integer>invokeFunc(FunctionType.intern(int.class), "scale", x) + self.getVar("bias", 0);
+    }
+  }
+
+  private DynamicClassRegistry scope;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  @Test
+  public void templateMethodUsesGeneratedInvoker(){
+    DynamicMaker maker = DynamicFactory.getDefault();
+    DynamicClass a = scope.get("TemplateA");
+    DynamicClass b = scope.get("TemplateB");
+    a.visitClass(Template.class, maker.getHelper());
+    b.visitClass(Template.class, maker.getHelper());
+
+    DynamicObject<Base> obj = maker.newInstance(Base.class, a);
+    obj.setVar("bias", 2);
+    assertEquals(32, obj.objSelf().scale(3));
+
+    Function<?, ?> fa = a.getFunctions()[0].getFunction();
+    Function<?, ?> fb = b.getFunctions()[0].getFunction();
+    assertInstanceOf(TemplateInvoker.class, fa);
+    assertSame(fa.getClass(), fb.getClass());
+  }
+}
@@ -0,0 +1,97 @@
+package dynamilize;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**变量布局迁移的测试*/
+public class VarShapeTest{
+  private static final VarSymbol X = VarSymbol.of("shapeTest.x");
+  private static final VarSymbol Y = VarSymbol.of("shapeTest.y");
+  private static final VarSymbol Z = VarSymbol.of("shapeTest.z");
+
+  private DynamicClassRegistry scope;
+
+  @BeforeEach
+  public void setup(){
+    scope = DynamicClassRegistry.global().newScope();
+  }
+
+  @AfterEach
+  public void teardown(){
+    scope.close();
+  }
+
+  @Test
+  public void transitionsAreCached(){
+    VarShape xy = VarShape.EMPTY.withVar(X).withVar(Y);
+
+    assertSame(xy, VarShape.EMPTY.withVar(X).withVar(Y));
+    assertNotSame(xy, VarShape.EMPTY.withVar(Y).withVar(X));
+    assertEquals(2, xy.size());
+    assertSame(X, xy.symbolAt(0));
+    assertSame(Y, xy.symbolAt(1));
+  }
+
+  @Test
+  public void slotsAreStableAcrossSuccessors(){
+    VarShape x = VarShape.EMPTY.withVar(X);
+    VarShape xyz = x.withVar(Y).withVar(Z);
+
+    assertEquals(0, x.slotOf(X));
+    assertEquals(0, xyz.slotOf(X));
+    assertEquals(2, xyz.slotOf(Z));
+    assertEquals(-1, x.slotOf(Y));
+    assertTrue(xyz.holds(1, Y));
+    assertFalse(xyz.holds(1, X));
+    assertFalse(x.holds(3, X));
+  }
+
+  @Test
+  public void objectsDefiningSameVariablesShareShape(){
+    DynamicMaker maker = DynamicFactory.getDefault();
+    DynamicClass dyc = scope.get("Shaped");
+    DynamicObject<Object> a = maker.newInstance(dyc);
+    DynamicObject<Object> b = maker.newInstance(dyc);
+    DynamicObject<Object> c = maker.newInstance(dyc);
+
+    assertNull(a.varShape());
+
+    a.varValueSet(X.name(), 1);
+    a.varValueSet(Y.name(), "a");
+    b.varValueSet(X.name(), 2);
+    b.varValueSet(Y.name(), "b");
+    c.varValueSet(Y.name(), "c");
+    c.varValueSet(X.name(), 3);
+
+    assertSame(a.varShape(), b.varShape());
+    assertNotSame(a.varShape(), c.varShape());
+    assertEquals(1, (int) a.varValueGet(X.name()));
+    assertEquals("b", b.varValueGet(Y.name()));
+    assertEquals(3, (int) c.varValueGet(X.name()));
+    assertNull(a.varValueGet(Z.name()));
+
+    VarShape before = a.varShape();
+    a.varValueSet(X.name(), 10);
+    assertSame(before, a.varShape());
+    assertEquals(10, (int) a.varValueGet(X.name()));
+  }
+
+  @Test
+  public void variablesStoreValuesInShapeSlots(){
+    DynamicClass dyc = scope.get("ShapedVars");
+    DynamicObject<Object> obj = DynamicFactory.getDefault().newInstance(dyc);
+
+    obj.setVar("count", 1);
+    obj.setVar("name", "first");
+    obj.setVar("count", 2);
+
+    assertEquals(2, obj.getVar("count", 0));
+    assertEquals("first", obj.getVar("name"));
+    assertEquals(2, obj.varShape().size());
+    assertTrue(obj.varShape().slotOf(VarSymbol.of("count")) >= 0);
+    assertTrue(obj.varShape().slotOf(VarSymbol.of("name")) >= 0);
+  }
+}